@@ -0,0 +1,52 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for measuring text and breaking it into lines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FontMetricsBenchmark {
+
+    private static final double MM_TO_PT = 72 / 25.4;
+
+    @Param({"Helvetica", "Liberation Sans", "Frutiger"})
+    public String fontFamily;
+
+    @Param({"8", "10"})
+    public int fontSize;
+
+    private FontMetrics fontMetrics;
+    private String text;
+
+    @Setup
+    public void setup() {
+        fontMetrics = new FontMetrics(fontFamily);
+        text = "Herrn und Frau Ambikaipagan & Deepshikha Thirugnanasampanthamoorthy\n"
+                + "c/o Pereira De Carvalho, Conrad-Ferdinand-Meyer-Strasse 317 Wohnung 7B\n"
+                + "9527 Niederhelfenschwil bei Schönholzerswilen im Kanton St. Gallen";
+    }
+
+    @Benchmark
+    public String[] splitLines() {
+        return fontMetrics.splitLines(text, 52 * MM_TO_PT, fontSize);
+    }
+
+    @Benchmark
+    public double textWidth() {
+        return fontMetrics.getTextWidth(text, fontSize, false);
+    }
+}
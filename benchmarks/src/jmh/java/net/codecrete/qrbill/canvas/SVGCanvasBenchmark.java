@@ -0,0 +1,61 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for generating SVG output.
+ * <p>
+ * Besides the time per operation, the number of generated bytes is reported as
+ * the auxiliary counter {@code bytes} (per second). Compare it across versions
+ * to see the SVG throughput.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SVGCanvasBenchmark {
+
+    @Param({"QR_CODE_ONLY", "A4_PORTRAIT_SHEET"})
+    public OutputSize outputSize;
+
+    private Bill bill;
+
+    /**
+     * Counts the generated SVG bytes.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ByteCounter {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        bill = BenchmarkData.cleanedBill(BenchmarkData.createBill(8, SPSCharacterSet.LATIN_1_SUBSET,
+                Language.DE, outputSize, GraphicsFormat.SVG));
+    }
+
+    @Benchmark
+    public byte[] generateSVG(ByteCounter counter) {
+        byte[] svg = QRBill.generate(bill);
+        counter.bytes += svg.length;
+        return svg;
+    }
+}
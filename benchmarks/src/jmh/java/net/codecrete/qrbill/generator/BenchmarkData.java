@@ -0,0 +1,84 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.SampleData;
+
+/**
+ * Bill data for benchmarks.
+ */
+public class BenchmarkData {
+
+    private BenchmarkData() {
+        // do not instantiate
+    }
+
+    /**
+     * Creates the sample bill with the specified number and settings.
+     * <p>
+     * The bill data is not cleaned, i.e. it is what an application would pass to the library.
+     * </p>
+     *
+     * @param example      example number (1 to 8, see {@link SampleData})
+     * @param characterSet character set
+     * @param language     language
+     * @param outputSize   output size
+     * @param format       graphics format
+     * @return bill data
+     */
+    public static Bill createBill(int example, SPSCharacterSet characterSet, Language language,
+                                  OutputSize outputSize, GraphicsFormat format) {
+        Bill bill = getExample(example);
+        bill.setCharacterSet(characterSet);
+        bill.getFormat().setLanguage(language);
+        bill.getFormat().setOutputSize(outputSize);
+        bill.getFormat().setGraphicsFormat(format);
+        return bill;
+    }
+
+    /**
+     * Creates the sample bill with the specified number.
+     *
+     * @param example example number (1 to 8, see {@link SampleData})
+     * @return bill data
+     */
+    public static Bill getExample(int example) {
+        switch (example) {
+            case 1:
+                return SampleData.getExample1();
+            case 2:
+                return SampleData.getExample2();
+            case 3:
+                return SampleData.getExample3();
+            case 4:
+                return SampleData.getExample4();
+            case 5:
+                return SampleData.getExample5();
+            case 6:
+                return SampleData.getExample6();
+            case 7:
+                return SampleData.getExample7();
+            case 8:
+                return SampleData.getExample8();
+            default:
+                throw new IllegalArgumentException("Invalid example number");
+        }
+    }
+
+    /**
+     * Validates the bill data and returns the cleaned bill data.
+     *
+     * @param bill bill data
+     * @return cleaned bill data
+     */
+    public static Bill cleanedBill(Bill bill) {
+        ValidationResult result = Validator.validate(bill);
+        if (result.hasErrors())
+            throw new QRBillValidationError(result);
+        return result.getCleanedBill();
+    }
+}
@@ -0,0 +1,47 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks for generating QR bills (validation, encoding and graphics output).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateBenchmark {
+
+    @Param({"SVG", "PDF", "PNG"})
+    public GraphicsFormat graphicsFormat;
+
+    @Param({"QR_BILL_ONLY", "A4_PORTRAIT_SHEET", "QR_CODE_ONLY"})
+    public OutputSize outputSize;
+
+    @Param({"LATIN_1_SUBSET", "EXTENDED_LATIN"})
+    public SPSCharacterSet characterSet;
+
+    @Param({"DE", "FR", "EN"})
+    public Language language;
+
+    private Bill bill;
+
+    @Setup
+    public void setup() {
+        bill = BenchmarkData.createBill(8, characterSet, language, outputSize, graphicsFormat);
+    }
+
+    @Benchmark
+    public byte[] generate() {
+        return QRBill.generate(bill);
+    }
+}
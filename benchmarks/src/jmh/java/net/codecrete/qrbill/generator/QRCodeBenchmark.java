@@ -0,0 +1,119 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.canvas.AbstractCanvas;
+import net.codecrete.qrbill.canvas.Canvas;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding and drawing the QR code.
+ * <p>
+ * The QR code is drawn onto a canvas that discards all output
+ * so that only the QR code encoding and path generation are measured.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QRCodeBenchmark {
+
+    @Param({"1", "4", "5", "8"})
+    public int example;
+
+    private String text;
+    private NullCanvas canvas;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        Bill bill = BenchmarkData.createBill(example, SPSCharacterSet.EXTENDED_LATIN, Language.EN,
+                OutputSize.QR_CODE_ONLY, GraphicsFormat.SVG);
+        text = QRCodeText.create(BenchmarkData.cleanedBill(bill));
+        canvas = new NullCanvas(blackhole);
+    }
+
+    @Benchmark
+    public void draw() throws IOException {
+        QRCode qrCode = new QRCode(text);
+        qrCode.draw(canvas, 0, 0);
+    }
+
+    /**
+     * Canvas consuming all drawing operations without producing output.
+     */
+    static class NullCanvas extends AbstractCanvas {
+
+        private final Blackhole blackhole;
+
+        NullCanvas(Blackhole blackhole) {
+            this.blackhole = blackhole;
+            setupFontMetrics("Helvetica");
+        }
+
+        @Override
+        public void setTransformation(double translateX, double translateY, double rotate, double scaleX, double scaleY) {
+            blackhole.consume(translateX + translateY + rotate + scaleX + scaleY);
+        }
+
+        @Override
+        public void putText(String text, double x, double y, int fontSize, boolean isBold) {
+            blackhole.consume(text);
+        }
+
+        @Override
+        public void startPath() {
+            // nothing to do
+        }
+
+        @Override
+        public void moveTo(double x, double y) {
+            blackhole.consume(x + y);
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            blackhole.consume(x + y);
+        }
+
+        @Override
+        public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+            blackhole.consume(x1 + y1 + x2 + y2 + x + y);
+        }
+
+        @Override
+        public void addRectangle(double x, double y, double width, double height) {
+            blackhole.consume(x + y + width + height);
+        }
+
+        @Override
+        public void closeSubpath() {
+            // nothing to do
+        }
+
+        @Override
+        public void fillPath(int color, boolean smoothing) {
+            blackhole.consume(color);
+        }
+
+        @Override
+        public void strokePath(double strokeWidth, int color, Canvas.LineStyle lineStyle, boolean smoothing) {
+            blackhole.consume(color);
+        }
+
+        @Override
+        public void close() {
+            // nothing to do
+        }
+    }
+}
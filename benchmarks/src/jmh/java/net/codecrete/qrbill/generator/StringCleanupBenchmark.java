@@ -0,0 +1,55 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for cleaning text according to the character set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringCleanupBenchmark {
+
+    @Param({"valid", "whitespace", "accented", "replaced"})
+    public String textType;
+
+    @Param({"LATIN_1_SUBSET", "EXTENDED_LATIN"})
+    public SPSCharacterSet characterSet;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        switch (textType) {
+            case "valid":
+                text = "Rechnung 2021007834, Auftrag 2830188, Allmendweg 30, 4528 Zuchwil";
+                break;
+            case "whitespace":
+                text = "  Rechnung 2021007834,\tAuftrag 2830188\r\nAllmendweg 30,  4528 Zuchwil ";
+                break;
+            case "accented":
+                text = "Facture 48390, €10 de réduction, Route d'Outre Vièze 44, 1871 Choëx";
+                break;
+            case "replaced":
+            default:
+                text = "Buğra Çavdarli, L'Œil de Bœuf, Łódź, Ştefan Ţăranu, „Zitat“ – Ĳssel";
+                break;
+        }
+    }
+
+    @Benchmark
+    public String cleanedText() {
+        return StringCleanup.cleanedText(text, characterSet);
+    }
+}
@@ -0,0 +1,41 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the validation and cleaning of bill data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    @Param({"1", "4", "5", "8"})
+    public int example;
+
+    @Param({"LATIN_1_SUBSET", "EXTENDED_LATIN"})
+    public SPSCharacterSet characterSet;
+
+    private Bill bill;
+
+    @Setup
+    public void setup() {
+        bill = BenchmarkData.createBill(example, characterSet, Language.EN, OutputSize.QR_BILL_ONLY, GraphicsFormat.SVG);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return Validator.validate(bill);
+    }
+}
@@ -46,6 +46,15 @@ public abstract class AbstractCanvas implements Canvas {
         fontMetrics = new FontMetrics(fontFamilyList);
     }
 
+    /**
+     * Gets the font metrics used to measure text.
+     *
+     * @return font metrics, or {@code null} if {@link #setupFontMetrics(String)} has not been called yet
+     */
+    public FontMetrics getFontMetrics() {
+        return fontMetrics;
+    }
+
     @Override
     public void putTextLines(String[] lines, double x, double y, int fontSize, double leading) throws IOException {
         for (String line : lines) {
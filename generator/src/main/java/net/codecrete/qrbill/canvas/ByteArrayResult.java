@@ -7,6 +7,7 @@
 package net.codecrete.qrbill.canvas;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Interface for returning a result as a byte array.
@@ -20,4 +21,18 @@ public interface ByteArrayResult {
      * @throws IOException thrown if the construction of the byte array fails
      */
     byte[] toByteArray() throws IOException;
+
+    /**
+     * Writes the resulting graphics to the specified output stream.
+     * <p>
+     * Implementations write the result directly to the output stream without
+     * creating an intermediate byte array.
+     * </p>
+     *
+     * @param os the output stream
+     * @throws IOException thrown if the graphics cannot be written
+     */
+    default void writeTo(OutputStream os) throws IOException {
+        os.write(toByteArray());
+    }
 }
@@ -155,6 +155,11 @@ public interface Canvas extends Closeable {
 
     /**
      * Fills the current path and ends it
+     * <p>
+     * The path must be filled using the non-zero winding rule. Subpaths may overlap
+     * (e.g. the rectangles covering the modules of the QR code); with the even-odd rule,
+     * the overlapping areas would not be filled.
+     * </p>
      *
      * @param color the fill color (expressed similar to HTML, e.g. 0xffffff for white)
      * @param smoothing {@code true} for using smoothing techniques such as antialiasing, {@code false} otherwise
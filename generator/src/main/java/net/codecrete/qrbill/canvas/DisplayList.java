@@ -0,0 +1,221 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Recorded list of drawing commands.
+ * <p>
+ * A display list is created by {@link RecordingCanvas} and can be replayed
+ * onto any other canvas, any number of times. It is immutable and can be
+ * shared between threads. It is serializable, e.g. to cache it or to send
+ * it to a different process for rendering.
+ * </p>
+ * <p>
+ * The drawing commands are stored in a compact form in arrays of primitive
+ * values: an array of operation codes and arrays with the operands.
+ * </p>
+ */
+public final class DisplayList implements Serializable {
+
+    private static final long serialVersionUID = 3460841227563528671L;
+
+    static final byte SET_TRANSFORMATION = 1;
+    static final byte PUT_TEXT = 2;
+    static final byte PUT_TEXT_LINES = 3;
+    static final byte START_PATH = 4;
+    static final byte MOVE_TO = 5;
+    static final byte LINE_TO = 6;
+    static final byte CUBIC_CURVE_TO = 7;
+    static final byte ADD_RECTANGLE = 8;
+    static final byte CLOSE_SUBPATH = 9;
+    static final byte FILL_PATH = 10;
+    static final byte STROKE_PATH = 11;
+
+    private final String fontFamilyList;
+    private final byte[] operations;
+    private final double[] numbers;
+    private final int[] integers;
+    private final String[] strings;
+
+    DisplayList(String fontFamilyList, byte[] operations, double[] numbers, int[] integers, String[] strings) {
+        this.fontFamilyList = fontFamilyList;
+        this.operations = operations;
+        this.numbers = numbers;
+        this.integers = integers;
+        this.strings = strings;
+    }
+
+    /**
+     * Gets the font family list used to measure the text while recording.
+     * <p>
+     * To get the same result as when drawing directly, the canvas used for replay
+     * should use the same font metrics.
+     * </p>
+     *
+     * @return font family list (comma separated list, CSS syntax)
+     */
+    public String getFontFamilyList() {
+        return fontFamilyList;
+    }
+
+    /**
+     * Gets the number of drawing commands.
+     *
+     * @return number of drawing commands
+     */
+    public int size() {
+        return operations.length;
+    }
+
+    /**
+     * Replays the drawing commands onto the specified canvas.
+     * <p>
+     * The canvas is not closed.
+     * </p>
+     *
+     * @param canvas the canvas to draw to
+     * @throws IOException thrown if the canvas fails
+     */
+    public void replay(Canvas canvas) throws IOException {
+        int n = 0; // index into numbers
+        int i = 0; // index into integers
+        int s = 0; // index into strings
+
+        for (byte operation : operations) {
+            switch (operation) {
+                case SET_TRANSFORMATION:
+                    canvas.setTransformation(numbers[n], numbers[n + 1], numbers[n + 2], numbers[n + 3], numbers[n + 4]);
+                    n += 5;
+                    break;
+                case PUT_TEXT:
+                    canvas.putText(strings[s], numbers[n], numbers[n + 1], integers[i], integers[i + 1] != 0);
+                    s += 1;
+                    n += 2;
+                    i += 2;
+                    break;
+                case PUT_TEXT_LINES: {
+                    int numLines = integers[i + 1];
+                    String[] lines = new String[numLines];
+                    System.arraycopy(strings, s, lines, 0, numLines);
+                    canvas.putTextLines(lines, numbers[n], numbers[n + 1], integers[i], numbers[n + 2]);
+                    s += numLines;
+                    n += 3;
+                    i += 2;
+                    break;
+                }
+                case START_PATH:
+                    canvas.startPath();
+                    break;
+                case MOVE_TO:
+                    canvas.moveTo(numbers[n], numbers[n + 1]);
+                    n += 2;
+                    break;
+                case LINE_TO:
+                    canvas.lineTo(numbers[n], numbers[n + 1]);
+                    n += 2;
+                    break;
+                case CUBIC_CURVE_TO:
+                    canvas.cubicCurveTo(numbers[n], numbers[n + 1], numbers[n + 2], numbers[n + 3],
+                            numbers[n + 4], numbers[n + 5]);
+                    n += 6;
+                    break;
+                case ADD_RECTANGLE:
+                    canvas.addRectangle(numbers[n], numbers[n + 1], numbers[n + 2], numbers[n + 3]);
+                    n += 4;
+                    break;
+                case CLOSE_SUBPATH:
+                    canvas.closeSubpath();
+                    break;
+                case FILL_PATH:
+                    canvas.fillPath(integers[i], integers[i + 1] != 0);
+                    i += 2;
+                    break;
+                case STROKE_PATH:
+                    canvas.strokePath(numbers[n], integers[i], Canvas.LineStyle.values()[integers[i + 1]],
+                            integers[i + 2] != 0);
+                    n += 1;
+                    i += 3;
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid display list operation " + operation);
+            }
+        }
+    }
+
+    // Checks that the deserialized drawing commands are consistent with their operands
+    // so an invalid display list is rejected when it is read (instead of failing on replay)
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        if (fontFamilyList == null || operations == null || numbers == null || integers == null || strings == null)
+            throw new InvalidObjectException("Display list is incomplete");
+
+        int n = 0; // number of numbers
+        int i = 0; // number of integers
+        int s = 0; // number of strings
+
+        for (byte operation : operations) {
+            switch (operation) {
+                case SET_TRANSFORMATION:
+                    n += 5;
+                    break;
+                case PUT_TEXT:
+                    s += 1;
+                    n += 2;
+                    i += 2;
+                    break;
+                case PUT_TEXT_LINES:
+                    if (i + 1 >= integers.length || integers[i + 1] < 0 || integers[i + 1] > strings.length - s)
+                        throw new InvalidObjectException("Invalid number of text lines in display list");
+                    s += integers[i + 1];
+                    n += 3;
+                    i += 2;
+                    break;
+                case START_PATH:
+                case CLOSE_SUBPATH:
+                    break;
+                case MOVE_TO:
+                case LINE_TO:
+                    n += 2;
+                    break;
+                case CUBIC_CURVE_TO:
+                    n += 6;
+                    break;
+                case ADD_RECTANGLE:
+                    n += 4;
+                    break;
+                case FILL_PATH:
+                    i += 2;
+                    break;
+                case STROKE_PATH:
+                    if (i + 1 >= integers.length || integers[i + 1] < 0
+                            || integers[i + 1] >= Canvas.LineStyle.values().length)
+                        throw new InvalidObjectException("Invalid line style in display list");
+                    n += 1;
+                    i += 3;
+                    break;
+                default:
+                    throw new InvalidObjectException("Invalid display list operation " + operation);
+            }
+
+            if (n > numbers.length || i > integers.length || s > strings.length)
+                throw new InvalidObjectException("Missing operands in display list");
+        }
+
+        if (n != numbers.length || i != integers.length || s != strings.length)
+            throw new InvalidObjectException("Unused operands in display list");
+        for (String string : strings) {
+            if (string == null)
+                throw new InvalidObjectException("Invalid text in display list");
+        }
+    }
+}
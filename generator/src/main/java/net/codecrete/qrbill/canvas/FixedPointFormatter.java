@@ -0,0 +1,94 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats numbers with a fixed maximum number of fraction digits.
+ * <p>
+ * The result is the same as for {@link DecimalFormat} with the pattern {@code #.###}
+ * (or {@code #.#####} for 5 digits), i.e. the value is rounded half-even,
+ * trailing zeros are removed and negative values rounding to zero are
+ * formatted as {@code -0}. But the digits are directly appended to a
+ * {@code StringBuilder} without allocating memory.
+ * </p>
+ * <p>
+ * Values very close to a tie are rounded based on their exact binary value.
+ * For a few of them (e.g. 0.0005), this differs from {@code DecimalFormat}.
+ * </p>
+ */
+final class FixedPointFormatter {
+
+    private static final long[] POWERS_OF_10 = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+    // Up to this magnitude, the error of the scaled value is small enough for the fast path.
+    private static final double FAST_PATH_LIMIT = 1L << 31;
+    // Fractions this close to .5 might be a tie or on the other side of it
+    private static final double TIE_MARGIN = 1e-6;
+
+    private FixedPointFormatter() {
+        // do not instantiate
+    }
+
+    /**
+     * Appends the specified value to the string builder.
+     *
+     * @param sb             string builder
+     * @param value          value to append
+     * @param fractionDigits maximum number of fraction digits (0 to 6)
+     */
+    static void append(StringBuilder sb, double value, int fractionDigits) {
+        long scale = POWERS_OF_10[fractionDigits];
+        double magnitude = Math.abs(value);
+        double scaled = magnitude * scale;
+        if (!(scaled < FAST_PATH_LIMIT)) {
+            appendSlow(sb, value, fractionDigits);
+            return;
+        }
+
+        long units = (long) scaled;
+        double fraction = scaled - units;
+        if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+            // close to a tie: round the exact binary value
+            units = new BigDecimal(magnitude).setScale(fractionDigits, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+        } else if (fraction > 0.5) {
+            units += 1;
+        }
+
+        if (Double.doubleToRawLongBits(value) < 0)
+            sb.append('-');
+
+        sb.append(units / scale);
+        long fractionUnits = units % scale;
+        if (fractionUnits == 0)
+            return;
+
+        int numDigits = fractionDigits;
+        while (fractionUnits % 10 == 0) {
+            fractionUnits /= 10;
+            numDigits -= 1;
+        }
+
+        sb.append('.');
+        for (long limit = POWERS_OF_10[numDigits - 1]; fractionUnits < limit; limit /= 10)
+            sb.append('0');
+        sb.append(fractionUnits);
+    }
+
+    private static void appendSlow(StringBuilder sb, double value, int fractionDigits) {
+        StringBuilder pattern = new StringBuilder("#.");
+        for (int i = 0; i < fractionDigits; i++)
+            pattern.append('#');
+        DecimalFormat format = new DecimalFormat(pattern.toString(), new DecimalFormatSymbols(Locale.UK));
+        sb.append(format.format(value));
+    }
+}
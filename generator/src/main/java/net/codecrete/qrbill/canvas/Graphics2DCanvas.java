@@ -12,6 +12,9 @@ import java.awt.geom.Path2D;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,6 +23,13 @@ import java.util.regex.Pattern;
  */
 public class Graphics2DCanvas extends AbstractCanvas {
 
+    // Font sizes and stroke widths depend on the resolution; limit the number of cached instances
+    private static final int MAX_CACHED_INSTANCES = 100;
+
+    // Fonts and strokes are immutable and shared by all canvases
+    private static final Map<FontKey, Font> fontCache = new ConcurrentHashMap<>();
+    private static final Map<StrokeKey, BasicStroke> strokeCache = new ConcurrentHashMap<>();
+
     private Graphics2D graphics;
     private boolean ownsGraphics;
     private float offsetX;
@@ -27,6 +37,7 @@ public class Graphics2DCanvas extends AbstractCanvas {
     private Path2D.Double currentPath;
     private float coordinateScale;
     private float fontScale;
+    private Color lastColor;
 
     /**
      * Creates a new instance.
@@ -169,12 +180,37 @@ public class Graphics2DCanvas extends AbstractCanvas {
     public void putText(String text, double x, double y, int fontSize, boolean isBold) {
         x *= coordinateScale;
         y *= -coordinateScale;
-        graphics.setColor(new Color(0));
-        Font font = new Font(fontMetrics.getFirstFontFamily(), isBold ? Font.BOLD : Font.PLAIN, (int) (fontSize * fontScale + 0.5));
-        graphics.setFont(font);
+        setColor(0);
+        setFont(fontSize, isBold);
         graphics.drawString(text, (float) x, (float) y);
     }
 
+    private void setFont(int fontSize, boolean isBold) {
+        Font font = getFont(fontMetrics.getFirstFontFamily(), isBold ? Font.BOLD : Font.PLAIN,
+                (int) (fontSize * fontScale + 0.5));
+        if (graphics.getFont() != font)
+            graphics.setFont(font);
+    }
+
+    // Gets the font from the cache or creates it (size in pixels)
+    static Font getFont(String family, int style, int size) {
+        FontKey key = new FontKey(family, style, size);
+        Font font = fontCache.get(key);
+        if (font == null) {
+            font = new Font(family, style, size);
+            if (fontCache.size() < MAX_CACHED_INSTANCES)
+                fontCache.putIfAbsent(key, font);
+        }
+        return font;
+    }
+
+    private void setColor(int color) {
+        if (lastColor == null || (lastColor.getRGB() & 0xffffff) != (color & 0xffffff))
+            lastColor = new Color(color);
+        if (graphics.getColor() != lastColor)
+            graphics.setColor(lastColor);
+    }
+
     @Override
     public void startPath() {
         currentPath = new Path2D.Double(Path2D.WIND_NON_ZERO);
@@ -229,7 +265,7 @@ public class Graphics2DCanvas extends AbstractCanvas {
             graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
             graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
         }
-        graphics.setColor(new Color(color));
+        setColor(color);
         graphics.fill(currentPath);
         if (!smoothing) {
             graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -239,31 +275,107 @@ public class Graphics2DCanvas extends AbstractCanvas {
 
     @Override
     public void strokePath(double strokeWidth, int color, LineStyle lineStyle, boolean smoothing) {
-        graphics.setColor(new Color(color));
-        BasicStroke stroke;
+        setColor(color);
+        BasicStroke stroke = getStroke(strokeWidth, fontScale, lineStyle);
+        graphics.setStroke(stroke);
+        if (!smoothing) {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
+        }
+
+        graphics.draw(currentPath);
+
+        if (!smoothing) {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        }
+    }
+
+    // Gets the stroke from the cache or creates it
+    static BasicStroke getStroke(double strokeWidth, float fontScale, LineStyle lineStyle) {
+        StrokeKey key = new StrokeKey(strokeWidth, fontScale, lineStyle);
+        BasicStroke stroke = strokeCache.get(key);
+        if (stroke != null)
+            return stroke;
+
+        float width = (float) (strokeWidth * fontScale);
         switch (lineStyle) {
             case Dashed:
-                stroke = new BasicStroke((float) (strokeWidth * fontScale), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
                         10, new float[] { 4 * (float) strokeWidth * fontScale }, 0);
                 break;
             case Dotted:
-                stroke = new BasicStroke((float) (strokeWidth * fontScale), BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER,
+                stroke = new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER,
                         10, new float[] { 0, 3 * (float) strokeWidth * fontScale }, 0);
                 break;
             default:
-                stroke = new BasicStroke((float) (strokeWidth * fontScale), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
+                stroke = new BasicStroke(width, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER);
         }
-        graphics.setStroke(stroke);
-        if (!smoothing) {
-            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
+        if (strokeCache.size() < MAX_CACHED_INSTANCES)
+            strokeCache.putIfAbsent(key, stroke);
+        return stroke;
+    }
+
+    /**
+     * Font family, style and size (in pixels).
+     */
+    private static class FontKey {
+        private final String family;
+        private final int style;
+        private final int size;
+
+        FontKey(String family, int style, int size) {
+            this.family = family;
+            this.style = style;
+            this.size = size;
         }
 
-        graphics.draw(currentPath);
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FontKey key = (FontKey) o;
+            return style == key.style && size == key.size && Objects.equals(family, key.family);
+        }
 
-        if (!smoothing) {
-            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        @Override
+        public int hashCode() {
+            int result = Objects.hashCode(family);
+            result = 31 * result + style;
+            result = 31 * result + size;
+            return result;
+        }
+    }
+
+    /**
+     * Stroke width (in pt), scale and line style.
+     */
+    private static class StrokeKey {
+        private final double width;
+        private final float scale;
+        private final LineStyle lineStyle;
+
+        StrokeKey(double width, float scale, LineStyle lineStyle) {
+            this.width = width;
+            this.scale = scale;
+            this.lineStyle = lineStyle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            StrokeKey key = (StrokeKey) o;
+            return Double.compare(key.width, width) == 0 && Float.compare(key.scale, scale) == 0
+                    && lineStyle == key.lineStyle;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Double.hashCode(width);
+            result = 31 * result + Float.hashCode(scale);
+            result = 31 * result + lineStyle.hashCode();
+            return result;
         }
     }
 }
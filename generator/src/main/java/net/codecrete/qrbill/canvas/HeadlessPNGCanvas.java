@@ -0,0 +1,345 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+
+/**
+ * Canvas for generating PNG files without AWT.
+ * <p>
+ * Unlike {@link PNGCanvas}, this canvas does not use {@code java.awt} (neither
+ * {@code Graphics2D} nor system fonts). The graphics are rasterized by a built-in
+ * anti-aliasing rasterizer and the text is rendered with the glyph outlines of the
+ * bundled Liberation Sans font. It therefore works in headless environments and
+ * minimal container images, and it avoids the initialization time of AWT.
+ * </p>
+ * <p>
+ * The result is very similar to the one of {@link PNGCanvas} with the Liberation Sans
+ * font but is not identical.
+ * </p>
+ */
+public class HeadlessPNGCanvas extends AbstractCanvas implements ByteArrayResult {
+
+    private static final String FONT_FAMILY = "Liberation Sans";
+
+    private Rasterizer rasterizer;
+    private final int resolution;
+    private final double coordinateScale;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private PNGFilter filter = PNGFilter.NONE;
+    private boolean isBlackAndWhite;
+
+    // current transformation
+    private double translateX;
+    private double translateY;
+    private double cos = 1;
+    private double sin = 0;
+    private double scaleX = 1;
+    private double scaleY = 1;
+
+    /**
+     * Creates a new instance with the specified image size and resolution.
+     * <p>
+     * It is recommended to use at least 144 dpi for a readable result.
+     * </p>
+     *
+     * @param width      image width, in mm
+     * @param height     image height, in mm
+     * @param resolution resolution of the result (in dpi)
+     */
+    public HeadlessPNGCanvas(double width, double height, int resolution) {
+        setupFontMetrics(FONT_FAMILY);
+
+        this.resolution = resolution;
+        coordinateScale = (float) (resolution / 25.4);
+        int w = (int) (width * coordinateScale + 0.5);
+        int h = (int) (height * coordinateScale + 0.5);
+        rasterizer = new Rasterizer(w, h);
+    }
+
+    /**
+     * Sets the compression level for PNG encoding.
+     * <p>
+     * See {@link PNGCanvas#setCompressionLevel(int)}.
+     * </p>
+     *
+     * @param compressionLevel compression level (0 to 9, or -1)
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < -1 || compressionLevel > 9)
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets the filter strategy for PNG encoding.
+     * <p>
+     * The default is {@link PNGFilter#NONE}. It is the fastest filter and, for the
+     * mostly white images of QR bills, usually results in the smallest files. Black and white
+     * images (see {@link #setBlackAndWhite(boolean)}) are always written without filter.
+     * </p>
+     *
+     * @param filter filter strategy
+     */
+    public void setFilter(PNGFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets whether the PNG image is encoded as a black and white image (1 bit per pixel).
+     * <p>
+     * See {@link PNGCanvas#setBlackAndWhite(boolean)}.
+     * </p>
+     *
+     * @param isBlackAndWhite {@code true} for a black and white image, {@code false} for grayscale
+     */
+    public void setBlackAndWhite(boolean isBlackAndWhite) {
+        this.isBlackAndWhite = isBlackAndWhite;
+    }
+
+    /**
+     * Gets the rasterizer. Paths added to it directly must be in device coordinates.
+     *
+     * @return rasterizer
+     */
+    Rasterizer getRasterizer() {
+        return rasterizer;
+    }
+
+    @Override
+    public void setTransformation(double translateX, double translateY, double rotate, double scaleX, double scaleY) {
+        this.translateX = translateX;
+        this.translateY = translateY;
+        cos = Math.cos(rotate);
+        sin = Math.sin(rotate);
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+    }
+
+    @Override
+    public void putText(String text, double x, double y, int fontSize, boolean isBold) {
+        OutlineFont font = OutlineFont.liberationSans(isBold);
+        double fontScale = fontSize * 25.4 / 72 / font.getUnitsPerEm();
+
+        rasterizer.startPath();
+        int len = text.length();
+        for (int i = 0; i < len; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int glyphIndex = font.getGlyphIndex(codePoint);
+            addGlyph(font.getGlyph(glyphIndex), x, y, fontScale);
+            x += font.getAdvanceWidth(glyphIndex) * fontScale;
+        }
+        rasterizer.fillPath(0, true);
+    }
+
+    // Adds the contours of the glyph (quadratic B-splines) to the current path
+    private void addGlyph(OutlineFont.Glyph glyph, double x, double y, double fontScale) {
+        int start = 0;
+        for (int end : glyph.contourEnds) {
+            int n = end - start + 1;
+            if (n < 2) {
+                start = end + 1;
+                continue;
+            }
+
+            // find a starting point on the curve (or use the midpoint between two control points)
+            int first = -1;
+            for (int i = start; i <= end; i++) {
+                if (glyph.onCurve[i]) {
+                    first = i;
+                    break;
+                }
+            }
+            double startX;
+            double startY;
+            if (first >= 0) {
+                startX = glyph.x[first];
+                startY = glyph.y[first];
+            } else {
+                first = end; // so the iteration starts with the first control point
+                startX = (glyph.x[start] + glyph.x[end]) / 2.0;
+                startY = (glyph.y[start] + glyph.y[end]) / 2.0;
+            }
+            moveToGlyphPoint(x, y, fontScale, startX, startY);
+
+            boolean hasControlPoint = false;
+            double controlX = 0;
+            double controlY = 0;
+            for (int k = 1; k <= n; k++) {
+                int i = start + (first - start + k) % n;
+                double px = glyph.x[i];
+                double py = glyph.y[i];
+                if (glyph.onCurve[i]) {
+                    if (hasControlPoint)
+                        quadToGlyphPoint(x, y, fontScale, controlX, controlY, px, py);
+                    else
+                        lineToGlyphPoint(x, y, fontScale, px, py);
+                    hasControlPoint = false;
+                } else {
+                    if (hasControlPoint) {
+                        // implied on-curve point between two control points
+                        quadToGlyphPoint(x, y, fontScale, controlX, controlY, (controlX + px) / 2, (controlY + py) / 2);
+                    }
+                    controlX = px;
+                    controlY = py;
+                    hasControlPoint = true;
+                }
+            }
+            if (hasControlPoint)
+                quadToGlyphPoint(x, y, fontScale, controlX, controlY, startX, startY);
+
+            rasterizer.closePath();
+            start = end + 1;
+        }
+    }
+
+    private void moveToGlyphPoint(double x, double y, double fontScale, double gx, double gy) {
+        double px = x + gx * fontScale;
+        double py = y + gy * fontScale;
+        rasterizer.moveTo(deviceX(px, py), deviceY(px, py));
+    }
+
+    private void lineToGlyphPoint(double x, double y, double fontScale, double gx, double gy) {
+        double px = x + gx * fontScale;
+        double py = y + gy * fontScale;
+        rasterizer.lineTo(deviceX(px, py), deviceY(px, py));
+    }
+
+    private void quadToGlyphPoint(double x, double y, double fontScale, double cx, double cy, double gx, double gy) {
+        double px = x + cx * fontScale;
+        double py = y + cy * fontScale;
+        double qx = x + gx * fontScale;
+        double qy = y + gy * fontScale;
+        rasterizer.quadTo(deviceX(px, py), deviceY(px, py), deviceX(qx, qy), deviceY(qx, qy));
+    }
+
+    @Override
+    public void startPath() {
+        rasterizer.startPath();
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        rasterizer.moveTo(deviceX(x, y), deviceY(x, y));
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        rasterizer.lineTo(deviceX(x, y), deviceY(x, y));
+    }
+
+    @Override
+    public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+        rasterizer.curveTo(deviceX(x1, y1), deviceY(x1, y1), deviceX(x2, y2), deviceY(x2, y2),
+                deviceX(x, y), deviceY(x, y));
+    }
+
+    @Override
+    public void addRectangle(double x, double y, double width, double height) {
+        moveTo(x, y);
+        lineTo(x, y + height);
+        lineTo(x + width, y + height);
+        lineTo(x + width, y);
+        closeSubpath();
+    }
+
+    @Override
+    public void closeSubpath() {
+        rasterizer.closePath();
+    }
+
+    @Override
+    public void fillPath(int color, boolean smoothing) {
+        rasterizer.fillPath(toGray(color), smoothing);
+    }
+
+    @Override
+    public void strokePath(double strokeWidth, int color, LineStyle lineStyle, boolean smoothing) {
+        // stroke width is in pt
+        double width = strokeWidth * resolution / 72 * Math.sqrt(Math.abs(scaleX * scaleY));
+        double[] dashPattern;
+        boolean roundCaps = false;
+        switch (lineStyle) {
+            case Dashed:
+                dashPattern = new double[] { 4 * width };
+                break;
+            case Dotted:
+                dashPattern = new double[] { 0, 3 * width };
+                roundCaps = true;
+                break;
+            default:
+                dashPattern = null;
+        }
+        rasterizer.strokePath(width, dashPattern, roundCaps, toGray(color), smoothing);
+    }
+
+    @Override
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        createPNG(os);
+        return os.toByteArray();
+    }
+
+    /**
+     * Writes the resulting PNG image to the specified output stream.
+     *
+     * @param os the output stream
+     * @throws IOException thrown if the image cannot be written
+     */
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        createPNG(os);
+    }
+
+    /**
+     * Saves the resulting PNG image to the specified path.
+     *
+     * @param path the path to write to
+     * @throws IOException thrown if the image cannot be written
+     */
+    public void saveAs(Path path) throws IOException {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            createPNG(os);
+        }
+    }
+
+    @Override
+    public void close() {
+        rasterizer = null;
+    }
+
+    private void createPNG(OutputStream os) throws IOException {
+        PNGEncoder.encode(rasterizer.getPixels(), rasterizer.getWidth(), rasterizer.getWidth(),
+                rasterizer.getHeight(), resolution, compressionLevel, filter, isBlackAndWhite, os);
+    }
+
+    // Our coordinate system extends from the bottom up, the image's from the top down
+    private double deviceX(double x, double y) {
+        x *= scaleX;
+        y *= scaleY;
+        return (translateX + x * cos - y * sin) * coordinateScale;
+    }
+
+    private double deviceY(double x, double y) {
+        x *= scaleX;
+        y *= scaleY;
+        return rasterizer.getHeight() - (translateY + x * sin + y * cos) * coordinateScale;
+    }
+
+    private static int toGray(int color) {
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        return (r * 299 + g * 587 + b * 114 + 500) / 1000;
+    }
+}
@@ -0,0 +1,436 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Glyph outlines and advance widths of a TrueType font.
+ * <p>
+ * Minimal TrueType reader for rendering text without AWT. It reads the character
+ * map, the horizontal metrics and the glyph outlines (including composite glyphs).
+ * Hinting instructions, kerning and other advanced typographic features are ignored.
+ * </p>
+ * <p>
+ * The bundled Liberation Sans fonts are loaded on first use and shared process-wide.
+ * Instances are thread-safe.
+ * </p>
+ */
+final class OutlineFont {
+
+    private static final int ON_CURVE = 0x01;
+    private static final int X_SHORT = 0x02;
+    private static final int Y_SHORT = 0x04;
+    private static final int REPEAT = 0x08;
+    private static final int X_SAME_OR_POSITIVE = 0x10;
+    private static final int Y_SAME_OR_POSITIVE = 0x20;
+
+    private static final int ARG_1_AND_2_ARE_WORDS = 0x0001;
+    private static final int ARGS_ARE_XY_VALUES = 0x0002;
+    private static final int WE_HAVE_A_SCALE = 0x0008;
+    private static final int MORE_COMPONENTS = 0x0020;
+    private static final int WE_HAVE_AN_X_AND_Y_SCALE = 0x0040;
+    private static final int WE_HAVE_A_TWO_BY_TWO = 0x0080;
+
+    private static final Glyph EMPTY_GLYPH = new Glyph(new float[0], new float[0], new boolean[0], new int[0]);
+
+    private final byte[] data;
+    private final int unitsPerEm;
+    private final boolean hasLongOffsets;
+    private final int numGlyphs;
+    private final int numHMetrics;
+    private final int hmtxOffset;
+    private final int locaOffset;
+    private final int glyfOffset;
+    private final int cmapOffset;
+    private final boolean isCmapFormat12;
+    // glyphs are created on demand; races are benign as glyphs are immutable
+    private final Glyph[] glyphs;
+
+    private static class Regular {
+        static final OutlineFont FONT = loadResource("/fonts/LiberationSans-Regular.ttf");
+    }
+
+    private static class Bold {
+        static final OutlineFont FONT = loadResource("/fonts/LiberationSans-Bold.ttf");
+    }
+
+    /**
+     * Gets the regular or bold variant of the bundled Liberation Sans font.
+     *
+     * @param isBold {@code true} for the bold variant, {@code false} for the regular one
+     * @return font
+     */
+    static OutlineFont liberationSans(boolean isBold) {
+        return isBold ? Bold.FONT : Regular.FONT;
+    }
+
+    /**
+     * Creates a new instance from the TrueType font data.
+     *
+     * @param data font data (content of TTF file)
+     * @throws IOException thrown if the data is not a valid TrueType font
+     */
+    OutlineFont(byte[] data) throws IOException {
+        this.data = data;
+
+        int headOffset = findTable("head");
+        int maxpOffset = findTable("maxp");
+        int hheaOffset = findTable("hhea");
+        hmtxOffset = findTable("hmtx");
+        locaOffset = findTable("loca");
+        glyfOffset = findTable("glyf");
+
+        unitsPerEm = readUShort(headOffset + 18);
+        hasLongOffsets = readShort(headOffset + 50) != 0;
+        numGlyphs = readUShort(maxpOffset + 4);
+        numHMetrics = readUShort(hheaOffset + 34);
+        glyphs = new Glyph[numGlyphs];
+
+        // select the Unicode character map
+        int cmap = findTable("cmap");
+        int format4Offset = -1;
+        int format12Offset = -1;
+        int numCmaps = readUShort(cmap + 2);
+        for (int i = 0; i < numCmaps; i++) {
+            int platformId = readUShort(cmap + 4 + i * 8);
+            int encodingId = readUShort(cmap + 6 + i * 8);
+            int offset = cmap + readInt(cmap + 8 + i * 8);
+            int format = readUShort(offset);
+            boolean isUnicode = platformId == 0 || (platformId == 3 && (encodingId == 1 || encodingId == 10));
+            if (isUnicode && format == 4 && format4Offset < 0)
+                format4Offset = offset;
+            else if (isUnicode && format == 12 && format12Offset < 0)
+                format12Offset = offset;
+        }
+        if (format12Offset < 0 && format4Offset < 0)
+            throw new IOException("TrueType font has no Unicode character map");
+        isCmapFormat12 = format12Offset >= 0;
+        cmapOffset = isCmapFormat12 ? format12Offset : format4Offset;
+    }
+
+    /**
+     * Gets the number of font units per em.
+     *
+     * @return units per em
+     */
+    int getUnitsPerEm() {
+        return unitsPerEm;
+    }
+
+    /**
+     * Gets the glyph index for the specified Unicode code point.
+     *
+     * @param codePoint Unicode code point
+     * @return glyph index, 0 (missing glyph) if the font does not contain the character
+     */
+    int getGlyphIndex(int codePoint) {
+        return isCmapFormat12 ? lookupFormat12(codePoint) : lookupFormat4(codePoint);
+    }
+
+    /**
+     * Gets the advance width of the specified glyph.
+     *
+     * @param glyphIndex glyph index
+     * @return advance width (in font units)
+     */
+    int getAdvanceWidth(int glyphIndex) {
+        int index = Math.min(glyphIndex, numHMetrics - 1);
+        return readUShort(hmtxOffset + index * 4);
+    }
+
+    /**
+     * Gets the outline of the specified glyph.
+     *
+     * @param glyphIndex glyph index
+     * @return glyph outline
+     */
+    Glyph getGlyph(int glyphIndex) {
+        if (glyphIndex < 0 || glyphIndex >= numGlyphs)
+            return EMPTY_GLYPH;
+        Glyph glyph = glyphs[glyphIndex];
+        if (glyph == null) {
+            glyph = readGlyph(glyphIndex, 0);
+            glyphs[glyphIndex] = glyph;
+        }
+        return glyph;
+    }
+
+    private Glyph readGlyph(int glyphIndex, int depth) {
+        int start;
+        int end;
+        if (hasLongOffsets) {
+            start = readInt(locaOffset + glyphIndex * 4);
+            end = readInt(locaOffset + glyphIndex * 4 + 4);
+        } else {
+            start = readUShort(locaOffset + glyphIndex * 2) * 2;
+            end = readUShort(locaOffset + glyphIndex * 2 + 2) * 2;
+        }
+        if (start == end)
+            return EMPTY_GLYPH; // e.g. space
+
+        int offset = glyfOffset + start;
+        int numContours = readShort(offset);
+        if (numContours >= 0)
+            return readSimpleGlyph(offset, numContours);
+        else if (depth < 8)
+            return readCompositeGlyph(offset, depth);
+        else
+            return EMPTY_GLYPH;
+    }
+
+    private Glyph readSimpleGlyph(int offset, int numContours) {
+        int[] contourEnds = new int[numContours];
+        int p = offset + 10;
+        for (int i = 0; i < numContours; i++) {
+            contourEnds[i] = readUShort(p);
+            p += 2;
+        }
+        int numPoints = numContours > 0 ? contourEnds[numContours - 1] + 1 : 0;
+        int instructionLength = readUShort(p);
+        p += 2 + instructionLength;
+
+        // flags
+        byte[] flags = new byte[numPoints];
+        for (int i = 0; i < numPoints; ) {
+            byte flag = data[p++];
+            flags[i++] = flag;
+            if ((flag & REPEAT) != 0) {
+                int count = data[p++] & 0xff;
+                for (int j = 0; j < count && i < numPoints; j++)
+                    flags[i++] = flag;
+            }
+        }
+
+        // coordinates (delta encoded)
+        float[] x = new float[numPoints];
+        float[] y = new float[numPoints];
+        boolean[] onCurve = new boolean[numPoints];
+        int value = 0;
+        for (int i = 0; i < numPoints; i++) {
+            int flag = flags[i];
+            if ((flag & X_SHORT) != 0) {
+                int delta = data[p++] & 0xff;
+                value += (flag & X_SAME_OR_POSITIVE) != 0 ? delta : -delta;
+            } else if ((flag & X_SAME_OR_POSITIVE) == 0) {
+                value += readShort(p);
+                p += 2;
+            }
+            x[i] = value;
+            onCurve[i] = (flag & ON_CURVE) != 0;
+        }
+        value = 0;
+        for (int i = 0; i < numPoints; i++) {
+            int flag = flags[i];
+            if ((flag & Y_SHORT) != 0) {
+                int delta = data[p++] & 0xff;
+                value += (flag & Y_SAME_OR_POSITIVE) != 0 ? delta : -delta;
+            } else if ((flag & Y_SAME_OR_POSITIVE) == 0) {
+                value += readShort(p);
+                p += 2;
+            }
+            y[i] = value;
+        }
+
+        return new Glyph(x, y, onCurve, contourEnds);
+    }
+
+    private Glyph readCompositeGlyph(int offset, int depth) {
+        Glyph result = EMPTY_GLYPH;
+        int p = offset + 10;
+        int flags;
+        do {
+            flags = readUShort(p);
+            int componentIndex = readUShort(p + 2);
+            p += 4;
+
+            double dx = 0;
+            double dy = 0;
+            if ((flags & ARG_1_AND_2_ARE_WORDS) != 0) {
+                if ((flags & ARGS_ARE_XY_VALUES) != 0) {
+                    dx = readShort(p);
+                    dy = readShort(p + 2);
+                }
+                p += 4;
+            } else {
+                if ((flags & ARGS_ARE_XY_VALUES) != 0) {
+                    dx = data[p];
+                    dy = data[p + 1];
+                }
+                p += 2;
+            }
+
+            // transformation matrix (F2Dot14 values)
+            double a = 1;
+            double b = 0;
+            double c = 0;
+            double d = 1;
+            if ((flags & WE_HAVE_A_SCALE) != 0) {
+                a = d = readShort(p) / 16384.0;
+                p += 2;
+            } else if ((flags & WE_HAVE_AN_X_AND_Y_SCALE) != 0) {
+                a = readShort(p) / 16384.0;
+                d = readShort(p + 2) / 16384.0;
+                p += 4;
+            } else if ((flags & WE_HAVE_A_TWO_BY_TWO) != 0) {
+                a = readShort(p) / 16384.0;
+                b = readShort(p + 2) / 16384.0;
+                c = readShort(p + 4) / 16384.0;
+                d = readShort(p + 6) / 16384.0;
+                p += 8;
+            }
+
+            Glyph component = componentIndex < numGlyphs ? readGlyph(componentIndex, depth + 1) : EMPTY_GLYPH;
+            result = result.append(component, a, b, c, d, dx, dy);
+        } while ((flags & MORE_COMPONENTS) != 0);
+
+        return result;
+    }
+
+    private int lookupFormat4(int codePoint) {
+        if (codePoint > 0xffff)
+            return 0;
+
+        int segCount = readUShort(cmapOffset + 6) / 2;
+        int endCodes = cmapOffset + 14;
+        int startCodes = endCodes + segCount * 2 + 2;
+        int idDeltas = startCodes + segCount * 2;
+        int idRangeOffsets = idDeltas + segCount * 2;
+
+        // binary search for the first segment with an end code >= code point
+        int low = 0;
+        int high = segCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (readUShort(endCodes + mid * 2) < codePoint)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        int startCode = readUShort(startCodes + low * 2);
+        if (codePoint < startCode || codePoint > readUShort(endCodes + low * 2))
+            return 0;
+
+        int idDelta = readShort(idDeltas + low * 2);
+        int idRangeOffset = readUShort(idRangeOffsets + low * 2);
+        if (idRangeOffset == 0)
+            return (codePoint + idDelta) & 0xffff;
+
+        int glyphIndex = readUShort(idRangeOffsets + low * 2 + idRangeOffset + (codePoint - startCode) * 2);
+        return glyphIndex == 0 ? 0 : (glyphIndex + idDelta) & 0xffff;
+    }
+
+    private int lookupFormat12(int codePoint) {
+        int numGroups = readInt(cmapOffset + 12);
+        int low = 0;
+        int high = numGroups - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int group = cmapOffset + 16 + mid * 12;
+            if (codePoint < readInt(group))
+                high = mid - 1;
+            else if (codePoint > readInt(group + 4))
+                low = mid + 1;
+            else
+                return readInt(group + 8) + codePoint - readInt(group);
+        }
+        return 0;
+    }
+
+    private int findTable(String tag) throws IOException {
+        int numTables = readUShort(4);
+        for (int i = 0; i < numTables; i++) {
+            int record = 12 + i * 16;
+            if (data[record] == tag.charAt(0) && data[record + 1] == tag.charAt(1)
+                    && data[record + 2] == tag.charAt(2) && data[record + 3] == tag.charAt(3))
+                return readInt(record + 8);
+        }
+        throw new IOException("TrueType font has no '" + tag + "' table");
+    }
+
+    private int readUShort(int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private int readShort(int offset) {
+        return (short) readUShort(offset);
+    }
+
+    private int readInt(int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
+                | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    private static OutlineFont loadResource(String resourceName) {
+        try (InputStream is = OutlineFont.class.getResourceAsStream(resourceName)) {
+            if (is == null)
+                throw new FileNotFoundException(resourceName);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[16384];
+            int len;
+            while ((len = is.read(chunk)) != -1)
+                buffer.write(chunk, 0, len);
+            return new OutlineFont(buffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Outline of a glyph, consisting of contours of quadratic B-splines (in font units).
+     * <p>
+     * Instances are immutable.
+     * </p>
+     */
+    static class Glyph {
+        /** x coordinates of points */
+        final float[] x;
+        /** y coordinates of points */
+        final float[] y;
+        /** indicates if points are on the curve (or control points) */
+        final boolean[] onCurve;
+        /** index of the last point of each contour */
+        final int[] contourEnds;
+
+        Glyph(float[] x, float[] y, boolean[] onCurve, int[] contourEnds) {
+            this.x = x;
+            this.y = y;
+            this.onCurve = onCurve;
+            this.contourEnds = contourEnds;
+        }
+
+        // Appends the transformed contours of the other glyph to the contours of this glyph
+        Glyph append(Glyph other, double a, double b, double c, double d, double dx, double dy) {
+            int numPoints = x.length;
+            int numOtherPoints = other.x.length;
+            float[] newX = new float[numPoints + numOtherPoints];
+            float[] newY = new float[numPoints + numOtherPoints];
+            boolean[] newOnCurve = new boolean[numPoints + numOtherPoints];
+            System.arraycopy(x, 0, newX, 0, numPoints);
+            System.arraycopy(y, 0, newY, 0, numPoints);
+            System.arraycopy(onCurve, 0, newOnCurve, 0, numPoints);
+            for (int i = 0; i < numOtherPoints; i++) {
+                newX[numPoints + i] = (float) (a * other.x[i] + c * other.y[i] + dx);
+                newY[numPoints + i] = (float) (b * other.x[i] + d * other.y[i] + dy);
+                newOnCurve[numPoints + i] = other.onCurve[i];
+            }
+
+            int numContours = contourEnds.length;
+            int[] newContourEnds = new int[numContours + other.contourEnds.length];
+            System.arraycopy(contourEnds, 0, newContourEnds, 0, numContours);
+            for (int i = 0; i < other.contourEnds.length; i++)
+                newContourEnds[numContours + i] = numPoints + other.contourEnds[i];
+
+            return new Glyph(newX, newY, newOnCurve, newContourEnds);
+        }
+    }
+}
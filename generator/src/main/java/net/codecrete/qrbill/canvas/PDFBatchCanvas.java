@@ -0,0 +1,128 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.Bill;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+
+/**
+ * Canvas for generating a single PDF document containing many QR bills,
+ * one per page.
+ * <p>
+ * All pages share the same font resources. If the fonts are embedded, a single
+ * font subset covering the characters of all bills is embedded, instead of one
+ * subset per bill as when merging individually generated PDF documents.
+ * </p>
+ * <p>
+ * Before drawing each QR bill, a new page must be started with {@link #startPage()}.
+ * Starting a page completes the previous one. Drawing before the first page has been
+ * started throws an {@link IllegalStateException}. The document is created with a
+ * stream cache backed by a temporary file, so the content of completed pages does not
+ * remain in memory. This allows generating documents with a very large number of pages.
+ * </p>
+ * <p>
+ * Typical use:
+ * </p>
+ * <pre>
+ * try (PDFBatchCanvas canvas = new PDFBatchCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT,
+ *         PDFFontSettings.embeddedLiberationSans())) {
+ *     for (Bill bill : bills) {
+ *         canvas.startPage();
+ *         QRBill.draw(bill, canvas);
+ *     }
+ *     canvas.saveAs(path);
+ * }
+ * </pre>
+ */
+public class PDFBatchCanvas extends PDFCanvas {
+
+    private final double pageWidth;
+    private final double pageHeight;
+    private int pageCount;
+
+    /**
+     * Creates a new instance using the specified page size.
+     * <p>
+     * For text, the PDF standard font Helvetica will be used. It does not need to be embedded into
+     * the file and is available on all PDF viewers. But it is restricted to the WinANSI character set.
+     * </p>
+     *
+     * @param width  page width, in mm
+     * @param height page height, in mm
+     * @throws IOException thrown if the creation fails
+     */
+    public PDFBatchCanvas(double width, double height) throws IOException {
+        this(width, height, PDFFontSettings.standardHelvetica());
+    }
+
+    /**
+     * Creates a new instance using the specified page size and font.
+     * <p>
+     * Font settings specify what font to use and whether to embed the font in the PDF file.
+     * </p>
+     *
+     * @param width        page width, in mm
+     * @param height       page height, in mm
+     * @param fontSettings font settings
+     * @throws IOException thrown if the creation fails
+     */
+    public PDFBatchCanvas(double width, double height, PDFFontSettings fontSettings) throws IOException {
+        super(createDocument(), fontSettings);
+        pageWidth = width;
+        pageHeight = height;
+    }
+
+    private static PDDocument createDocument() {
+        PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache());
+        document.getDocumentInformation().setTitle("Swiss QR Bills");
+        return document;
+    }
+
+    /**
+     * Completes the current page (if any) and starts a new page with the default page size.
+     * <p>
+     * Call {@link net.codecrete.qrbill.generator.QRBill#draw(Bill, Canvas)} after this
+     * method to draw the QR bill on the new page.
+     * </p>
+     *
+     * @throws IOException thrown if the page cannot be created
+     * @throws IllegalStateException thrown if the canvas has already been closed
+     */
+    public void startPage() throws IOException {
+        startPage(pageWidth, pageHeight);
+    }
+
+    /**
+     * Completes the current page (if any) and starts a new page with the specified page size.
+     *
+     * @param width  page width, in mm
+     * @param height page height, in mm
+     * @throws IOException thrown if the page cannot be created
+     * @throws IllegalStateException thrown if the canvas has already been closed
+     */
+    public void startPage(double width, double height) throws IOException {
+        addPage(width, height);
+        pageCount += 1;
+    }
+
+    @Override
+    String missingContentStreamMessage() {
+        return "startPage() must be called first";
+    }
+
+    /**
+     * Gets the number of pages started so far.
+     *
+     * @return the number of pages
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+}
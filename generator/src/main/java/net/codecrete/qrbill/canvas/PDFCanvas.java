@@ -43,6 +43,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
     private PDDocument document;
     private PDFont regularFont;
     private PDFont boldFont;
+    private PDFFontCache.ParsedFonts parsedFonts;
     private PDPageContentStream contentStream;
     private final boolean isContentStreamOwned;
     private int lastStrokingColor = 0;
@@ -335,7 +336,34 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
         }
     }
 
-    @SuppressWarnings("DataFlowIssue")
+    /**
+     * Clears the cache of font files.
+     * <p>
+     * The font files of embedded fonts (see {@link PDFFontSettings}) are read and parsed once
+     * and reused by all PDF canvas instances. A changed custom font file (with a new
+     * modification time) is read again. Clearing the cache releases the memory of the fonts.
+     * </p>
+     */
+    public static void clearFontCache() {
+        PDFFontCache.clear();
+    }
+
+    /**
+     * Creates a new instance for the specified document without creating a page.
+     * <p>
+     * Pages are added with {@link #addPage(double, double)}.
+     * </p>
+     *
+     * @param pdfDocument  PDF document (owned by this instance)
+     * @param fontSettings font settings
+     * @throws IOException thrown if the creation fails
+     */
+    PDFCanvas(PDDocument pdfDocument, PDFFontSettings fontSettings) throws IOException {
+        document = pdfDocument;
+        configureFonts(document, fontSettings);
+        isContentStreamOwned = true;
+    }
+
     private void configureFonts(PDDocument doc, PDFFontSettings fontSettings) throws IOException {
         setupFontMetrics(fontSettings.getFontFamily());
 
@@ -345,12 +373,20 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
                 boldFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
                 break;
             case EMBEDDED_LIBERATION_SANS:
-                regularFont = PDType0Font.load(doc, PDFCanvas.class.getResource("/fonts/LiberationSans-Regular.ttf").openStream());
-                boldFont = PDType0Font.load(doc, PDFCanvas.class.getResource("/fonts/LiberationSans-Bold.ttf").openStream());
-                break;
             case EMBEDDED_CUSTOM:
-                regularFont = PDType0Font.load(doc, Files.newInputStream(fontSettings.getRegularFontPath()));
-                boldFont = PDType0Font.load(doc, Files.newInputStream(fontSettings.getBoldFontPath()));
+                if (document != null) {
+                    // the document is owned and closed by this instance;
+                    // use parsed fonts from the cache and return them on closing
+                    parsedFonts = PDFFontCache.checkOut(fontSettings);
+                    regularFont = PDType0Font.load(doc, parsedFonts.regular, true);
+                    boldFont = PDType0Font.load(doc, parsedFonts.bold, true);
+                } else {
+                    // the document might be used after this instance has been closed;
+                    // it parses its own font instances and closes them when it is closed
+                    PDFFontCache.FontData fonts = PDFFontCache.getFontData(fontSettings);
+                    regularFont = PDType0Font.load(doc, new ByteArrayInputStream(fonts.regular), true);
+                    boldFont = PDType0Font.load(doc, new ByteArrayInputStream(fonts.bold), true);
+                }
                 break;
         }
     }
@@ -367,6 +403,34 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
         }
     }
 
+    /**
+     * Completes the current page (if any) and adds a new page at the end of the document.
+     * <p>
+     * The content stream of the completed page is closed so its data can be
+     * released from memory (depending on the document's stream cache).
+     * </p>
+     *
+     * @param width  page width, in mm
+     * @param height page height, in mm
+     * @throws IOException thrown if the page cannot be added
+     * @throws IllegalStateException thrown if the document has already been closed
+     */
+    void addPage(double width, double height) throws IOException {
+        if (document == null)
+            throw new IllegalStateException("The PDF document has already been closed");
+
+        closeContentStream();
+
+        PDPage page = new PDPage(new PDRectangle((float) (width * MM_TO_PT), (float) (height * MM_TO_PT)));
+        document.addPage(page);
+        contentStream = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.OVERWRITE, true);
+        lastStrokingColor = 0;
+        lastNonStrokingColor = 0;
+        lastLineWidth = 1;
+        lastLineStyle = LineStyle.Solid;
+        initGraphicsState();
+    }
+
     private void initGraphicsState() throws IOException {
         if (!isContentStreamOwned) {
             // save initial graphics state to restore it after drawing
@@ -388,6 +452,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void setTransformation(double translateX, double translateY, double rotate, double scaleX, double scaleY) throws IOException {
+        checkContentStream();
         translateX *= MM_TO_PT;
         translateY *= MM_TO_PT;
 
@@ -406,6 +471,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void putText(String text, double x, double y, int fontSize, boolean isBold) throws IOException {
+        checkContentStream();
         x *= MM_TO_PT;
         y *= MM_TO_PT;
         contentStream.setFont(isBold ? boldFont : regularFont, fontSize);
@@ -417,6 +483,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void putTextLines(String[] lines, double x, double y, int fontSize, double leading) throws IOException {
+        checkContentStream();
         x *= MM_TO_PT;
         y *= MM_TO_PT;
         float lineHeight = (float) ((fontMetrics.getLineHeight(fontSize) + leading) * MM_TO_PT);
@@ -442,6 +509,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void moveTo(double x, double y) throws IOException {
+        checkContentStream();
         x *= MM_TO_PT;
         y *= MM_TO_PT;
         contentStream.moveTo((float) x, (float) y);
@@ -449,6 +517,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void lineTo(double x, double y) throws IOException {
+        checkContentStream();
         x *= MM_TO_PT;
         y *= MM_TO_PT;
         contentStream.lineTo((float) x, (float) y);
@@ -456,6 +525,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) throws IOException {
+        checkContentStream();
         x1 *= MM_TO_PT;
         y1 *= MM_TO_PT;
         x2 *= MM_TO_PT;
@@ -467,6 +537,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void addRectangle(double x, double y, double width, double height) throws IOException {
+        checkContentStream();
         x *= MM_TO_PT;
         y *= MM_TO_PT;
         width *= MM_TO_PT;
@@ -476,11 +547,13 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void closeSubpath() throws IOException {
+        checkContentStream();
         contentStream.closePath();
     }
 
     @Override
     public void fillPath(int color, boolean smoothing) throws IOException {
+        checkContentStream();
         if (color != lastNonStrokingColor) {
             lastNonStrokingColor = color;
             int r = (color >> 16) & 0xff;
@@ -493,6 +566,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void strokePath(double strokeWidth, int color, LineStyle lineStyle, boolean smoothing) throws IOException {
+        checkContentStream();
         if (color != lastStrokingColor) {
             lastStrokingColor = color;
             int r = (color >> 16) & 0xff;
@@ -557,6 +631,7 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
      * @param os the output stream
      * @throws IOException thrown if the image cannot be written
      */
+    @Override
     public void writeTo(OutputStream os) throws IOException {
         if (document == null)
             throw new IllegalStateException("writeTo() may only be called if the PDF document has been opened/created by this instance. Use PDFBox methods instead to save the PDF document.");
@@ -589,14 +664,37 @@ public class PDFCanvas extends AbstractCanvas implements ByteArrayResult {
 
     @Override
     public void close() throws IOException {
-        closeContentStream();
+        try {
+            closeContentStream();
+
+            if (document != null) {
+                document.close();
+                document = null;
+            }
 
-        if (document != null) {
-            document.close();
-            document = null;
+        } finally {
+            // the document no longer uses the fonts
+            if (parsedFonts != null) {
+                PDFFontCache.checkIn(parsedFonts);
+                parsedFonts = null;
+            }
         }
     }
 
+    private void checkContentStream() {
+        if (contentStream == null)
+            throw new IllegalStateException(missingContentStreamMessage());
+    }
+
+    /**
+     * Gets the error message if a drawing method is called while there is no content stream.
+     *
+     * @return the error message
+     */
+    String missingContentStreamMessage() {
+        return "The PDF document has already been saved or closed";
+    }
+
     private void closeContentStream() throws IOException {
         if (contentStream != null) {
             contentStream.restoreGraphicsState();
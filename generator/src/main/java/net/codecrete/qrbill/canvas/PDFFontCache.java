@@ -0,0 +1,276 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Process-wide cache of the TrueType fonts for embedding in PDF documents.
+ * <p>
+ * Each font file is read once and kept in memory. Parsed fonts are kept in a pool:
+ * a document checks out a parsed regular and bold font, uses them exclusively
+ * (parsed fonts read their tables lazily and are not thread-safe) and returns them
+ * after the document has been saved and closed. So each font is only parsed as often
+ * as it is used concurrently.
+ * </p>
+ * <p>
+ * Custom font files are identified by their path and modification time. So a changed
+ * font file is read again. The number of cached fonts is limited.
+ * </p>
+ */
+class PDFFontCache {
+
+    // maximum number of fonts (font settings and file versions) in the cache
+    private static final int MAX_CACHED_FONTS = 16;
+    // maximum number of idle parsed fonts per font
+    private static final int MAX_IDLE_FONTS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private static final Map<FontKey, FontPool> cache = new ConcurrentHashMap<>();
+
+    private PDFFontCache() {
+        // do not instantiate
+    }
+
+    /**
+     * Gets the font data of the regular and bold fonts for the specified font settings.
+     * <p>
+     * The font settings must use an embedded font.
+     * </p>
+     *
+     * @param fontSettings font settings
+     * @return regular and bold font data
+     * @throws IOException thrown if a font file cannot be read
+     */
+    static FontData getFontData(PDFFontSettings fontSettings) throws IOException {
+        return getPool(fontSettings).fontData;
+    }
+
+    /**
+     * Checks out parsed regular and bold fonts for the specified font settings.
+     * <p>
+     * The fonts are for the exclusive use of the caller until they are returned
+     * with {@link #checkIn(ParsedFonts)}. They must not be returned before the
+     * document using them has been saved or closed.
+     * </p>
+     *
+     * @param fontSettings font settings (with an embedded font)
+     * @return parsed fonts
+     * @throws IOException thrown if a font file cannot be read or parsed
+     */
+    static ParsedFonts checkOut(PDFFontSettings fontSettings) throws IOException {
+        return getPool(fontSettings).checkOut();
+    }
+
+    /**
+     * Returns parsed fonts to the pool so they can be reused by other documents.
+     *
+     * @param fonts parsed fonts
+     */
+    static void checkIn(ParsedFonts fonts) {
+        fonts.pool.checkIn(fonts);
+    }
+
+    /**
+     * Removes all fonts from the cache.
+     * <p>
+     * Fonts currently checked out are closed when they are returned.
+     * </p>
+     */
+    static void clear() {
+        for (Map.Entry<FontKey, FontPool> entry : cache.entrySet()) {
+            if (cache.remove(entry.getKey(), entry.getValue()))
+                entry.getValue().retire();
+        }
+    }
+
+    private static FontPool getPool(PDFFontSettings fontSettings) throws IOException {
+        FontKey key = new FontKey(fontSettings);
+        FontPool pool = cache.get(key);
+        if (pool != null)
+            return pool;
+
+        pool = new FontPool(loadFontData(fontSettings));
+        if (cache.size() < MAX_CACHED_FONTS) {
+            FontPool existingPool = cache.putIfAbsent(key, pool);
+            if (existingPool != null)
+                return existingPool;
+        } else {
+            // not cached: the parsed fonts are closed when they are returned
+            pool.retire();
+        }
+        return pool;
+    }
+
+    private static FontData loadFontData(PDFFontSettings fontSettings) throws IOException {
+        if (fontSettings.getFontEmbedding() == PDFFontSettings.FontEmbedding.EMBEDDED_LIBERATION_SANS) {
+            return new FontData(
+                    readResource("/fonts/LiberationSans-Regular.ttf"),
+                    readResource("/fonts/LiberationSans-Bold.ttf"));
+        } else {
+            return new FontData(
+                    readFile(fontSettings.getRegularFontPath()),
+                    readFile(fontSettings.getBoldFontPath()));
+        }
+    }
+
+    @SuppressWarnings("DataFlowIssue")
+    private static byte[] readResource(String resourceName) throws IOException {
+        try (InputStream is = PDFFontCache.class.getResourceAsStream(resourceName)) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    private static byte[] readFile(Path path) throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    private static TrueTypeFont parse(byte[] fontData) throws IOException {
+        return new TTFParser().parse(new RandomAccessReadBuffer(fontData));
+    }
+
+    /**
+     * Font file data of the regular and bold variant of a font.
+     * <p>
+     * The arrays must not be modified.
+     * </p>
+     */
+    static class FontData {
+        final byte[] regular;
+        final byte[] bold;
+
+        FontData(byte[] regular, byte[] bold) {
+            this.regular = regular;
+            this.bold = bold;
+        }
+    }
+
+    /**
+     * Parsed regular and bold variant of a font, checked out from the cache.
+     */
+    static class ParsedFonts {
+        final TrueTypeFont regular;
+        final TrueTypeFont bold;
+        private final FontPool pool;
+
+        private ParsedFonts(FontPool pool, TrueTypeFont regular, TrueTypeFont bold) {
+            this.pool = pool;
+            this.regular = regular;
+            this.bold = bold;
+        }
+
+        // The fonts have been parsed from memory; closing them cannot fail
+        private void close() {
+            try {
+                regular.close();
+                bold.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Font data and idle parsed fonts of a single font.
+     */
+    private static class FontPool {
+        private final FontData fontData;
+        private final Queue<ParsedFonts> idleFonts = new ConcurrentLinkedQueue<>();
+        private volatile boolean isRetired;
+
+        FontPool(FontData fontData) {
+            this.fontData = fontData;
+        }
+
+        ParsedFonts checkOut() throws IOException {
+            ParsedFonts fonts = idleFonts.poll();
+            if (fonts != null)
+                return fonts;
+
+            TrueTypeFont regular = parse(fontData.regular);
+            try {
+                return new ParsedFonts(this, regular, parse(fontData.bold));
+            } catch (IOException e) {
+                regular.close();
+                throw e;
+            }
+        }
+
+        void checkIn(ParsedFonts fonts) {
+            if (isRetired || idleFonts.size() >= MAX_IDLE_FONTS) {
+                fonts.close();
+                return;
+            }
+
+            idleFonts.add(fonts);
+            // the pool might have been retired concurrently
+            if (isRetired)
+                closeIdleFonts();
+        }
+
+        void retire() {
+            isRetired = true;
+            closeIdleFonts();
+        }
+
+        private void closeIdleFonts() {
+            ParsedFonts fonts;
+            while ((fonts = idleFonts.poll()) != null)
+                fonts.close();
+        }
+    }
+
+    /**
+     * Font settings and, for custom fonts, the modification time of the font files.
+     */
+    private static class FontKey {
+        private final PDFFontSettings fontSettings;
+        private final FileTime regularModified;
+        private final FileTime boldModified;
+
+        FontKey(PDFFontSettings fontSettings) throws IOException {
+            this.fontSettings = fontSettings;
+            if (fontSettings.getFontEmbedding() == PDFFontSettings.FontEmbedding.EMBEDDED_CUSTOM) {
+                regularModified = Files.getLastModifiedTime(fontSettings.getRegularFontPath());
+                boldModified = Files.getLastModifiedTime(fontSettings.getBoldFontPath());
+            } else {
+                regularModified = null;
+                boldModified = null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FontKey key = (FontKey) o;
+            return fontSettings.equals(key.fontSettings) && Objects.equals(regularModified, key.regularModified)
+                    && Objects.equals(boldModified, key.boldModified);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fontSettings.hashCode();
+            result = 31 * result + Objects.hashCode(regularModified);
+            result = 31 * result + Objects.hashCode(boldModified);
+            return result;
+        }
+    }
+}
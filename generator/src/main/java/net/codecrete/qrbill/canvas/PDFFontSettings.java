@@ -1,6 +1,7 @@
 package net.codecrete.qrbill.canvas;
 
 import java.nio.file.Path;
+import java.util.Objects;
 
 /**
  * Sets the font to use for a PDF canvas.
@@ -106,6 +107,28 @@ public class PDFFontSettings {
         return boldFontPath;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PDFFontSettings that = (PDFFontSettings) o;
+        return fontEmbedding == that.fontEmbedding &&
+                Objects.equals(fontFamily, that.fontFamily) &&
+                Objects.equals(regularFontPath, that.regularFontPath) &&
+                Objects.equals(boldFontPath, that.boldFontPath);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(fontEmbedding, fontFamily, regularFontPath, boldFontPath);
+    }
+
     /**
      * Font embedding options.
      */
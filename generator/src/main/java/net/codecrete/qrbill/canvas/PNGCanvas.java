@@ -6,21 +6,17 @@
 //
 package net.codecrete.qrbill.canvas;
 
-import net.codecrete.qrbill.generator.QRBillGenerationException;
-
-import javax.imageio.*;
-import javax.imageio.metadata.IIOInvalidTreeException;
-import javax.imageio.metadata.IIOMetadata;
-import javax.imageio.metadata.IIOMetadataNode;
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
+import java.util.zip.Deflater;
 
 /**
  * Canvas for generating PNG files.
@@ -28,15 +24,19 @@ import java.util.Iterator;
  * PNGs are not an optimal file format for QR bills. Vector formats such a SVG
  * or PDF are of better quality and use far less processing power to generate.
  * </p>
+ * <p>
+ * This canvas uses AWT and system fonts. For environments without AWT,
+ * see {@link HeadlessPNGCanvas}.
+ * </p>
  */
 public class PNGCanvas extends Graphics2DCanvas implements ByteArrayResult {
 
-    private static final String METADATA_KEY_VALUE = "value";
-    private static final String METADATA_KEY_KEYWORD = "keyword";
-
     private BufferedImage image;
     private Graphics2D graphics;
     private final int resolution;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private PNGFilter filter = PNGFilter.ADAPTIVE;
+    private boolean isBlackAndWhite;
 
     /**
      * Creates a new instance with the specified image size, resolution and font family.
@@ -75,14 +75,56 @@ public class PNGCanvas extends Graphics2DCanvas implements ByteArrayResult {
     }
 
 
+    /**
+     * Sets the compression level for PNG encoding.
+     * <p>
+     * The level ranges from 0 (no compression, fastest) to 9 (best compression, slowest).
+     * The default is -1, the default level of the deflate algorithm (equivalent to 6).
+     * </p>
+     *
+     * @param compressionLevel compression level (0 to 9, or -1)
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < -1 || compressionLevel > 9)
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets the filter strategy for PNG encoding.
+     * <p>
+     * The default is {@link PNGFilter#ADAPTIVE}. Black and white images
+     * (see {@link #setBlackAndWhite(boolean)}) are always written without filter.
+     * </p>
+     *
+     * @param filter filter strategy
+     */
+    public void setFilter(PNGFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets whether the PNG image is encoded as a black and white image (1 bit per pixel).
+     * <p>
+     * Black and white images are considerably smaller. But all gray pixels are converted to
+     * either black or white, removing the anti-aliasing of text and curves. It is suitable for
+     * the QR code only ({@link net.codecrete.qrbill.generator.OutputSize#QR_CODE_ONLY}).
+     * By default, the image is encoded with 256 shades of gray (8 bits per pixel).
+     * </p>
+     *
+     * @param isBlackAndWhite {@code true} for a black and white image, {@code false} for grayscale
+     */
+    public void setBlackAndWhite(boolean isBlackAndWhite) {
+        this.isBlackAndWhite = isBlackAndWhite;
+    }
+
     @Override
     public byte[] toByteArray() throws IOException {
         graphics.dispose();
         graphics = null;
         ByteArrayOutputStream os = new ByteArrayOutputStream();
 
-        // Instead of ImageIO.write(image, "png", os)
-        createPNG(image, os, resolution);
+        createPNG(os);
         return os.toByteArray();
     }
 
@@ -92,12 +134,12 @@ public class PNGCanvas extends Graphics2DCanvas implements ByteArrayResult {
      * @param os the output stream
      * @throws IOException thrown if the image cannot be written
      */
+    @Override
     public void writeTo(OutputStream os) throws IOException {
         graphics.dispose();
         graphics = null;
 
-        // Instead of ImageIO.write(image, "png", os)
-        createPNG(image, os, resolution);
+        createPNG(os);
     }
 
     /**
@@ -111,8 +153,7 @@ public class PNGCanvas extends Graphics2DCanvas implements ByteArrayResult {
         graphics = null;
 
         try (OutputStream os = Files.newOutputStream(path)) {
-            // Instead of ImageIO.write(image, "png", os)
-            createPNG(image, os, resolution);
+            createPNG(os);
         }
     }
 
@@ -126,88 +167,13 @@ public class PNGCanvas extends Graphics2DCanvas implements ByteArrayResult {
     }
 
     /**
-     * Saves image as PDF and stores metadata to indicate the resolution.
-     */
-    private static void createPNG(BufferedImage image, OutputStream os, int resolution) throws IOException {
-
-        ImageWriter writer = null;
-        ImageWriteParam writeParam = null;
-        IIOMetadata metadata = null;
-
-        for (Iterator<ImageWriter> iw = ImageIO.getImageWritersByFormatName("png"); iw.hasNext(); ) {
-            writer = iw.next();
-            writeParam = writer.getDefaultWriteParam();
-            ImageTypeSpecifier typeSpecifier = ImageTypeSpecifier.createFromBufferedImageType(image.getType());
-            metadata = writer.getDefaultImageMetadata(typeSpecifier, writeParam);
-            if (!metadata.isReadOnly() && metadata.isStandardMetadataFormatSupported())
-                break;
-        }
-
-        if (writer == null || writeParam == null)
-            throw new QRBillGenerationException("No valid PNG writer found");
-
-        addDpiMetadata(metadata, resolution);
-        addTextMetadata(metadata);
-
-        try (ImageOutputStream stream = ImageIO.createImageOutputStream(os)) {
-            writer.setOutput(stream);
-            writer.write(metadata, new IIOImage(image, null, metadata), writeParam);
-        }
-    }
-
-    private static final String PNG_STANDARD_METADATA_FORMAT = "javax_imageio_1.0";
-
-    /**
-     * Add meta data to specify the resolution
+     * Encodes the image as a PNG and stores metadata to indicate the resolution.
      */
-    private static void addDpiMetadata(IIOMetadata metadata, int dpi) throws IIOInvalidTreeException {
-
-        // native metadata format ("pHYs")
-        double pixelsPerMeter = dpi / 25.4 * 1000;
-        String pixelsPerMeterString = Integer.toString((int) (pixelsPerMeter + 0.5));
-
-        IIOMetadataNode physNode = new IIOMetadataNode("pHYs");
-        physNode.setAttribute("pixelsPerUnitXAxis", pixelsPerMeterString);
-        physNode.setAttribute("pixelsPerUnitYAxis", pixelsPerMeterString);
-        physNode.setAttribute("unitSpecifier", "meter");
-
-        IIOMetadataNode root = new IIOMetadataNode(metadata.getNativeMetadataFormatName());
-        root.appendChild(physNode);
-        metadata.mergeTree(metadata.getNativeMetadataFormatName(), root);
-
-        IIOMetadataNode dimension = createDimensionNode(dpi);
-
-        root = new IIOMetadataNode(PNG_STANDARD_METADATA_FORMAT);
-        root.appendChild(dimension);
-        metadata.mergeTree(PNG_STANDARD_METADATA_FORMAT, root);
-    }
-
-    private static IIOMetadataNode createDimensionNode(int dpi) {
-        // standard metadata format
-        double pixelsPerMM = dpi / 25.4;
-        String pixelsPerMMString = Double.toString(pixelsPerMM);
-
-        IIOMetadataNode horizontalPixelSize = new IIOMetadataNode("HorizontalPixelSize");
-        horizontalPixelSize.setAttribute(METADATA_KEY_VALUE, pixelsPerMMString);
-
-        IIOMetadataNode verticalPixelSize = new IIOMetadataNode("VerticalPixelSize");
-        verticalPixelSize.setAttribute(METADATA_KEY_VALUE, pixelsPerMMString);
-
-        IIOMetadataNode dimension = new IIOMetadataNode("Dimension");
-        dimension.appendChild(horizontalPixelSize);
-        dimension.appendChild(verticalPixelSize);
-        return dimension;
+    private void createPNG(OutputStream os) throws IOException {
+        Raster raster = image.getRaster();
+        byte[] pixels = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int scanlineStride = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+        PNGEncoder.encode(pixels, scanlineStride, image.getWidth(), image.getHeight(), resolution,
+                compressionLevel, filter, isBlackAndWhite, os);
     }
-
-    private static void addTextMetadata(IIOMetadata metadata) throws IIOInvalidTreeException {
-        IIOMetadataNode textEntry = new IIOMetadataNode("tEXtEntry");
-        textEntry.setAttribute(METADATA_KEY_KEYWORD, "Title");
-        textEntry.setAttribute(METADATA_KEY_VALUE, "Swiss QR Bill");
-        IIOMetadataNode text = new IIOMetadataNode("tEXt");
-        text.appendChild(textEntry);
-        IIOMetadataNode commentMetadata = new IIOMetadataNode(metadata.getNativeMetadataFormatName());
-        commentMetadata.appendChild(text);
-        metadata.mergeTree(metadata.getNativeMetadataFormatName(), commentMetadata);
-    }
-
 }
@@ -0,0 +1,304 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encoder for grayscale PNG images.
+ * <p>
+ * The encoder writes the PNG chunks directly instead of going through {@code ImageIO}.
+ * It supports 8-bit grayscale and 1-bit black and white images, selectable
+ * compression levels and filter strategies.
+ * </p>
+ * <p>
+ * An encoder instance is used for a single image only. Its deflater holds native
+ * memory and is released as soon as the image has been written.
+ * </p>
+ */
+final class PNGEncoder {
+
+    private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PHYS = "pHYs".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEXT = "tEXt".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TITLE = "Title\0Swiss QR Bill".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunkHeader = new byte[8];
+    private final byte[] chunkCrc = new byte[4];
+    private final byte[] idatBuffer = new byte[32768];
+    private byte[] previousRow;
+    private byte[] currentRow;
+    // filtered row for each filter type (prefixed with the filter type byte)
+    private byte[][] filteredRows;
+
+    private PNGEncoder(int compressionLevel) {
+        deflater = new Deflater(compressionLevel);
+    }
+
+    /**
+     * Encodes the grayscale image as a PNG and writes it to the output stream.
+     *
+     * @param pixels           pixels (8 bits per pixel)
+     * @param scanlineStride   offset between the start of two consecutive rows (in bytes)
+     * @param width            image width (in pixels)
+     * @param height           image height (in pixels)
+     * @param resolution       resolution (in dpi)
+     * @param compressionLevel deflate compression level (0 to 9)
+     * @param filter           filter strategy (ignored for black and white images)
+     * @param blackAndWhite    {@code true} to write a 1-bit black and white image, {@code false} for 8-bit grayscale
+     * @param os               output stream
+     * @throws IOException thrown if the image cannot be written
+     */
+    static void encode(byte[] pixels, int scanlineStride, int width, int height, int resolution,
+                       int compressionLevel, PNGFilter filter, boolean blackAndWhite,
+                       OutputStream os) throws IOException {
+        new PNGEncoder(compressionLevel).write(pixels, scanlineStride, false, width, height,
+                resolution, filter, blackAndWhite, os);
+    }
+
+    /**
+     * Encodes the black and white image as a PNG and writes it to the output stream.
+     * <p>
+     * The pixels are packed, 8 pixels per byte, with the leftmost pixel in the most
+     * significant bit. Each row starts with a new byte. A set bit is a white pixel.
+     * </p>
+     *
+     * @param packedPixels     packed pixels
+     * @param width            image width (in pixels)
+     * @param height           image height (in pixels)
+     * @param resolution       resolution (in dpi)
+     * @param compressionLevel deflate compression level (0 to 9)
+     * @param os               output stream
+     * @throws IOException thrown if the image cannot be written
+     */
+    static void encodePacked(byte[] packedPixels, int width, int height, int resolution, int compressionLevel,
+                             OutputStream os) throws IOException {
+        new PNGEncoder(compressionLevel).write(packedPixels, (width + 7) / 8, true, width, height,
+                resolution, PNGFilter.NONE, true, os);
+    }
+
+    private void write(byte[] pixels, int scanlineStride, boolean isPacked, int width, int height, int resolution,
+                       PNGFilter filter, boolean blackAndWhite, OutputStream os) throws IOException {
+        // Filters work on bytes. For packed 1-bit pixels, they rarely reduce the size but cost time.
+        if (blackAndWhite)
+            filter = PNGFilter.NONE;
+
+        try {
+            os.write(SIGNATURE);
+            writeHeader(os, width, height, blackAndWhite);
+            writePhysicalSize(os, resolution);
+            writeChunk(os, TEXT, TITLE, TITLE.length);
+            writeImageData(os, pixels, scanlineStride, isPacked, width, height, filter, blackAndWhite);
+            writeChunk(os, IEND, null, 0);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeHeader(OutputStream os, int width, int height, boolean blackAndWhite) throws IOException {
+        byte[] data = new byte[13];
+        putInt(data, 0, width);
+        putInt(data, 4, height);
+        data[8] = (byte) (blackAndWhite ? 1 : 8); // bit depth
+        data[9] = 0; // color type: grayscale
+        data[10] = 0; // compression method: deflate
+        data[11] = 0; // filter method: adaptive
+        data[12] = 0; // interlace method: none
+        writeChunk(os, IHDR, data, data.length);
+    }
+
+    private void writePhysicalSize(OutputStream os, int resolution) throws IOException {
+        int pixelsPerMeter = (int) (resolution / 25.4 * 1000 + 0.5);
+        byte[] data = new byte[9];
+        putInt(data, 0, pixelsPerMeter);
+        putInt(data, 4, pixelsPerMeter);
+        data[8] = 1; // unit: meter
+        writeChunk(os, PHYS, data, data.length);
+    }
+
+    private void writeImageData(OutputStream os, byte[] pixels, int scanlineStride, boolean isPacked,
+                                int width, int height, PNGFilter filter,
+                                boolean blackAndWhite) throws IOException {
+        int rowLength = blackAndWhite ? (width + 7) / 8 : width;
+        prepareBuffers(rowLength);
+
+        int idatLength = 0;
+        for (int y = 0; y < height; y++) {
+            int offset = y * scanlineStride;
+            if (isPacked) {
+                System.arraycopy(pixels, offset, currentRow, 0, rowLength);
+            } else if (blackAndWhite) {
+                packBlackAndWhite(pixels, offset, width, currentRow);
+            } else {
+                System.arraycopy(pixels, offset, currentRow, 0, width);
+            }
+
+            byte[] filtered = filterRow(filter, rowLength);
+            deflater.setInput(filtered, 0, rowLength + 1);
+            idatLength = deflate(os, idatLength, false);
+
+            byte[] temp = previousRow;
+            previousRow = currentRow;
+            currentRow = temp;
+        }
+
+        deflater.finish();
+        idatLength = deflate(os, idatLength, true);
+        if (idatLength > 0)
+            writeChunk(os, IDAT, idatBuffer, idatLength);
+    }
+
+    // Compresses the pending input (or the remaining data if finishing), writing a chunk
+    // whenever the buffer is full; returns the number of bytes remaining in the buffer
+    private int deflate(OutputStream os, int idatLength, boolean finish) throws IOException {
+        while (true) {
+            idatLength += deflater.deflate(idatBuffer, idatLength, idatBuffer.length - idatLength);
+            if (idatLength == idatBuffer.length) {
+                writeChunk(os, IDAT, idatBuffer, idatLength);
+                idatLength = 0;
+            } else if (finish ? deflater.finished() : deflater.needsInput()) {
+                return idatLength;
+            }
+        }
+    }
+
+    private void prepareBuffers(int rowLength) {
+        // the row above the first row is all zeros
+        previousRow = new byte[rowLength];
+        currentRow = new byte[rowLength];
+        filteredRows = new byte[5][rowLength + 1];
+    }
+
+    private static void packBlackAndWhite(byte[] pixels, int offset, int width, byte[] row) {
+        int bits = 0;
+        int x = 0;
+        for (; x < width; x++) {
+            bits <<= 1;
+            if ((pixels[offset + x] & 0xff) >= 128)
+                bits |= 1;
+            if ((x & 7) == 7) {
+                row[x >> 3] = (byte) bits;
+                bits = 0;
+            }
+        }
+        if ((x & 7) != 0)
+            row[x >> 3] = (byte) (bits << (8 - (x & 7)));
+    }
+
+    private byte[] filterRow(PNGFilter filter, int rowLength) {
+        switch (filter) {
+            case NONE:
+                return applyFilter(FILTER_NONE, rowLength);
+            case SUB:
+                return applyFilter(FILTER_SUB, rowLength);
+            case UP:
+                return applyFilter(FILTER_UP, rowLength);
+            case PAETH:
+                return applyFilter(FILTER_PAETH, rowLength);
+            case ADAPTIVE:
+            default:
+                // select the filter with the smallest sum of absolute values (as recommended by the PNG specification)
+                byte[] best = null;
+                long bestSum = Long.MAX_VALUE;
+                for (int filterType = FILTER_NONE; filterType <= FILTER_PAETH; filterType++) {
+                    byte[] filtered = applyFilter(filterType, rowLength);
+                    long sum = 0;
+                    for (int i = 1; i <= rowLength; i++)
+                        sum += Math.abs((int) filtered[i]);
+                    if (sum < bestSum) {
+                        bestSum = sum;
+                        best = filtered;
+                    }
+                }
+                return best;
+        }
+    }
+
+    // Filters the current row. The bytes per pixel are 1 for both 8-bit grayscale and 1-bit images.
+    private byte[] applyFilter(int filterType, int rowLength) {
+        byte[] filtered = filteredRows[filterType];
+        byte[] cur = currentRow;
+        byte[] prev = previousRow;
+        filtered[0] = (byte) filterType;
+
+        switch (filterType) {
+            case FILTER_NONE:
+                System.arraycopy(cur, 0, filtered, 1, rowLength);
+                break;
+            case FILTER_SUB:
+                filtered[1] = cur[0];
+                for (int i = 1; i < rowLength; i++)
+                    filtered[i + 1] = (byte) (cur[i] - cur[i - 1]);
+                break;
+            case FILTER_UP:
+                for (int i = 0; i < rowLength; i++)
+                    filtered[i + 1] = (byte) (cur[i] - prev[i]);
+                break;
+            case FILTER_AVERAGE:
+                filtered[1] = (byte) (cur[0] - ((prev[0] & 0xff) >> 1));
+                for (int i = 1; i < rowLength; i++)
+                    filtered[i + 1] = (byte) (cur[i] - (((cur[i - 1] & 0xff) + (prev[i] & 0xff)) >> 1));
+                break;
+            default:
+                filtered[1] = (byte) (cur[0] - prev[0]);
+                for (int i = 1; i < rowLength; i++)
+                    filtered[i + 1] = (byte) (cur[i] - paethPredictor(cur[i - 1] & 0xff, prev[i] & 0xff, prev[i - 1] & 0xff));
+        }
+
+        return filtered;
+    }
+
+    private static int paethPredictor(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc)
+            return a;
+        if (pb <= pc)
+            return b;
+        return c;
+    }
+
+    private void writeChunk(OutputStream os, byte[] type, byte[] data, int length) throws IOException {
+        putInt(chunkHeader, 0, length);
+        System.arraycopy(type, 0, chunkHeader, 4, 4);
+        os.write(chunkHeader, 0, 8);
+
+        crc.reset();
+        crc.update(type, 0, 4);
+        if (length > 0) {
+            os.write(data, 0, length);
+            crc.update(data, 0, length);
+        }
+
+        putInt(chunkCrc, 0, (int) crc.getValue());
+        os.write(chunkCrc);
+    }
+
+    private static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,36 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+/**
+ * Filter strategy for PNG encoding.
+ * <p>
+ * PNG filters transform each row of pixels to improve the compression.
+ * </p>
+ */
+public enum PNGFilter {
+    /**
+     * No filter
+     */
+    NONE,
+    /**
+     * Difference to the pixel on the left
+     */
+    SUB,
+    /**
+     * Difference to the pixel above
+     */
+    UP,
+    /**
+     * Paeth predictor (pixel on the left, above and above left)
+     */
+    PAETH,
+    /**
+     * Best filter selected for each row (smallest output, slowest encoding)
+     */
+    ADAPTIVE
+}
@@ -0,0 +1,485 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Canvas for generating black and white PNG files of the QR code.
+ * <p>
+ * The canvas rasterizes filled paths directly into a 1-bit image (8 pixels per byte)
+ * without anti-aliasing. It does not use AWT and is considerably faster and lighter
+ * than {@link PNGCanvas}. It is intended for the QR code only
+ * ({@link net.codecrete.qrbill.generator.OutputSize#QR_CODE_ONLY} and
+ * {@link net.codecrete.qrbill.generator.OutputSize#QR_CODE_WITH_QUIET_ZONE}).
+ * </p>
+ * <p>
+ * Text and stroked paths are supported as well. When they are first used, the canvas
+ * switches to the rasterizer of {@link HeadlessPNGCanvas} (with the bundled Liberation Sans
+ * font) for the remaining drawing operations. The result is still a black and white image.
+ * </p>
+ * <p>
+ * A pixel is filled if its center is inside the path (non-zero winding rule).
+ * Colors with a luminance of at least 50% result in white pixels, darker
+ * colors in black pixels.
+ * </p>
+ */
+public class QRCodePNGCanvas extends AbstractCanvas implements ByteArrayResult {
+
+    // number of line segments a cubic curve is approximated with
+    private static final int CURVE_SEGMENTS = 16;
+    private static final String FONT_FAMILY = "Liberation Sans";
+
+    private final double width;
+    private final double height;
+    private final int resolution;
+    private final double coordinateScale;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int bytesPerRow;
+    private byte[] pixels;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    // current transformation
+    private double translateX;
+    private double translateY;
+    private double cos = 1;
+    private double sin = 0;
+    private double scaleX = 1;
+    private double scaleY = 1;
+
+    // current path: points in device coordinates (x and y), index of first point after each subpath
+    // and closed flag for each subpath
+    private double[] points = new double[256];
+    private int numPoints;
+    private int[] subpathEnds = new int[16];
+    private boolean[] subpathClosed = new boolean[16];
+    private int numSubpaths;
+    private boolean isSubpathOpen;
+
+    // edges of the path to fill, in device coordinates (x0, y0, x1, y1, with y0 < y1) and the edge direction
+    private double[] edges = new double[256];
+    private byte[] edgeDirections = new byte[64];
+    private int numEdges;
+
+    // canvas taking over once text or stroked paths are drawn
+    private HeadlessPNGCanvas fullCanvas;
+
+    // buffers for the scanline conversion
+    private double[] crossings = new double[16];
+    private byte[] crossingDirections = new byte[16];
+
+    /**
+     * Creates a new instance with the specified image size and resolution.
+     * <p>
+     * The image is initially white.
+     * </p>
+     *
+     * @param width      image width, in mm
+     * @param height     image height, in mm
+     * @param resolution resolution of the result (in dpi)
+     */
+    public QRCodePNGCanvas(double width, double height, int resolution) {
+        setupFontMetrics(FONT_FAMILY);
+
+        this.width = width;
+        this.height = height;
+        this.resolution = resolution;
+        coordinateScale = (float) (resolution / 25.4);
+        imageWidth = (int) (width * coordinateScale + 0.5);
+        imageHeight = (int) (height * coordinateScale + 0.5);
+        bytesPerRow = (imageWidth + 7) / 8;
+        pixels = new byte[bytesPerRow * imageHeight];
+        Arrays.fill(pixels, (byte) 0xff);
+    }
+
+    /**
+     * Sets the compression level for PNG encoding.
+     * <p>
+     * See {@link PNGCanvas#setCompressionLevel(int)}.
+     * </p>
+     *
+     * @param compressionLevel compression level (0 to 9, or -1)
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < -1 || compressionLevel > 9)
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public void setTransformation(double translateX, double translateY, double rotate, double scaleX, double scaleY) {
+        this.translateX = translateX;
+        this.translateY = translateY;
+        cos = Math.cos(rotate);
+        sin = Math.sin(rotate);
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        if (fullCanvas != null)
+            fullCanvas.setTransformation(translateX, translateY, rotate, scaleX, scaleY);
+    }
+
+    @Override
+    public void putText(String text, double x, double y, int fontSize, boolean isBold) {
+        switchToFullCanvas();
+        fullCanvas.putText(text, x, y, fontSize, isBold);
+    }
+
+    @Override
+    public void startPath() {
+        if (fullCanvas != null) {
+            fullCanvas.startPath();
+            return;
+        }
+        numPoints = 0;
+        numSubpaths = 0;
+        isSubpathOpen = false;
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        if (fullCanvas != null) {
+            fullCanvas.moveTo(x, y);
+            return;
+        }
+        endSubpath(false);
+        addPoint(deviceX(x, y), deviceY(x, y));
+        isSubpathOpen = true;
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        if (fullCanvas != null) {
+            fullCanvas.lineTo(x, y);
+            return;
+        }
+        addPoint(deviceX(x, y), deviceY(x, y));
+    }
+
+    @Override
+    public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+        if (fullCanvas != null) {
+            fullCanvas.cubicCurveTo(x1, y1, x2, y2, x, y);
+            return;
+        }
+        double startX = points[numPoints * 2 - 2];
+        double startY = points[numPoints * 2 - 1];
+        double dx1 = deviceX(x1, y1);
+        double dy1 = deviceY(x1, y1);
+        double dx2 = deviceX(x2, y2);
+        double dy2 = deviceY(x2, y2);
+        double dx = deviceX(x, y);
+        double dy = deviceY(x, y);
+
+        for (int i = 1; i <= CURVE_SEGMENTS; i++) {
+            double t = (double) i / CURVE_SEGMENTS;
+            double u = 1 - t;
+            double a = u * u * u;
+            double b = 3 * u * u * t;
+            double c = 3 * u * t * t;
+            double d = t * t * t;
+            double px = a * startX + b * dx1 + c * dx2 + d * dx;
+            double py = a * startY + b * dy1 + c * dy2 + d * dy;
+            addPoint(px, py);
+        }
+    }
+
+    @Override
+    public void addRectangle(double x, double y, double width, double height) {
+        if (fullCanvas != null) {
+            fullCanvas.addRectangle(x, y, width, height);
+            return;
+        }
+        moveTo(x, y);
+        lineTo(x, y + height);
+        lineTo(x + width, y + height);
+        lineTo(x + width, y);
+        closeSubpath();
+    }
+
+    @Override
+    public void closeSubpath() {
+        if (fullCanvas != null) {
+            fullCanvas.closeSubpath();
+            return;
+        }
+        endSubpath(true);
+    }
+
+    @Override
+    public void fillPath(int color, boolean smoothing) {
+        if (fullCanvas != null) {
+            fullCanvas.fillPath(color, smoothing);
+            return;
+        }
+        endSubpath(false);
+        numEdges = 0;
+        int start = 0;
+        for (int s = 0; s < numSubpaths; s++) {
+            int end = subpathEnds[s];
+            for (int i = start; i < end; i++) {
+                int next = i + 1 < end ? i + 1 : start;
+                addEdge(points[i * 2], points[i * 2 + 1], points[next * 2], points[next * 2 + 1]);
+            }
+            start = end;
+        }
+
+        int r = (color >> 16) & 0xff;
+        int g = (color >> 8) & 0xff;
+        int b = color & 0xff;
+        boolean isWhite = r * 299 + g * 587 + b * 114 >= 128 * 1000;
+
+        // only scan the rows covered by the path
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < numEdges; i++) {
+            minY = Math.min(minY, edges[i * 4 + 1]);
+            maxY = Math.max(maxY, edges[i * 4 + 3]);
+        }
+        int firstRow = (int) Math.max(0, Math.ceil(minY - 0.5));
+        int lastRow = (int) Math.min(imageHeight, Math.ceil(maxY - 0.5));
+        for (int row = firstRow; row < lastRow; row++)
+            fillRow(row, isWhite);
+    }
+
+    @Override
+    public void strokePath(double strokeWidth, int color, LineStyle lineStyle, boolean smoothing) {
+        if (fullCanvas == null) {
+            switchToFullCanvas();
+
+            // pass on the current path (already in device coordinates)
+            endSubpath(false);
+            Rasterizer rasterizer = fullCanvas.getRasterizer();
+            rasterizer.startPath();
+            int start = 0;
+            for (int s = 0; s < numSubpaths; s++) {
+                int end = subpathEnds[s];
+                rasterizer.moveTo(points[start * 2], points[start * 2 + 1]);
+                for (int i = start + 1; i < end; i++)
+                    rasterizer.lineTo(points[i * 2], points[i * 2 + 1]);
+                if (subpathClosed[s])
+                    rasterizer.closePath();
+                start = end;
+            }
+        }
+        fullCanvas.strokePath(strokeWidth, color, lineStyle, smoothing);
+    }
+
+    @Override
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        createPNG(os);
+        return os.toByteArray();
+    }
+
+    /**
+     * Writes the resulting PNG image to the specified output stream.
+     *
+     * @param os the output stream
+     * @throws IOException thrown if the image cannot be written
+     */
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        createPNG(os);
+    }
+
+    /**
+     * Saves the resulting PNG image to the specified path.
+     *
+     * @param path the path to write to
+     * @throws IOException thrown if the image cannot be written
+     */
+    public void saveAs(Path path) throws IOException {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            createPNG(os);
+        }
+    }
+
+    @Override
+    public void close() {
+        pixels = null;
+        if (fullCanvas != null) {
+            fullCanvas.close();
+            fullCanvas = null;
+        }
+    }
+
+    private void createPNG(OutputStream os) throws IOException {
+        if (fullCanvas != null) {
+            fullCanvas.setCompressionLevel(compressionLevel);
+            fullCanvas.setBlackAndWhite(true);
+            fullCanvas.writeTo(os);
+            return;
+        }
+        PNGEncoder.encodePacked(pixels, imageWidth, imageHeight, resolution, compressionLevel, os);
+    }
+
+    // Switches to a canvas supporting text and stroked paths; it takes over the pixels drawn so far
+    private void switchToFullCanvas() {
+        if (fullCanvas != null)
+            return;
+
+        fullCanvas = new HeadlessPNGCanvas(width, height, resolution);
+        fullCanvas.setTransformation(translateX, translateY, Math.atan2(sin, cos), scaleX, scaleY);
+        byte[] grayPixels = fullCanvas.getRasterizer().getPixels();
+        for (int y = 0; y < imageHeight; y++) {
+            int rowOffset = y * bytesPerRow;
+            for (int x = 0; x < imageWidth; x++) {
+                if ((pixels[rowOffset + (x >> 3)] & (0x80 >> (x & 7))) == 0)
+                    grayPixels[y * imageWidth + x] = 0;
+            }
+        }
+        pixels = null;
+    }
+
+    // Our coordinate system extends from the bottom up, the image's from the top down
+    private double deviceX(double x, double y) {
+        x *= scaleX;
+        y *= scaleY;
+        return (translateX + x * cos - y * sin) * coordinateScale;
+    }
+
+    private double deviceY(double x, double y) {
+        x *= scaleX;
+        y *= scaleY;
+        return imageHeight - (translateY + x * sin + y * cos) * coordinateScale;
+    }
+
+    private void endSubpath(boolean isClosed) {
+        if (!isSubpathOpen)
+            return;
+        if (numSubpaths == subpathEnds.length) {
+            subpathEnds = Arrays.copyOf(subpathEnds, numSubpaths * 2);
+            subpathClosed = Arrays.copyOf(subpathClosed, numSubpaths * 2);
+        }
+        subpathEnds[numSubpaths] = numPoints;
+        subpathClosed[numSubpaths] = isClosed;
+        numSubpaths += 1;
+        isSubpathOpen = false;
+    }
+
+    private void addPoint(double x, double y) {
+        if (numPoints * 2 == points.length)
+            points = Arrays.copyOf(points, points.length * 2);
+        points[numPoints * 2] = x;
+        points[numPoints * 2 + 1] = y;
+        numPoints += 1;
+    }
+
+    private void addEdge(double x0, double y0, double x1, double y1) {
+        if (y0 == y1)
+            return; // horizontal edges never cross a scanline
+
+        if (numEdges == edgeDirections.length) {
+            edgeDirections = Arrays.copyOf(edgeDirections, numEdges * 2);
+            edges = Arrays.copyOf(edges, numEdges * 8);
+        }
+
+        int index = numEdges * 4;
+        if (y0 < y1) {
+            edges[index] = x0;
+            edges[index + 1] = y0;
+            edges[index + 2] = x1;
+            edges[index + 3] = y1;
+            edgeDirections[numEdges] = 1;
+        } else {
+            edges[index] = x1;
+            edges[index + 1] = y1;
+            edges[index + 2] = x0;
+            edges[index + 3] = y0;
+            edgeDirections[numEdges] = -1;
+        }
+        numEdges += 1;
+    }
+
+    // Fills the pixels of the specified row whose centers are inside the current path
+    private void fillRow(int row, boolean isWhite) {
+        double y = row + 0.5;
+
+        // collect crossings of the edges with the horizontal line through the pixel centers,
+        // sorted by x coordinate (insertion sort as the number of crossings is small)
+        int numCrossings = 0;
+        for (int i = 0; i < numEdges; i++) {
+            int index = i * 4;
+            double y0 = edges[index + 1];
+            double y1 = edges[index + 3];
+            if (y < y0 || y >= y1)
+                continue;
+
+            double x0 = edges[index];
+            double x1 = edges[index + 2];
+            double x = x0 + (y - y0) * (x1 - x0) / (y1 - y0);
+            byte direction = edgeDirections[i];
+
+            if (numCrossings == crossings.length) {
+                crossings = Arrays.copyOf(crossings, numCrossings * 2);
+                crossingDirections = Arrays.copyOf(crossingDirections, numCrossings * 2);
+            }
+            int j = numCrossings;
+            while (j > 0 && crossings[j - 1] > x) {
+                crossings[j] = crossings[j - 1];
+                crossingDirections[j] = crossingDirections[j - 1];
+                j--;
+            }
+            crossings[j] = x;
+            crossingDirections[j] = direction;
+            numCrossings += 1;
+        }
+
+        // fill the spans with a non-zero winding number
+        int winding = 0;
+        double spanStart = 0;
+        for (int i = 0; i < numCrossings; i++) {
+            int newWinding = winding + crossingDirections[i];
+            if (winding == 0 && newWinding != 0) {
+                spanStart = crossings[i];
+            } else if (winding != 0 && newWinding == 0) {
+                fillSpan(row, firstPixel(spanStart), firstPixel(crossings[i]), isWhite);
+            }
+            winding = newWinding;
+        }
+    }
+
+    // Gets the first pixel whose center is at or to the right of the x coordinate
+    private int firstPixel(double x) {
+        return (int) Math.max(0, Math.min(imageWidth, Math.ceil(x - 0.5)));
+    }
+
+    // Fills the pixels from x0 (inclusive) to x1 (exclusive) in the specified row
+    private void fillSpan(int row, int x0, int x1, boolean isWhite) {
+        if (x0 >= x1)
+            return;
+
+        int rowOffset = row * bytesPerRow;
+        int firstByte = x0 >> 3;
+        int lastByte = (x1 - 1) >> 3;
+        int firstMask = 0xff >> (x0 & 7);
+        int lastMask = 0xff << (7 - ((x1 - 1) & 7)) & 0xff;
+
+        if (firstByte == lastByte) {
+            setBits(rowOffset + firstByte, firstMask & lastMask, isWhite);
+            return;
+        }
+
+        setBits(rowOffset + firstByte, firstMask, isWhite);
+        Arrays.fill(pixels, rowOffset + firstByte + 1, rowOffset + lastByte, isWhite ? (byte) 0xff : (byte) 0);
+        setBits(rowOffset + lastByte, lastMask, isWhite);
+    }
+
+    private void setBits(int index, int mask, boolean isWhite) {
+        if (isWhite)
+            pixels[index] |= (byte) mask;
+        else
+            pixels[index] &= (byte) ~mask;
+    }
+}
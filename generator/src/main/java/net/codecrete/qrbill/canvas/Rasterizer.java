@@ -0,0 +1,609 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.util.Arrays;
+
+/**
+ * Scanline rasterizer for an 8-bit grayscale image.
+ * <p>
+ * Paths are specified in device coordinates (pixels, origin at the top left). They are
+ * filled with the non-zero winding rule. Without anti-aliasing, the coordinates are
+ * normalized to a quarter pixel and a pixel is filled if its center is inside the path.
+ * With anti-aliasing, the coverage of each pixel is computed exactly in horizontal
+ * direction and with several sub-scanlines in vertical direction.
+ * </p>
+ * <p>
+ * Stroked paths are converted into polygons for the line segments, the miter joins and
+ * the round caps, which are then filled.
+ * </p>
+ */
+final class Rasterizer {
+
+    // number of sub-scanlines per pixel row for anti-aliasing
+    private static final int SUBSAMPLES = 4;
+    // maximum deviation of flattened curves from the exact curve (in pixels)
+    private static final double FLATNESS = 0.1;
+    private static final double MITER_LIMIT = 10;
+
+    private final int width;
+    private final int height;
+    private final byte[] pixels;
+
+    // current path: points (x and y), index of first point after each subpath and closed flag for each subpath
+    private double[] points = new double[256];
+    private int numPoints;
+    private int[] subpathEnds = new int[16];
+    private boolean[] subpathClosed = new boolean[16];
+    private int numSubpaths;
+    private boolean isSubpathOpen;
+
+    // edges to scan: x0, y0, x1, y1 (with y0 < y1) and winding direction
+    private double[] edges = new double[1024];
+    private byte[] edgeDirections = new byte[256];
+    private int numEdges;
+
+    // buffers for scan conversion
+    private int[] activeEdges = new int[64];
+    private int[] edgeOrder = new int[256];
+    private double[] crossings = new double[32];
+    private byte[] crossingDirections = new byte[32];
+    private final float[] coverage;
+    private final float[] coverageDelta;
+    private double[] polygon = new double[64];
+
+    /**
+     * Creates a new instance with a white image of the specified size.
+     *
+     * @param width  image width (in pixels)
+     * @param height image height (in pixels)
+     */
+    Rasterizer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        pixels = new byte[width * height];
+        Arrays.fill(pixels, (byte) 0xff);
+        coverage = new float[width + 2];
+        coverageDelta = new float[width + 2];
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the pixels of the image (one byte per pixel, row by row).
+     *
+     * @return pixels
+     */
+    byte[] getPixels() {
+        return pixels;
+    }
+
+    void startPath() {
+        numPoints = 0;
+        numSubpaths = 0;
+        isSubpathOpen = false;
+    }
+
+    void moveTo(double x, double y) {
+        endSubpath(false);
+        addPoint(x, y);
+        isSubpathOpen = true;
+    }
+
+    void lineTo(double x, double y) {
+        continueSubpath();
+        addPoint(x, y);
+    }
+
+    void quadTo(double cx, double cy, double x, double y) {
+        continueSubpath();
+        double x0 = points[numPoints * 2 - 2];
+        double y0 = points[numPoints * 2 - 1];
+        double ddx = x0 - 2 * cx + x;
+        double ddy = y0 - 2 * cy + y;
+        int n = numSegments(Math.sqrt(ddx * ddx + ddy * ddy) / 4);
+        for (int i = 1; i < n; i++) {
+            double t = (double) i / n;
+            double u = 1 - t;
+            addPoint(u * u * x0 + 2 * u * t * cx + t * t * x, u * u * y0 + 2 * u * t * cy + t * t * y);
+        }
+        addPoint(x, y);
+    }
+
+    void curveTo(double x1, double y1, double x2, double y2, double x, double y) {
+        continueSubpath();
+        double x0 = points[numPoints * 2 - 2];
+        double y0 = points[numPoints * 2 - 1];
+        double dd = Math.max(Math.hypot(x0 - 2 * x1 + x2, y0 - 2 * y1 + y2),
+                Math.hypot(x1 - 2 * x2 + x, y1 - 2 * y2 + y));
+        int n = numSegments(dd * 3 / 4);
+        for (int i = 1; i < n; i++) {
+            double t = (double) i / n;
+            double u = 1 - t;
+            double a = u * u * u;
+            double b = 3 * u * u * t;
+            double c = 3 * u * t * t;
+            double d = t * t * t;
+            addPoint(a * x0 + b * x1 + c * x2 + d * x, a * y0 + b * y1 + c * y2 + d * y);
+        }
+        addPoint(x, y);
+    }
+
+    void closePath() {
+        endSubpath(true);
+    }
+
+    /**
+     * Fills the current path.
+     *
+     * @param gray        gray value (0 for black to 255 for white)
+     * @param antiAliased {@code true} for anti-aliased rendering
+     */
+    void fillPath(int gray, boolean antiAliased) {
+        endSubpath(false);
+        numEdges = 0;
+        int start = 0;
+        for (int s = 0; s < numSubpaths; s++) {
+            int end = subpathEnds[s];
+            for (int i = start; i < end; i++) {
+                int next = i + 1 < end ? i + 1 : start;
+                if (antiAliased)
+                    addEdge(points[i * 2], points[i * 2 + 1], points[next * 2], points[next * 2 + 1], 1);
+                else
+                    addEdge(normalize(points[i * 2]), normalize(points[i * 2 + 1]),
+                            normalize(points[next * 2]), normalize(points[next * 2 + 1]), 1);
+            }
+            start = end;
+        }
+        scan(gray, antiAliased);
+    }
+
+    /**
+     * Strokes the current path.
+     * <p>
+     * The dash pattern consists of alternating lengths of dashes and gaps, starting with
+     * a dash. Dashes of length 0 are only visible with round caps.
+     * </p>
+     *
+     * @param lineWidth   line width (in pixels)
+     * @param dashPattern dash pattern (in pixels), or {@code null} for a solid line
+     * @param roundCaps   {@code true} for round caps, {@code false} for butt caps
+     * @param gray        gray value (0 for black to 255 for white)
+     * @param antiAliased {@code true} for anti-aliased rendering
+     */
+    void strokePath(double lineWidth, double[] dashPattern, boolean roundCaps, int gray, boolean antiAliased) {
+        endSubpath(false);
+        numEdges = 0;
+        if (!antiAliased) {
+            for (int i = 0; i < numPoints * 2; i++)
+                points[i] = normalize(points[i]);
+        }
+        double halfWidth = lineWidth / 2;
+        int start = 0;
+        for (int s = 0; s < numSubpaths; s++) {
+            int end = subpathEnds[s];
+            if (dashPattern == null)
+                strokePolyline(points, start, end, subpathClosed[s], halfWidth, roundCaps);
+            else
+                strokeDashed(start, end, subpathClosed[s], dashPattern, halfWidth, roundCaps);
+            start = end;
+        }
+        scan(gray, antiAliased);
+    }
+
+    private void continueSubpath() {
+        if (isSubpathOpen)
+            return;
+        // a new subpath starts at the end (or start if closed) of the previous subpath
+        double x = 0;
+        double y = 0;
+        if (numSubpaths > 0) {
+            int index = subpathClosed[numSubpaths - 1]
+                    ? (numSubpaths > 1 ? subpathEnds[numSubpaths - 2] : 0)
+                    : subpathEnds[numSubpaths - 1] - 1;
+            x = points[index * 2];
+            y = points[index * 2 + 1];
+        }
+        addPoint(x, y);
+        isSubpathOpen = true;
+    }
+
+    private void endSubpath(boolean isClosed) {
+        if (!isSubpathOpen)
+            return;
+        if (numSubpaths == subpathEnds.length) {
+            subpathEnds = Arrays.copyOf(subpathEnds, numSubpaths * 2);
+            subpathClosed = Arrays.copyOf(subpathClosed, numSubpaths * 2);
+        }
+        subpathEnds[numSubpaths] = numPoints;
+        subpathClosed[numSubpaths] = isClosed;
+        numSubpaths += 1;
+        isSubpathOpen = false;
+    }
+
+    private void addPoint(double x, double y) {
+        if (numPoints * 2 == points.length)
+            points = Arrays.copyOf(points, points.length * 2);
+        points[numPoints * 2] = x;
+        points[numPoints * 2 + 1] = y;
+        numPoints += 1;
+    }
+
+    // Moves the coordinate to a quarter pixel (same as Java 2D's stroke normalization) so
+    // aliased shapes are placed consistently
+    private static double normalize(double value) {
+        return Math.floor(value + 0.25) + 0.25;
+    }
+
+    private static int numSegments(double maxDeviation) {
+        return Math.max(1, Math.min(100, (int) Math.ceil(Math.sqrt(maxDeviation / FLATNESS))));
+    }
+
+    // Splits the subpath into dashes and strokes them
+    private void strokeDashed(int start, int end, boolean isClosed, double[] dashPattern, double halfWidth,
+                              boolean roundCaps) {
+        double[] dash = new double[16];
+        int dashLength = 0; // number of points in dash
+        int dashIndex = 0;
+        double remaining = dashPattern[0];
+        boolean isOn = true;
+
+        int last = isClosed ? end : end - 1;
+        for (int i = start; i < last; i++) {
+            int next = i + 1 < end ? i + 1 : start;
+            double x0 = points[i * 2];
+            double y0 = points[i * 2 + 1];
+            double x1 = points[next * 2];
+            double y1 = points[next * 2 + 1];
+            double length = Math.hypot(x1 - x0, y1 - y0);
+
+            if (isOn && dashLength == 0)
+                dash = addDashPoint(dash, dashLength++, x0, y0);
+
+            double pos = 0;
+            while (length - pos > remaining) {
+                pos += remaining;
+                double t = pos / length;
+                double x = x0 + t * (x1 - x0);
+                double y = y0 + t * (y1 - y0);
+                if (isOn) {
+                    dash = addDashPoint(dash, dashLength++, x, y);
+                    strokePolyline(dash, 0, dashLength, false, halfWidth, roundCaps);
+                    dashLength = 0;
+                } else {
+                    dash = addDashPoint(dash, dashLength++, x, y);
+                }
+                isOn = !isOn;
+                dashIndex = (dashIndex + 1) % dashPattern.length;
+                remaining = dashPattern[dashIndex];
+            }
+            remaining -= length - pos;
+            if (isOn)
+                dash = addDashPoint(dash, dashLength++, x1, y1);
+        }
+
+        if (isOn && dashLength > 0)
+            strokePolyline(dash, 0, dashLength, false, halfWidth, roundCaps);
+    }
+
+    private static double[] addDashPoint(double[] dash, int index, double x, double y) {
+        if (index * 2 == dash.length)
+            dash = Arrays.copyOf(dash, dash.length * 2);
+        dash[index * 2] = x;
+        dash[index * 2 + 1] = y;
+        return dash;
+    }
+
+    // Adds the polygons for the line segments, joins and caps of the polyline
+    private void strokePolyline(double[] coords, int start, int end, boolean isClosed, double halfWidth,
+                                boolean roundCaps) {
+        // remove duplicate consecutive points
+        double[] pts = new double[(end - start) * 2];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            double x = coords[i * 2];
+            double y = coords[i * 2 + 1];
+            if (n > 0 && x == pts[n * 2 - 2] && y == pts[n * 2 - 1])
+                continue;
+            pts[n * 2] = x;
+            pts[n * 2 + 1] = y;
+            n++;
+        }
+        if (isClosed && n > 1 && pts[0] == pts[n * 2 - 2] && pts[1] == pts[n * 2 - 1])
+            n--;
+        if (n == 0)
+            return;
+
+        if (n == 1) {
+            if (roundCaps)
+                addCircle(pts[0], pts[1], halfWidth);
+            return;
+        }
+
+        int numSegments = isClosed ? n : n - 1;
+        for (int i = 0; i < numSegments; i++) {
+            int next = (i + 1) % n;
+            double x0 = pts[i * 2];
+            double y0 = pts[i * 2 + 1];
+            double x1 = pts[next * 2];
+            double y1 = pts[next * 2 + 1];
+            double length = Math.hypot(x1 - x0, y1 - y0);
+            double nx = -(y1 - y0) / length * halfWidth;
+            double ny = (x1 - x0) / length * halfWidth;
+            addPolygon(x0 + nx, y0 + ny, x1 + nx, y1 + ny, x1 - nx, y1 - ny, x0 - nx, y0 - ny);
+        }
+
+        int firstJoin = isClosed ? 0 : 1;
+        int lastJoin = isClosed ? n : n - 1;
+        for (int i = firstJoin; i < lastJoin; i++)
+            addMiterJoin(pts, (i + n - 1) % n, i, (i + 1) % n, halfWidth);
+
+        if (!isClosed && roundCaps) {
+            addCircle(pts[0], pts[1], halfWidth);
+            addCircle(pts[n * 2 - 2], pts[n * 2 - 1], halfWidth);
+        }
+    }
+
+    private void addMiterJoin(double[] pts, int prev, int index, int next, double halfWidth) {
+        double px = pts[index * 2];
+        double py = pts[index * 2 + 1];
+        double d1x = px - pts[prev * 2];
+        double d1y = py - pts[prev * 2 + 1];
+        double d2x = pts[next * 2] - px;
+        double d2y = pts[next * 2 + 1] - py;
+        double len1 = Math.hypot(d1x, d1y);
+        double len2 = Math.hypot(d2x, d2y);
+        d1x /= len1;
+        d1y /= len1;
+        d2x /= len2;
+        d2y /= len2;
+
+        double cross = d1x * d2y - d1y * d2x;
+        if (Math.abs(cross) < 1e-9 && d1x * d2x + d1y * d2y > 0)
+            return; // collinear
+
+        // normals on the outer side of the turn
+        double side = cross > 0 ? -1 : 1;
+        double n1x = -d1y * side;
+        double n1y = d1x * side;
+        double n2x = -d2y * side;
+        double n2y = d2x * side;
+        double ax = px + n1x * halfWidth;
+        double ay = py + n1y * halfWidth;
+        double bx = px + n2x * halfWidth;
+        double by = py + n2y * halfWidth;
+
+        double bisectorLength = Math.hypot(n1x + n2x, n1y + n2y);
+        if (bisectorLength > 2 / MITER_LIMIT) {
+            double miterScale = 2 * halfWidth / (bisectorLength * bisectorLength);
+            double mx = px + (n1x + n2x) * miterScale;
+            double my = py + (n1y + n2y) * miterScale;
+            addPolygon(px, py, ax, ay, mx, my, bx, by);
+        } else {
+            addPolygon(px, py, ax, ay, bx, by);
+        }
+    }
+
+    private void addCircle(double cx, double cy, double radius) {
+        int n = Math.max(8, Math.min(128, (int) Math.ceil(2 * Math.PI * radius)));
+        if (polygon.length < n * 2)
+            polygon = new double[n * 2];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            polygon[i * 2] = cx + radius * Math.cos(angle);
+            polygon[i * 2 + 1] = cy + radius * Math.sin(angle);
+        }
+        addPolygon(polygon, n);
+    }
+
+    private void addPolygon(double... coords) {
+        addPolygon(coords, coords.length / 2);
+    }
+
+    // Adds the edges of the polygon; all polygons are oriented the same way so they are united by the non-zero rule
+    private void addPolygon(double[] coords, int n) {
+        double area = 0;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            area += coords[i * 2] * coords[next * 2 + 1] - coords[next * 2] * coords[i * 2 + 1];
+        }
+        int direction = area >= 0 ? 1 : -1;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            addEdge(coords[i * 2], coords[i * 2 + 1], coords[next * 2], coords[next * 2 + 1], direction);
+        }
+    }
+
+    private void addEdge(double x0, double y0, double x1, double y1, int direction) {
+        if (y0 == y1)
+            return; // horizontal edges never cross a scanline
+
+        if (numEdges == edgeDirections.length) {
+            edgeDirections = Arrays.copyOf(edgeDirections, numEdges * 2);
+            edges = Arrays.copyOf(edges, numEdges * 8);
+        }
+
+        int index = numEdges * 4;
+        if (y0 < y1) {
+            edges[index] = x0;
+            edges[index + 1] = y0;
+            edges[index + 2] = x1;
+            edges[index + 3] = y1;
+            edgeDirections[numEdges] = (byte) direction;
+        } else {
+            edges[index] = x1;
+            edges[index + 1] = y1;
+            edges[index + 2] = x0;
+            edges[index + 3] = y0;
+            edgeDirections[numEdges] = (byte) -direction;
+        }
+        numEdges += 1;
+    }
+
+    // Scan converts the edges and blends the covered pixels with the gray value
+    private void scan(int gray, boolean antiAliased) {
+        if (numEdges == 0)
+            return;
+
+        double minX = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < numEdges; i++) {
+            int index = i * 4;
+            minX = Math.min(minX, Math.min(edges[index], edges[index + 2]));
+            maxX = Math.max(maxX, Math.max(edges[index], edges[index + 2]));
+            minY = Math.min(minY, edges[index + 1]);
+            maxY = Math.max(maxY, edges[index + 3]);
+        }
+        int firstRow = (int) Math.max(0, Math.floor(minY));
+        int endRow = (int) Math.min(height, Math.ceil(maxY));
+        int firstColumn = (int) Math.max(0, Math.floor(minX));
+        int endColumn = (int) Math.min(width, Math.ceil(maxX) + 1);
+        if (firstRow >= endRow || firstColumn >= endColumn)
+            return;
+
+        // order edges by their top y coordinate so they can be activated row by row
+        sortEdgesByTop();
+
+        int numSamples = antiAliased ? SUBSAMPLES : 1;
+        float sampleWeight = 1.0f / numSamples;
+        int numActive = 0;
+        int nextEdge = 0;
+
+        for (int row = firstRow; row < endRow; row++) {
+            // activate the edges starting before the end of this row
+            while (nextEdge < numEdges && edges[edgeOrder[nextEdge] * 4 + 1] < row + 1) {
+                if (numActive == activeEdges.length)
+                    activeEdges = Arrays.copyOf(activeEdges, numActive * 2);
+                activeEdges[numActive++] = edgeOrder[nextEdge++];
+            }
+
+            for (int sample = 0; sample < numSamples; sample++) {
+                double y = row + (sample + 0.5) / numSamples;
+                int numCrossings = findCrossings(y, numActive);
+                addSpans(numCrossings, sampleWeight, antiAliased);
+            }
+
+            blendRow(row, firstColumn, endColumn, gray);
+
+            // deactivate the edges ending in this row
+            int n = 0;
+            for (int i = 0; i < numActive; i++) {
+                int edge = activeEdges[i];
+                if (edges[edge * 4 + 3] > row + 1)
+                    activeEdges[n++] = edge;
+            }
+            numActive = n;
+        }
+    }
+
+    private void sortEdgesByTop() {
+        if (edgeOrder.length < numEdges)
+            edgeOrder = new int[edgeDirections.length];
+        // sort keys combining the top y coordinate and the edge index
+        long[] keys = new long[numEdges];
+        for (int i = 0; i < numEdges; i++)
+            keys[i] = ((long) Math.floor(Math.max(edges[i * 4 + 1], -1) * 16) << 32) | i;
+        Arrays.sort(keys);
+        for (int i = 0; i < numEdges; i++)
+            edgeOrder[i] = (int) keys[i];
+    }
+
+    // Finds the crossings of the active edges with the horizontal line, sorted by x coordinate
+    private int findCrossings(double y, int numActive) {
+        int numCrossings = 0;
+        for (int i = 0; i < numActive; i++) {
+            int edge = activeEdges[i];
+            int index = edge * 4;
+            double y0 = edges[index + 1];
+            double y1 = edges[index + 3];
+            if (y < y0 || y >= y1)
+                continue;
+
+            double x0 = edges[index];
+            double x = x0 + (y - y0) * (edges[index + 2] - x0) / (y1 - y0);
+
+            if (numCrossings == crossings.length) {
+                crossings = Arrays.copyOf(crossings, numCrossings * 2);
+                crossingDirections = Arrays.copyOf(crossingDirections, numCrossings * 2);
+            }
+            // insertion sort as the number of crossings is small
+            int j = numCrossings;
+            while (j > 0 && crossings[j - 1] > x) {
+                crossings[j] = crossings[j - 1];
+                crossingDirections[j] = crossingDirections[j - 1];
+                j--;
+            }
+            crossings[j] = x;
+            crossingDirections[j] = edgeDirections[edge];
+            numCrossings += 1;
+        }
+        return numCrossings;
+    }
+
+    // Adds the coverage of the spans with a non-zero winding number
+    private void addSpans(int numCrossings, float weight, boolean antiAliased) {
+        int winding = 0;
+        double spanStart = 0;
+        for (int i = 0; i < numCrossings; i++) {
+            int newWinding = winding + crossingDirections[i];
+            if (winding == 0 && newWinding != 0) {
+                spanStart = crossings[i];
+            } else if (winding != 0 && newWinding == 0) {
+                if (antiAliased)
+                    addSpan(spanStart, crossings[i], weight);
+                else
+                    // pixels with their center inside the span
+                    addSpan(Math.ceil(spanStart - 0.5), Math.ceil(crossings[i] - 0.5), weight);
+            }
+            winding = newWinding;
+        }
+    }
+
+    private void addSpan(double x0, double x1, float weight) {
+        x0 = Math.max(x0, 0);
+        x1 = Math.min(x1, width);
+        if (x0 >= x1)
+            return;
+
+        int i0 = (int) x0;
+        int i1 = (int) x1;
+        if (i0 == i1) {
+            coverage[i0] += (float) (x1 - x0) * weight;
+        } else {
+            coverage[i0] += (float) (i0 + 1 - x0) * weight;
+            coverageDelta[i0 + 1] += weight;
+            coverageDelta[i1] -= weight;
+            coverage[i1] += (float) (x1 - i1) * weight;
+        }
+    }
+
+    private void blendRow(int row, int firstColumn, int endColumn, int gray) {
+        int offset = row * width;
+        float delta = 0;
+        for (int x = firstColumn; x <= endColumn; x++) {
+            delta += coverageDelta[x];
+            float cover = coverage[x] + delta;
+            coverage[x] = 0;
+            coverageDelta[x] = 0;
+            if (x == endColumn || cover < 0.002f)
+                continue;
+
+            if (cover > 1)
+                cover = 1;
+            int value = pixels[offset + x] & 0xff;
+            pixels[offset + x] = (byte) Math.round(value + (gray - value) * cover);
+        }
+    }
+}
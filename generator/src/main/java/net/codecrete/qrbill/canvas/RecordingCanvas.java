@@ -0,0 +1,177 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Canvas recording the drawing commands into a display list.
+ * <p>
+ * The resulting {@link DisplayList} can be replayed onto other canvases. This allows
+ * generating the same QR bill in several graphics formats while validating the bill data,
+ * formatting and breaking the text and encoding the QR code only once:
+ * </p>
+ * <pre>
+ * RecordingCanvas recorder = new RecordingCanvas("Helvetica, Arial, sans-serif");
+ * QRBill.draw(bill, recorder);
+ * DisplayList displayList = recorder.getDisplayList();
+ *
+ * try (SVGCanvas canvas = new SVGCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT, displayList.getFontFamilyList())) {
+ *     displayList.replay(canvas);
+ *     byte[] svg = canvas.toByteArray();
+ * }
+ * </pre>
+ * <p>
+ * Text is measured and broken into lines with the font metrics of the specified font family
+ * list. For the same result as when drawing directly, the canvases used for replay
+ * should use the same font.
+ * </p>
+ */
+public class RecordingCanvas extends AbstractCanvas {
+
+    private final String fontFamilyList;
+
+    private byte[] operations = new byte[256];
+    private int numOperations;
+    private double[] numbers = new double[1024];
+    private int numNumbers;
+    private int[] integers = new int[64];
+    private int numIntegers;
+    private String[] strings = new String[64];
+    private int numStrings;
+
+    /**
+     * Creates a new instance.
+     * <p>
+     * The specified font family list is used to measure text.
+     * </p>
+     *
+     * @param fontFamilyList font family list (comma separated list, CSS syntax)
+     */
+    public RecordingCanvas(String fontFamilyList) {
+        this.fontFamilyList = fontFamilyList;
+        setupFontMetrics(fontFamilyList);
+    }
+
+    /**
+     * Gets the display list with the drawing commands recorded so far.
+     *
+     * @return display list
+     */
+    public DisplayList getDisplayList() {
+        return new DisplayList(fontFamilyList,
+                Arrays.copyOf(operations, numOperations),
+                Arrays.copyOf(numbers, numNumbers),
+                Arrays.copyOf(integers, numIntegers),
+                Arrays.copyOf(strings, numStrings));
+    }
+
+    @Override
+    public void setTransformation(double translateX, double translateY, double rotate, double scaleX, double scaleY) {
+        addOperation(DisplayList.SET_TRANSFORMATION);
+        addNumbers(translateX, translateY, rotate, scaleX, scaleY);
+    }
+
+    @Override
+    public void putText(String text, double x, double y, int fontSize, boolean isBold) {
+        addOperation(DisplayList.PUT_TEXT);
+        addString(text);
+        addNumbers(x, y);
+        addIntegers(fontSize, isBold ? 1 : 0);
+    }
+
+    @Override
+    public void putTextLines(String[] lines, double x, double y, int fontSize, double leading) {
+        // recorded as a single command as some canvases (e.g. PDF) implement it differently
+        addOperation(DisplayList.PUT_TEXT_LINES);
+        for (String line : lines)
+            addString(line);
+        addNumbers(x, y, leading);
+        addIntegers(fontSize, lines.length);
+    }
+
+    @Override
+    public void startPath() {
+        addOperation(DisplayList.START_PATH);
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        addOperation(DisplayList.MOVE_TO);
+        addNumbers(x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        addOperation(DisplayList.LINE_TO);
+        addNumbers(x, y);
+    }
+
+    @Override
+    public void cubicCurveTo(double x1, double y1, double x2, double y2, double x, double y) {
+        addOperation(DisplayList.CUBIC_CURVE_TO);
+        addNumbers(x1, y1, x2, y2, x, y);
+    }
+
+    @Override
+    public void addRectangle(double x, double y, double width, double height) {
+        addOperation(DisplayList.ADD_RECTANGLE);
+        addNumbers(x, y, width, height);
+    }
+
+    @Override
+    public void closeSubpath() {
+        addOperation(DisplayList.CLOSE_SUBPATH);
+    }
+
+    @Override
+    public void fillPath(int color, boolean smoothing) {
+        addOperation(DisplayList.FILL_PATH);
+        addIntegers(color, smoothing ? 1 : 0);
+    }
+
+    @Override
+    public void strokePath(double strokeWidth, int color, LineStyle lineStyle, boolean smoothing) {
+        addOperation(DisplayList.STROKE_PATH);
+        addNumbers(strokeWidth);
+        addIntegers(color, lineStyle.ordinal(), smoothing ? 1 : 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // nothing to release; the display list remains available
+    }
+
+    private void addOperation(byte operation) {
+        if (numOperations == operations.length)
+            operations = Arrays.copyOf(operations, operations.length * 2);
+        operations[numOperations] = operation;
+        numOperations += 1;
+    }
+
+    private void addNumbers(double... values) {
+        if (numNumbers + values.length > numbers.length)
+            numbers = Arrays.copyOf(numbers, Math.max(numbers.length * 2, numNumbers + values.length));
+        System.arraycopy(values, 0, numbers, numNumbers, values.length);
+        numNumbers += values.length;
+    }
+
+    private void addIntegers(int... values) {
+        if (numIntegers + values.length > integers.length)
+            integers = Arrays.copyOf(integers, Math.max(integers.length * 2, numIntegers + values.length));
+        System.arraycopy(values, 0, integers, numIntegers, values.length);
+        numIntegers += values.length;
+    }
+
+    private void addString(String value) {
+        if (numStrings == strings.length)
+            strings = Arrays.copyOf(strings, strings.length * 2);
+        strings[numStrings] = value;
+        numStrings += 1;
+    }
+}
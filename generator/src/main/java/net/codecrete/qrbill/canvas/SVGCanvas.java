@@ -10,8 +10,6 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 
 /**
@@ -19,23 +17,30 @@ import java.util.Locale;
  */
 public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
 
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private final ByteArrayOutputStream buffer;
+    private final boolean isStreaming;
     private Writer stream;
     private boolean isInGroup;
     private boolean isFirstMoveInPath;
     private double lastPositionX;
     private double lastPositionY;
     private StringBuilder path;
+    private final StringBuilder pathBuffer = new StringBuilder(1024);
     private int approxPathLength;
-    private final DecimalFormat numberFormat = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.UK));
-
-    private final DecimalFormat angleFormat = new DecimalFormat("#.#####", new DecimalFormatSymbols(Locale.UK));
+    private final StringBuilder numberBuffer = new StringBuilder(16);
+    private char[] writeBuffer = new char[256];
 
     /**
      * Creates a new instance of the specified size.
      * <p>
      * For all text, the specified font family list will be used.
      * </p>
+     * <p>
+     * The SVG image is generated in memory. It can later be retrieved as a byte array
+     * (see {@link #toByteArray()}) or written to an output stream (see {@link #writeTo(OutputStream)}).
+     * </p>
      *
      * @param width          width of image, in mm
      * @param height         height of image, in mm
@@ -43,25 +48,56 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
      * @throws IOException thrown if the instance cannot be created
      */
     public SVGCanvas(double width, double height, String fontFamilyList) throws IOException {
-        setupFontMetrics(fontFamilyList);
-
         buffer = new ByteArrayOutputStream();
+        isStreaming = false;
         stream = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+        writeHeader(width, height, fontFamilyList);
+    }
+
+    /**
+     * Creates a new instance of the specified size writing the SVG image to the specified output stream.
+     * <p>
+     * For all text, the specified font family list will be used.
+     * </p>
+     * <p>
+     * The SVG markup is written to the output stream while drawing, using a write buffer
+     * of a fixed size. Closing the canvas completes the SVG image and flushes the buffer
+     * but does not close the output stream. The methods {@link #toByteArray()},
+     * {@link #writeTo(OutputStream)} and {@link #saveAs(Path)} may not be used and will
+     * throw an exception.
+     * </p>
+     *
+     * @param outputStream   output stream to write the SVG image to
+     * @param width          width of image, in mm
+     * @param height         height of image, in mm
+     * @param fontFamilyList font family list (comma separated list, CSS syntax)
+     * @throws IOException thrown if the instance cannot be created
+     */
+    public SVGCanvas(OutputStream outputStream, double width, double height, String fontFamilyList) throws IOException {
+        buffer = null;
+        isStreaming = true;
+        stream = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+        writeHeader(width, height, fontFamilyList);
+    }
+
+    private void writeHeader(double width, double height, String fontFamilyList) throws IOException {
+        setupFontMetrics(fontFamilyList);
+
         stream.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
                 + "<!DOCTYPE svg PUBLIC \"-//W3C//DTD SVG 1.1//EN\" \"http://www.w3.org/Graphics/SVG/1.1/DTD/svg11.dtd\">\n"
                 + "<svg width=\"");
-        stream.write(formatNumber(width));
+        writeNumber(width);
         stream.write("mm\" height=\"");
-        stream.write(formatNumber(height));
+        writeNumber(height);
         stream.write("mm\" version=\"1.1\" viewBox=\"0 0 ");
-        stream.write(formatCoordinate(width));
+        writeCoordinate(width);
         stream.write(" ");
-        stream.write(formatCoordinate(height));
+        writeCoordinate(height);
         stream.write("\" xmlns=\"http://www.w3.org/2000/svg\">\n");
         stream.write("<g font-family=\"");
         stream.write(escapeXML(fontMetrics.getFontFamilyList()));
         stream.write("\" transform=\"translate(0 ");
-        stream.write(formatCoordinate(height));
+        writeCoordinate(height);
         stream.write(")\">\n");
         stream.write("<title>Swiss QR Bill</title>\n");
     }
@@ -75,14 +111,20 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         if (stream != null) {
             stream.write("</g>\n");
             stream.write("</svg>\n");
-            stream.close();
+            if (isStreaming) {
+                // the output stream is owned by the caller
+                stream.flush();
+            } else {
+                stream.close();
+            }
             stream = null;
         }
     }
 
     @Override
     public void startPath() throws IOException {
-        path = new StringBuilder();
+        path = pathBuffer;
+        path.setLength(0);
         isFirstMoveInPath = true;
         approxPathLength = 0;
     }
@@ -92,16 +134,16 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         y = -y;
         if (isFirstMoveInPath) {
             path.append("M");
-            path.append(formatCoordinate(x));
+            appendCoordinate(x);
             path.append(",");
-            path.append(formatCoordinate(y));
+            appendCoordinate(y);
             isFirstMoveInPath = false;
         } else {
             addPathNewlines(16);
             path.append("m");
-            path.append(formatCoordinate(x - lastPositionX));
+            appendCoordinate(x - lastPositionX);
             path.append(",");
-            path.append(formatCoordinate(y - lastPositionY));
+            appendCoordinate(y - lastPositionY);
         }
         lastPositionX = x;
         lastPositionY = y;
@@ -113,9 +155,9 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         y = -y;
         addPathNewlines(16);
         path.append("l");
-        path.append(formatCoordinate(x - lastPositionX));
+        appendCoordinate(x - lastPositionX);
         path.append(",");
-        path.append(formatCoordinate(y - lastPositionY));
+        appendCoordinate(y - lastPositionY);
         lastPositionX = x;
         lastPositionY = y;
         approxPathLength += 16;
@@ -128,17 +170,17 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         y = -y;
         addPathNewlines(48);
         path.append("c");
-        path.append(formatCoordinate(x1 - lastPositionX));
+        appendCoordinate(x1 - lastPositionX);
         path.append(",");
-        path.append(formatCoordinate(y1 - lastPositionY));
+        appendCoordinate(y1 - lastPositionY);
         path.append(",");
-        path.append(formatCoordinate(x2 - lastPositionX));
+        appendCoordinate(x2 - lastPositionX);
         path.append(",");
-        path.append(formatCoordinate(y2 - lastPositionY));
+        appendCoordinate(y2 - lastPositionY);
         path.append(",");
-        path.append(formatCoordinate(x - lastPositionX));
+        appendCoordinate(x - lastPositionX);
         path.append(",");
-        path.append(formatCoordinate(y - lastPositionY));
+        appendCoordinate(y - lastPositionY);
         lastPositionX = x;
         lastPositionY = y;
         approxPathLength += 48;
@@ -149,11 +191,11 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         addPathNewlines(40);
         moveTo(x, y + height);
         path.append("h");
-        path.append(formatCoordinate(width));
+        appendCoordinate(width);
         path.append("v");
-        path.append(formatCoordinate(height));
+        appendCoordinate(height);
         path.append("h");
-        path.append(formatCoordinate(-width));
+        appendCoordinate(-width);
         path.append("z");
         approxPathLength += 24;
     }
@@ -179,7 +221,7 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         if (!smoothing)
             stream.write("\" shape-rendering=\"crispEdges");
         stream.write("\"\nd=\"");
-        stream.append(path);
+        write(path);
         stream.write("\"/>\n");
         path = null;
         isFirstMoveInPath = true;
@@ -191,19 +233,19 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         stream.write(formatColor(color));
         if (strokeWidth != 1) {
             stream.write("\" stroke-width=\"");
-            stream.write(formatNumber(strokeWidth));
+            writeNumber(strokeWidth);
         }
         if (lineStyle == LineStyle.Dashed) {
             stream.write("\" stroke-dasharray=\"");
-            stream.write(formatNumber(strokeWidth * 4));
+            writeNumber(strokeWidth * 4);
         } else if (lineStyle == LineStyle.Dotted) {
             stream.write("\" stroke-linecap=\"round\" stroke-dasharray=\"0 ");
-            stream.write(formatNumber(strokeWidth * 3));
+            writeNumber(strokeWidth * 3);
         }
         if (!smoothing)
             stream.write("\" shape-rendering=\"crispEdges");
         stream.write("\" fill=\"none\"\nd=\"");
-        stream.append(path);
+        write(path);
         stream.write("\"/>\n");
         path = null;
         isFirstMoveInPath = true;
@@ -213,11 +255,11 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
     public void putText(String text, double x, double y, int fontSize, boolean isBold) throws IOException {
         y = -y;
         stream.write("<text x=\"");
-        stream.write(formatCoordinate(x));
+        writeCoordinate(x);
         stream.write("\" y=\"");
-        stream.write(formatCoordinate(y));
+        writeCoordinate(y);
         stream.write("\" font-size=\"");
-        stream.write(formatNumber(fontSize));
+        writeNumber(fontSize);
         if (isBold)
             stream.write("\" font-weight=\"bold");
         stream.write("\">");
@@ -233,19 +275,19 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         }
         if (translateX != 0 || translateY != 0 || scaleX != 1 || scaleY != 1) {
             stream.write("<g transform=\"translate(");
-            stream.write(formatCoordinate(translateX));
+            writeCoordinate(translateX);
             stream.write(" ");
-            stream.write(formatCoordinate(-translateY));
+            writeCoordinate(-translateY);
             if (rotate != 0) {
                 stream.write(") rotate(");
-                stream.write(angleFormat.format(-rotate / Math.PI * 180));
+                writeAngle(-rotate / Math.PI * 180);
             }
             if (scaleX != 1 || scaleY != 1) {
                 stream.write(") scale(");
-                stream.write(formatNumber(scaleX));
+                writeNumber(scaleX);
                 if (scaleX != scaleY) {
                     stream.write(" ");
-                    stream.write(formatNumber(scaleY));
+                    writeNumber(scaleY);
                 }
             }
             stream.write(")\">\n");
@@ -253,42 +295,87 @@ public class SVGCanvas extends AbstractCanvas implements ByteArrayResult {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method may not be called if this instance was created
+     * by {@link #SVGCanvas(OutputStream, double, double, String)}.
+     * </p>
+     */
     @Override
     public byte[] toByteArray() throws IOException {
+        checkNotStreaming("toByteArray()");
         close();
         return buffer.toByteArray();
     }
 
     /**
      * Writes the resulting SVG image to the specified output stream.
+     * <p>
+     * This method may not be called if this instance was created
+     * by {@link #SVGCanvas(OutputStream, double, double, String)}.
+     * </p>
      *
      * @param os the output stream
      * @throws IOException thrown if the image cannot be written
      */
+    @Override
     public void writeTo(OutputStream os) throws IOException {
+        checkNotStreaming("writeTo()");
         close();
         buffer.writeTo(os);
     }
 
     /**
      * Saves the resulting SVG image to the specified path.
+     * <p>
+     * This method may not be called if this instance was created
+     * by {@link #SVGCanvas(OutputStream, double, double, String)}.
+     * </p>
      *
      * @param path the path to write to
      * @throws IOException thrown if the image cannot be written
      */
     public void saveAs(Path path) throws IOException {
+        checkNotStreaming("saveAs()");
         close();
         try (OutputStream os = Files.newOutputStream(path)) {
             buffer.writeTo(os);
         }
     }
 
-    private String formatNumber(double value) {
-        return numberFormat.format(value);
+    private void checkNotStreaming(String method) {
+        if (isStreaming)
+            throw new IllegalStateException(method + " may not be called if the SVG image is written to an output stream while drawing.");
+    }
+
+    private void appendCoordinate(double value) {
+        FixedPointFormatter.append(path, value * MM_TO_PT, 3);
+    }
+
+    private void writeNumber(double value) throws IOException {
+        numberBuffer.setLength(0);
+        FixedPointFormatter.append(numberBuffer, value, 3);
+        write(numberBuffer);
+    }
+
+    private void writeCoordinate(double value) throws IOException {
+        writeNumber(value * MM_TO_PT);
+    }
+
+    private void writeAngle(double value) throws IOException {
+        numberBuffer.setLength(0);
+        FixedPointFormatter.append(numberBuffer, value, 5);
+        write(numberBuffer);
     }
 
-    private String formatCoordinate(double value) {
-        return numberFormat.format(value * MM_TO_PT);
+    // Writes the characters without creating an intermediate string (as Writer.append() would do)
+    private void write(StringBuilder sb) throws IOException {
+        int length = sb.length();
+        if (length > writeBuffer.length)
+            writeBuffer = new char[Math.max(length, 2 * writeBuffer.length)];
+        sb.getChars(0, length, writeBuffer, 0);
+        stream.write(writeBuffer, 0, length);
     }
 
     private static String formatColor(int color) {
@@ -0,0 +1,203 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.canvas.ByteArrayResult;
+import net.codecrete.qrbill.canvas.Canvas;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Generates QR bills in batches.
+ * <p>
+ * Each bill passes through the stages validation, QR code text encoding,
+ * QR code matrix encoding and graphics output. Each stage is scheduled as a
+ * separate task on the executor. The number of bills in progress is limited
+ * so that large batches can be processed with bounded memory.
+ * </p>
+ */
+class BatchGenerator {
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final Executor executor;
+    private final int maxPending;
+    private final boolean preserveOrder;
+    private volatile boolean isCancelled;
+
+    BatchGenerator(Executor executor, int maxPending, boolean preserveOrder) {
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.preserveOrder = preserveOrder;
+    }
+
+    static ThreadFactory threadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "qrbill-batch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Generates the bills and passes the results to the consumer.
+     * <p>
+     * The consumer is called on the calling thread.
+     * </p>
+     * <p>
+     * If the consumer throws an exception or the executor rejects a task, no further
+     * bills are submitted and the bills still in progress are cancelled before the
+     * exception is rethrown. Stages already running are completed, but the remaining
+     * stages of these bills are skipped.
+     * </p>
+     *
+     * @param bills          bill data
+     * @param resultConsumer consumer of the results
+     */
+    void generate(Iterable<Bill> bills, Consumer<BatchResult> resultConsumer) {
+        BlockingQueue<BatchResult> completed = new LinkedBlockingQueue<>();
+        Map<Integer, BatchResult> reorderBuffer = new HashMap<>();
+        Iterator<Bill> iterator = bills.iterator();
+        int numSubmitted = 0;
+        int numDelivered = 0;
+
+        try {
+            while (true) {
+                // fill pipeline
+                while (numSubmitted - numDelivered < maxPending && iterator.hasNext()) {
+                    submit(numSubmitted, iterator.next(), completed);
+                    numSubmitted += 1;
+                }
+
+                if (numDelivered == numSubmitted)
+                    break;
+
+                BatchResult result = takeResult(completed);
+                if (!preserveOrder) {
+                    resultConsumer.accept(result);
+                    numDelivered += 1;
+
+                } else {
+                    reorderBuffer.put(result.getIndex(), result);
+                    BatchResult next;
+                    while ((next = reorderBuffer.remove(numDelivered)) != null) {
+                        resultConsumer.accept(next);
+                        numDelivered += 1;
+                    }
+                }
+            }
+
+        } catch (RuntimeException | Error e) {
+            isCancelled = true;
+            throw e;
+        }
+    }
+
+    private void submit(int index, Bill bill, BlockingQueue<BatchResult> completed) {
+        Job job = new Job(index, bill);
+        CompletableFuture.supplyAsync(() -> runStage(BatchGenerator::validate, job), executor)
+                .thenApplyAsync(j -> runStage(BatchGenerator::createText, j), executor)
+                .thenApplyAsync(j -> runStage(BatchGenerator::encodeQRCode, j), executor)
+                .thenApplyAsync(j -> runStage(BatchGenerator::generateOutput, j), executor)
+                .whenComplete((j, ex) -> completed.add(job.toResult(ex)));
+    }
+
+    // Runs the stage unless the batch has been aborted; an exception skips the remaining stages
+    private Job runStage(UnaryOperator<Job> stage, Job job) {
+        if (isCancelled)
+            throw new CancellationException("Batch generation has been aborted");
+        return stage.apply(job);
+    }
+
+    private static BatchResult takeResult(BlockingQueue<BatchResult> completed) {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QRBillGenerationException("Batch generation has been interrupted", e);
+        }
+    }
+
+    private static Job validate(Job job) {
+        job.validationResult = Validator.validateReusingCleanBill(job.bill);
+        if (job.validationResult.hasErrors())
+            job.exception = new QRBillValidationError(job.validationResult);
+        return job;
+    }
+
+    private static Job createText(Job job) {
+        if (job.exception == null)
+            job.qrCodeText = QRCodeText.create(job.validationResult.getCleanedBill());
+        return job;
+    }
+
+    private static Job encodeQRCode(Job job) {
+        if (job.exception == null) {
+            job.qrCode = new QRCode(job.qrCodeText);
+            job.qrCode.encode();
+        }
+        return job;
+    }
+
+    private static Job generateOutput(Job job) {
+        if (job.exception != null)
+            return job;
+
+        Bill cleanedBill = job.validationResult.getCleanedBill();
+        try (Canvas canvas = QRBill.createCanvas(cleanedBill)) {
+            QRBill.drawCleanedBill(cleanedBill, job.qrCode, canvas);
+            job.output = ((ByteArrayResult) canvas).toByteArray();
+        } catch (IOException e) {
+            job.exception = new QRBillGenerationException(e);
+        }
+        return job;
+    }
+
+    /**
+     * State of a single bill passing through the stages.
+     * <p>
+     * Each stage runs after the previous one has completed. So no synchronization is needed.
+     * </p>
+     */
+    private static class Job {
+        final int index;
+        final Bill bill;
+        ValidationResult validationResult;
+        String qrCodeText;
+        QRCode qrCode;
+        byte[] output;
+        RuntimeException exception;
+
+        Job(int index, Bill bill) {
+            this.index = index;
+            this.bill = bill;
+        }
+
+        BatchResult toResult(Throwable stageException) {
+            RuntimeException ex = exception;
+            if (stageException != null) {
+                Throwable cause = stageException instanceof CompletionException && stageException.getCause() != null
+                        ? stageException.getCause() : stageException;
+                ex = cause instanceof RuntimeException ? (RuntimeException) cause : new QRBillGenerationException(cause);
+            }
+            return new BatchResult(index, bill, ex == null ? output : null, validationResult, ex);
+        }
+    }
+}
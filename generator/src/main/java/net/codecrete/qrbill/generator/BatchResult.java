@@ -0,0 +1,101 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+/**
+ * Result of generating a single QR bill as part of a batch.
+ * <p>
+ * If the bill was successfully generated, the result contains the generated
+ * output. Otherwise, it contains the validation result with the errors or
+ * the exception that caused the generation to fail.
+ * </p>
+ *
+ * @see QRBill#generateAll(Iterable, int, boolean, java.util.function.Consumer)
+ */
+public class BatchResult {
+
+    private final int index;
+    private final Bill bill;
+    private final byte[] output;
+    private final ValidationResult validationResult;
+    private final RuntimeException exception;
+
+    BatchResult(int index, Bill bill, byte[] output, ValidationResult validationResult, RuntimeException exception) {
+        this.index = index;
+        this.bill = bill;
+        this.output = output;
+        this.validationResult = validationResult;
+        this.exception = exception;
+    }
+
+    /**
+     * Gets the index of the bill within the batch.
+     * <p>
+     * The index is the zero-based position of the bill in the iterable
+     * passed to the batch generation.
+     * </p>
+     *
+     * @return the index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the bill data this result refers to.
+     *
+     * @return the bill data (as passed to the batch generation)
+     */
+    public Bill getBill() {
+        return bill;
+    }
+
+    /**
+     * Gets if the bill was successfully generated.
+     *
+     * @return {@code true} if the bill was generated, {@code false} if it failed
+     */
+    public boolean isSuccessful() {
+        return output != null;
+    }
+
+    /**
+     * Gets the generated QR bill.
+     *
+     * @return the generated QR bill (as a byte array encoded in the specified graphics format),
+     * or {@code null} if the generation failed
+     */
+    public byte[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Gets the validation result.
+     * <p>
+     * If the bill data is valid, the validation result might still contain warnings.
+     * If the bill data was already clean, the cleaned bill of the validation result
+     * is the original bill instance.
+     * </p>
+     *
+     * @return the validation result, or {@code null} if the validation did not complete
+     */
+    public ValidationResult getValidationResult() {
+        return validationResult;
+    }
+
+    /**
+     * Gets the exception that caused the generation to fail.
+     * <p>
+     * If the bill data is invalid, the exception is a {@link QRBillValidationError}.
+     * </p>
+     *
+     * @return the exception, or {@code null} if the bill was generated successfully
+     */
+    public RuntimeException getException() {
+        return exception;
+    }
+}
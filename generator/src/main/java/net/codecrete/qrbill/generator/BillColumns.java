@@ -0,0 +1,400 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import java.math.BigDecimal;
+
+/**
+ * Bill data of many bills in column-oriented form.
+ * <p>
+ * Each field is provided as an array (column) with one element per bill (row).
+ * All arrays must have the number of rows specified when creating the instance.
+ * Columns that are not set are treated as if all their values were {@code null},
+ * except for the currencies, which default to "CHF" (as in {@link Bill}).
+ * The values are interpreted in the same way as the corresponding properties
+ * of {@link Bill} and {@link Address}.
+ * </p>
+ * <p>
+ * Addresses are structured addresses (see {@link Address.Type#STRUCTURED}).
+ * </p>
+ * <p>
+ * The arrays are not copied. They must not be modified while the bills are validated.
+ * </p>
+ *
+ * @see QRBill#validateAll(BillColumns)
+ */
+public class BillColumns {
+
+    private final int numRows;
+    private SPSCharacterSet characterSet = SPSCharacterSet.LATIN_1_SUBSET;
+    private String[] accounts;
+    private BigDecimal[] amounts;
+    private String[] currencies;
+    private String[] references;
+    private String[] unstructuredMessages;
+    private String[] billInformation;
+    private final AddressColumns creditors;
+    private final AddressColumns debtors;
+
+    /**
+     * Creates a new instance for the specified number of bills.
+     *
+     * @param numRows number of bills (rows)
+     */
+    public BillColumns(int numRows) {
+        if (numRows < 0)
+            throw new IllegalArgumentException("numRows must not be negative");
+        this.numRows = numRows;
+        creditors = new AddressColumns(numRows);
+        debtors = new AddressColumns(numRows);
+    }
+
+    /**
+     * Gets the number of bills (rows).
+     *
+     * @return the number of rows
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Gets the character set used for all bills.
+     *
+     * @return the character set
+     */
+    public SPSCharacterSet getCharacterSet() {
+        return characterSet;
+    }
+
+    /**
+     * Sets the character set used for all bills.
+     * <p>
+     * The default is {@link SPSCharacterSet#LATIN_1_SUBSET}.
+     * </p>
+     *
+     * @param characterSet the character set
+     */
+    public void setCharacterSet(SPSCharacterSet characterSet) {
+        this.characterSet = characterSet;
+    }
+
+    /**
+     * Gets the creditor's account numbers.
+     *
+     * @return the account numbers (IBANs), or {@code null}
+     */
+    public String[] getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Sets the creditor's account numbers.
+     *
+     * @param accounts the account numbers (IBANs)
+     * @see Bill#setAccount(String)
+     */
+    public void setAccounts(String[] accounts) {
+        this.accounts = checkedColumn(accounts, numRows);
+    }
+
+    /**
+     * Gets the payment amounts.
+     *
+     * @return the amounts, or {@code null}
+     */
+    public BigDecimal[] getAmounts() {
+        return amounts;
+    }
+
+    /**
+     * Sets the payment amounts.
+     * <p>
+     * {@code null} values indicate bills without amount.
+     * </p>
+     *
+     * @param amounts the amounts
+     * @see Bill#setAmount(BigDecimal)
+     */
+    public void setAmounts(BigDecimal[] amounts) {
+        this.amounts = checkedColumn(amounts, numRows);
+    }
+
+    /**
+     * Gets the payment currencies.
+     *
+     * @return the currency codes, or {@code null} if all bills use CHF
+     */
+    public String[] getCurrencies() {
+        return currencies;
+    }
+
+    /**
+     * Sets the payment currencies.
+     *
+     * @param currencies the currency codes ("CHF" or "EUR")
+     * @see Bill#setCurrency(String)
+     */
+    public void setCurrencies(String[] currencies) {
+        this.currencies = checkedColumn(currencies, numRows);
+    }
+
+    /**
+     * Gets the payment references.
+     *
+     * @return the references, or {@code null}
+     */
+    public String[] getReferences() {
+        return references;
+    }
+
+    /**
+     * Sets the payment references.
+     * <p>
+     * The reference type is derived from each reference.
+     * </p>
+     *
+     * @param references the references
+     * @see Bill#setReference(String)
+     */
+    public void setReferences(String[] references) {
+        this.references = checkedColumn(references, numRows);
+    }
+
+    /**
+     * Gets the unstructured messages.
+     *
+     * @return the unstructured messages, or {@code null}
+     */
+    public String[] getUnstructuredMessages() {
+        return unstructuredMessages;
+    }
+
+    /**
+     * Sets the unstructured messages.
+     *
+     * @param unstructuredMessages the unstructured messages
+     * @see Bill#setUnstructuredMessage(String)
+     */
+    public void setUnstructuredMessages(String[] unstructuredMessages) {
+        this.unstructuredMessages = checkedColumn(unstructuredMessages, numRows);
+    }
+
+    /**
+     * Gets the bill information.
+     *
+     * @return the bill information, or {@code null}
+     */
+    public String[] getBillInformation() {
+        return billInformation;
+    }
+
+    /**
+     * Sets the bill information.
+     *
+     * @param billInformation the bill information
+     * @see Bill#setBillInformation(String)
+     */
+    public void setBillInformation(String[] billInformation) {
+        this.billInformation = checkedColumn(billInformation, numRows);
+    }
+
+    /**
+     * Gets the creditor addresses.
+     *
+     * @return the creditor address columns
+     */
+    public AddressColumns getCreditors() {
+        return creditors;
+    }
+
+    /**
+     * Gets the debtor addresses.
+     * <p>
+     * Rows without any debtor field indicate bills without debtor.
+     * </p>
+     *
+     * @return the debtor address columns
+     */
+    public AddressColumns getDebtors() {
+        return debtors;
+    }
+
+    static <T> T[] checkedColumn(T[] column, int numRows) {
+        if (column != null && column.length != numRows)
+            throw new IllegalArgumentException("Column has " + column.length + " rows instead of " + numRows);
+        return column;
+    }
+
+    static <T> T valueAt(T[] column, int row) {
+        return column != null ? column[row] : null;
+    }
+
+    /**
+     * Structured addresses in column-oriented form.
+     */
+    public static class AddressColumns {
+
+        private final int numRows;
+        private String[] names;
+        private String[] streets;
+        private String[] houseNumbers;
+        private String[] postalCodes;
+        private String[] towns;
+        private String[] countryCodes;
+
+        AddressColumns(int numRows) {
+            this.numRows = numRows;
+        }
+
+        /**
+         * Gets the names.
+         *
+         * @return the names, or {@code null}
+         */
+        public String[] getNames() {
+            return names;
+        }
+
+        /**
+         * Sets the names.
+         *
+         * @param names the names
+         * @see Address#setName(String)
+         */
+        public void setNames(String[] names) {
+            this.names = checkedColumn(names, numRows);
+        }
+
+        /**
+         * Gets the streets.
+         *
+         * @return the streets, or {@code null}
+         */
+        public String[] getStreets() {
+            return streets;
+        }
+
+        /**
+         * Sets the streets.
+         *
+         * @param streets the streets
+         * @see Address#setStreet(String)
+         */
+        public void setStreets(String[] streets) {
+            this.streets = checkedColumn(streets, numRows);
+        }
+
+        /**
+         * Gets the house numbers.
+         *
+         * @return the house numbers, or {@code null}
+         */
+        public String[] getHouseNumbers() {
+            return houseNumbers;
+        }
+
+        /**
+         * Sets the house numbers.
+         *
+         * @param houseNumbers the house numbers
+         * @see Address#setHouseNo(String)
+         */
+        public void setHouseNumbers(String[] houseNumbers) {
+            this.houseNumbers = checkedColumn(houseNumbers, numRows);
+        }
+
+        /**
+         * Gets the postal codes.
+         *
+         * @return the postal codes, or {@code null}
+         */
+        public String[] getPostalCodes() {
+            return postalCodes;
+        }
+
+        /**
+         * Sets the postal codes.
+         *
+         * @param postalCodes the postal codes
+         * @see Address#setPostalCode(String)
+         */
+        public void setPostalCodes(String[] postalCodes) {
+            this.postalCodes = checkedColumn(postalCodes, numRows);
+        }
+
+        /**
+         * Gets the towns.
+         *
+         * @return the towns, or {@code null}
+         */
+        public String[] getTowns() {
+            return towns;
+        }
+
+        /**
+         * Sets the towns.
+         *
+         * @param towns the towns
+         * @see Address#setTown(String)
+         */
+        public void setTowns(String[] towns) {
+            this.towns = checkedColumn(towns, numRows);
+        }
+
+        /**
+         * Gets the country codes.
+         *
+         * @return the ISO country codes, or {@code null}
+         */
+        public String[] getCountryCodes() {
+            return countryCodes;
+        }
+
+        /**
+         * Sets the country codes.
+         *
+         * @param countryCodes the ISO country codes
+         * @see Address#setCountryCode(String)
+         */
+        public void setCountryCodes(String[] countryCodes) {
+            this.countryCodes = checkedColumn(countryCodes, numRows);
+        }
+
+        /**
+         * Copies the address of the specified row into the address instance.
+         *
+         * @param row     row index
+         * @param address address instance to fill (will be cleared first)
+         * @return {@code true} if any address field is set, {@code false} if all fields are {@code null}
+         */
+        boolean copyTo(int row, Address address) {
+            address.clear();
+            String name = valueAt(names, row);
+            String street = valueAt(streets, row);
+            String houseNo = valueAt(houseNumbers, row);
+            String postalCode = valueAt(postalCodes, row);
+            String town = valueAt(towns, row);
+            String countryCode = valueAt(countryCodes, row);
+
+            // only set structured fields with a value (setting a field determines the address type)
+            address.setName(name);
+            if (street != null)
+                address.setStreet(street);
+            if (houseNo != null)
+                address.setHouseNo(houseNo);
+            if (postalCode != null)
+                address.setPostalCode(postalCode);
+            if (town != null)
+                address.setTown(town);
+            address.setCountryCode(countryCode);
+
+            return name != null || street != null || houseNo != null || postalCode != null
+                    || town != null || countryCode != null;
+        }
+    }
+}
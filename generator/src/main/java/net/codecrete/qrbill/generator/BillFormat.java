@@ -34,6 +34,8 @@ public class BillFormat implements Serializable {
     private GraphicsFormat graphicsFormat = GraphicsFormat.SVG;
     /** Resolution, in dpi */
     private int resolution = 144;
+    /** Indicates if PNG images are rendered without AWT */
+    private boolean isHeadlessRendering;
     /** Left margin, in mm */
     private double marginLeft = DEFAULT_MARGIN_WIDTH;
     /** Right margin, in mm */
@@ -60,6 +62,7 @@ public class BillFormat implements Serializable {
         fontFamily = format.fontFamily;
         graphicsFormat = format.graphicsFormat;
         resolution = format.resolution;
+        isHeadlessRendering = format.isHeadlessRendering;
         marginLeft = format.marginLeft;
         marginRight = format.marginRight;
         localCountryCode = format.localCountryCode;
@@ -212,6 +215,43 @@ public class BillFormat implements Serializable {
         this.resolution = resolution;
     }
 
+    /**
+     * Gets whether PNG images are rendered without AWT.
+     * <p>
+     * Defaults to {@code false}.
+     * </p>
+     *
+     * @return {@code true} if PNG images are rendered without AWT, {@code false} if AWT is used
+     * @see #setHeadlessRendering(boolean)
+     */
+    public boolean isHeadlessRendering() {
+        return isHeadlessRendering;
+    }
+
+    /**
+     * Sets whether PNG images are rendered without AWT.
+     * <p>
+     * By default, PNG images are rendered with AWT ({@code java.awt.Graphics2D}) and the font family
+     * set with {@link #setFontFamily(String)} is looked up in the installed system fonts. If headless
+     * rendering is enabled, a built-in rasterizer and the bundled Liberation Sans font are used instead
+     * and the font family is ignored. It works in environments without AWT or without system fonts
+     * and avoids the initialization time of AWT. The images are very similar but not identical.
+     * </p>
+     * <p>
+     * The setting only applies to the graphics format {@link GraphicsFormat#PNG}.
+     * PNG images of the QR code only ({@link OutputSize#QR_CODE_ONLY} and
+     * {@link OutputSize#QR_CODE_WITH_QUIET_ZONE}) never use AWT.
+     * </p>
+     * <p>
+     * Defaults to {@code false}.
+     * </p>
+     *
+     * @param isHeadlessRendering {@code true} to render PNG images without AWT, {@code false} to use AWT
+     */
+    public void setHeadlessRendering(boolean isHeadlessRendering) {
+        this.isHeadlessRendering = isHeadlessRendering;
+    }
+
     /**
      * Gets the left margin width (from edge of paper to start of text).
      *
@@ -330,6 +370,7 @@ public class BillFormat implements Serializable {
                 Objects.equals(fontFamily, that.fontFamily) &&
                 graphicsFormat == that.graphicsFormat &&
                 resolution == that.resolution &&
+                isHeadlessRendering == that.isHeadlessRendering &&
                 marginLeft == that.marginLeft &&
                 marginRight == that.marginRight &&
                 Objects.equals(localCountryCode, that.localCountryCode);
@@ -340,8 +381,8 @@ public class BillFormat implements Serializable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(outputSize, language, separatorType, fontFamily, graphicsFormat, resolution, marginLeft,
-                marginLeft, localCountryCode);
+        return Objects.hash(outputSize, language, separatorType, fontFamily, graphicsFormat, resolution, isHeadlessRendering,
+                marginLeft, marginLeft, localCountryCode);
     }
 
     /**
@@ -356,6 +397,7 @@ public class BillFormat implements Serializable {
                 ", fontFamily='" + fontFamily + '\'' +
                 ", graphicsFormat=" + graphicsFormat +
                 ", resolution=" + resolution +
+                ", isHeadlessRendering=" + isHeadlessRendering +
                 ", marginLeft=" + marginLeft +
                 ", marginRight=" + marginRight +
                 ", localCountryCode='" + localCountryCode + '\'' +
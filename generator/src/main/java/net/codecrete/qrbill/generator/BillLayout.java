@@ -7,8 +7,8 @@
 package net.codecrete.qrbill.generator;
 
 import net.codecrete.qrbill.canvas.Canvas;
+import net.codecrete.qrbill.generator.MultilingualText.TextKey;
 
-import java.awt.geom.AffineTransform;
 import java.io.IOException;
 
 /**
@@ -16,28 +16,36 @@ import java.io.IOException;
  */
 class BillLayout {
 
-    private static final double PT_TO_MM = 25.4 / 72;
+    static final double PT_TO_MM = 25.4 / 72;
     private static final double MM_TO_PT = 72 / 25.4;
-    private static final int FONT_SIZE_TITLE = 11; // pt
-    private static final double SLIP_WIDTH = 210; // mm
-    private static final double SLIP_HEIGHT = 105; // mm
-    private static final double MARGIN = 5; // mm
-    private static final double RECEIPT_WIDTH = 62; // mm
-    private static final double RECEIPT_TEXT_WIDTH = 52; // mm
+    static final int FONT_SIZE_TITLE = 11; // pt
+    static final int PP_LABEL_PREF_FONT_SIZE = 8; // pt
+    static final int PP_TEXT_PREF_FONT_SIZE = 10; // pt
+    static final int PP_TEXT_MIN_FONT_SIZE = 8; // pt
+    static final int RC_LABEL_FONT_SIZE = 6; // pt
+    private static final int RC_TEXT_FONT_SIZE = 8; // pt
+    static final int FURTHER_INFO_FONT_SIZE = 7; // pt
+    static final double SLIP_WIDTH = 210; // mm
+    static final double SLIP_HEIGHT = 105; // mm
+    static final double MARGIN = 5; // mm
+    static final double RECEIPT_WIDTH = 62; // mm
+    static final double RECEIPT_TEXT_WIDTH = 52; // mm
     private static final double PAYMENT_PART_WIDTH = 148; // mm
-    private static final double PP_AMOUNT_SECTION_WIDTH = 46; // mm
+    static final double PP_AMOUNT_SECTION_WIDTH = 46; // mm
     private static final double PP_INFO_SECTION_WIDTH = 87; // mm
-    private static final double AMOUNT_SECTION_TOP = 37; // mm (from bottom)
+    static final double AMOUNT_SECTION_TOP = 37; // mm (from bottom)
     private static final double BOX_TOP_PADDING = 2 * PT_TO_MM; // mm
-    private static final double DEBTOR_BOX_WIDTH_PP = 65; // mm
-    private static final double DEBTOR_BOX_HEIGHT_PP = 25; // mm
-    private static final double DEBTOR_BOX_WIDTH_RC = 52; // mm
-    private static final double DEBTOR_BOX_HEIGHT_RC = 20; // mm
+    static final double DEBTOR_BOX_WIDTH_PP = 65; // mm
+    static final double DEBTOR_BOX_HEIGHT_PP = 25; // mm
+    static final double DEBTOR_BOX_WIDTH_RC = 52; // mm
+    static final double DEBTOR_BOX_HEIGHT_RC = 20; // mm
+    static final double CORNER_STROKE_WIDTH = 0.75; // pt
 
 
     private final Bill bill;
     private final QRCode qrCode;
     private final Canvas graphics;
+    private final BillLayoutTemplate template;
 
     private final BillTextFormatter formatter;
 
@@ -66,13 +74,18 @@ class BillLayout {
 
 
     BillLayout(Bill bill, Canvas graphics) {
+        this(bill, new QRCode(bill), graphics);
+    }
+
+    BillLayout(Bill bill, QRCode qrCode, Canvas graphics) {
         this.bill = bill;
-        this.qrCode = new QRCode(bill);
+        this.qrCode = qrCode;
         this.graphics = graphics;
+        this.template = BillLayoutTemplate.forLayout(bill.getFormat(), graphics);
         this.formatter = new BillTextFormatter(bill, true);
-        this.additionalLeftMargin = Math.min(Math.max(bill.getFormat().getMarginLeft(), 5.0), 12.0) - MARGIN;
-        this.additionalRightMargin = Math.min(Math.max(bill.getFormat().getMarginRight(), 5.0), 12.0) - MARGIN;
-        this.paymentPartHoriOffset = bill.getFormat().getOutputSize() == OutputSize.PAYMENT_PART_ONLY ? 0 : RECEIPT_WIDTH;
+        this.additionalLeftMargin = template.additionalLeftMargin;
+        this.additionalRightMargin = template.additionalRightMargin;
+        this.paymentPartHoriOffset = template.paymentPartHoriOffset;
     }
 
     void draw() throws IOException {
@@ -81,10 +94,6 @@ class BillLayout {
 
         // payment part
 
-        final int PP_LABEL_PREF_FONT_SIZE = 8; // pt
-        final int PP_TEXT_PREF_FONT_SIZE = 10; // pt
-        final int PP_TEXT_MIN_FONT_SIZE = 8; // pt
-
         labelFontSize = PP_LABEL_PREF_FONT_SIZE;
         textFontSize = PP_TEXT_PREF_FONT_SIZE;
 
@@ -104,11 +113,8 @@ class BillLayout {
 
         // receipt
 
-        final int RC_LABEL_PREF_FONT_SIZE = 6; // pt
-        final int RC_TEXT_PREF_FONT_SIZE = 8; // pt
-
-        labelFontSize = RC_LABEL_PREF_FONT_SIZE;
-        textFontSize = RC_TEXT_PREF_FONT_SIZE;
+        labelFontSize = RC_LABEL_FONT_SIZE;
+        textFontSize = RC_TEXT_FONT_SIZE;
         double receiptTextWidthAdapted = RECEIPT_TEXT_WIDTH - additionalLeftMargin;
         breakLines(receiptTextWidthAdapted);
         isTooTight = computeReceiptSpacing();
@@ -134,8 +140,7 @@ class BillLayout {
 
         // title section
         graphics.setTransformation(paymentPartHoriOffset + MARGIN, 0, 0, 1, 1);
-        yPos = SLIP_HEIGHT - MARGIN - graphics.getAscender(FONT_SIZE_TITLE);
-        graphics.putText(getText(MultilingualText.KEY_PAYMENT_PART), 0, yPos, FONT_SIZE_TITLE, true);
+        graphics.putText(template.getLabel(TextKey.PAYMENT_PART), 0, template.titleY, FONT_SIZE_TITLE, true);
 
         // Swiss QR code section
         qrCode.draw(graphics, paymentPartHoriOffset + MARGIN, QR_CODE_BOTTOM);
@@ -153,14 +158,12 @@ class BillLayout {
     private void drawPaymentPartAmountSection() throws IOException {
 
         final double CURRENCY_WIDTH_PP = 15; // mm
-        final double AMOUNT_BOX_WIDTH_PP = 40; // mm
-        final double AMOUNT_BOX_HEIGHT_PP = 15; // mm
 
         graphics.setTransformation(paymentPartHoriOffset + MARGIN, 0, 0, 1, 1);
 
         // currency
         double y = AMOUNT_SECTION_TOP - labelAscender;
-        String label = getText(MultilingualText.KEY_CURRENCY);
+        String label = getText(TextKey.CURRENCY);
         graphics.putText(label, 0, y, labelFontSize, true);
 
         y -= (textFontSize + 3) * PT_TO_MM;
@@ -168,15 +171,14 @@ class BillLayout {
 
         // amount
         y = AMOUNT_SECTION_TOP - labelAscender;
-        label = getText(MultilingualText.KEY_AMOUNT);
+        label = getText(TextKey.AMOUNT);
         graphics.putText(label, CURRENCY_WIDTH_PP, y, labelFontSize, true);
 
         y -= (textFontSize + 3) * PT_TO_MM;
         if (amount != null) {
             graphics.putText(amount, CURRENCY_WIDTH_PP, y, textFontSize, false);
         } else {
-            y -= -textAscender + AMOUNT_BOX_HEIGHT_PP;
-            drawCorners(PP_AMOUNT_SECTION_WIDTH + MARGIN - AMOUNT_BOX_WIDTH_PP, y, AMOUNT_BOX_WIDTH_PP, AMOUNT_BOX_HEIGHT_PP);
+            drawCorners(template.getPaymentPartAmountBoxCorners(textFontSize), 0);
         }
     }
 
@@ -186,47 +188,45 @@ class BillLayout {
         yPos = SLIP_HEIGHT - MARGIN - labelAscender;
 
         // account and creditor
-        drawLabelAndTextLines(MultilingualText.KEY_ACCOUNT_PAYABLE_TO, accountPayableToLines);
+        drawLabelAndTextLines(TextKey.ACCOUNT_PAYABLE_TO, accountPayableToLines);
 
         // reference
         if (reference != null)
-            drawLabelAndText(MultilingualText.KEY_REFERENCE, reference);
+            drawLabelAndText(TextKey.REFERENCE, reference);
 
         // additional information
         if (additionalInfo != null)
-            drawLabelAndTextLines(MultilingualText.KEY_ADDITIONAL_INFORMATION, additionalInfoLines);
+            drawLabelAndTextLines(TextKey.ADDITIONAL_INFORMATION, additionalInfoLines);
 
         // payable by
         if (payableBy != null) {
-            drawLabelAndTextLines(MultilingualText.KEY_PAYABLE_BY, payableByLines);
+            drawLabelAndTextLines(TextKey.PAYABLE_BY, payableByLines);
         } else {
-            drawLabel(MultilingualText.KEY_PAYABLE_BY_NAME_ADDRESS);
+            drawLabel(TextKey.PAYABLE_BY_NAME_ADDRESS);
             yPos -= -textAscender + BOX_TOP_PADDING;
             yPos -= DEBTOR_BOX_HEIGHT_PP;
-            drawCorners(0, yPos, DEBTOR_BOX_WIDTH_PP, DEBTOR_BOX_HEIGHT_PP);
+            drawCorners(template.paymentPartDebtorBoxCorners, yPos);
         }
     }
 
     private void drawFurtherInformationSection() throws IOException {
 
-        final int FONT_SIZE = 7;
         final int LINE_SPACING = 8;
-        final double FURTHER_INFORMATION_SECTION_TOP = 15; // mm
 
         if (bill.getAlternativeSchemes() == null || bill.getAlternativeSchemes().length == 0)
             return;
 
         graphics.setTransformation(paymentPartHoriOffset + MARGIN, 0, 0, 1, 1);
-        double y = FURTHER_INFORMATION_SECTION_TOP - graphics.getAscender(FONT_SIZE);
+        double y = template.furtherInformationY;
         double maxWidth = PAYMENT_PART_WIDTH - 2 * MARGIN - additionalRightMargin;
 
         for (AlternativeScheme scheme : bill.getAlternativeSchemes()) {
             String boldText = String.format("%s: ", scheme.getName());
-            double boldTextWidth = graphics.getTextWidth(boldText, FONT_SIZE, true);
-            graphics.putText(boldText, 0, y, FONT_SIZE, true);
+            double boldTextWidth = graphics.getTextWidth(boldText, FURTHER_INFO_FONT_SIZE, true);
+            graphics.putText(boldText, 0, y, FURTHER_INFO_FONT_SIZE, true);
 
-            String normalText = truncateText(scheme.getInstruction(), maxWidth - boldTextWidth, FONT_SIZE);
-            graphics.putText(normalText, boldTextWidth, y, FONT_SIZE, false);
+            String normalText = truncateText(scheme.getInstruction(), maxWidth - boldTextWidth, FURTHER_INFO_FONT_SIZE);
+            graphics.putText(normalText, boldTextWidth, y, FURTHER_INFO_FONT_SIZE, false);
             y -= LINE_SPACING * PT_TO_MM;
         }
     }
@@ -235,8 +235,7 @@ class BillLayout {
 
         // "Receipt" title
         graphics.setTransformation(MARGIN + additionalLeftMargin, 0, 0, 1, 1);
-        yPos = SLIP_HEIGHT - MARGIN - graphics.getAscender(FONT_SIZE_TITLE);
-        graphics.putText(getText(MultilingualText.KEY_RECEIPT), 0, yPos, FONT_SIZE_TITLE, true);
+        graphics.putText(template.getLabel(TextKey.RECEIPT), 0, template.titleY, FONT_SIZE_TITLE, true);
 
         // information section
         drawReceiptInformationSection();
@@ -254,32 +253,30 @@ class BillLayout {
 
         // payable to
         yPos = SLIP_HEIGHT - MARGIN - TITLE_HEIGHT - labelAscender;
-        drawLabelAndTextLines(MultilingualText.KEY_ACCOUNT_PAYABLE_TO, accountPayableToLines);
+        drawLabelAndTextLines(TextKey.ACCOUNT_PAYABLE_TO, accountPayableToLines);
 
         // reference
         if (reference != null)
-            drawLabelAndText(MultilingualText.KEY_REFERENCE, reference);
+            drawLabelAndText(TextKey.REFERENCE, reference);
 
         // payable by
         if (payableBy != null) {
-            drawLabelAndTextLines(MultilingualText.KEY_PAYABLE_BY, payableByLines);
+            drawLabelAndTextLines(TextKey.PAYABLE_BY, payableByLines);
         } else {
-            drawLabel(MultilingualText.KEY_PAYABLE_BY_NAME_ADDRESS);
+            drawLabel(TextKey.PAYABLE_BY_NAME_ADDRESS);
             yPos -= -textAscender + BOX_TOP_PADDING;
             yPos -= DEBTOR_BOX_HEIGHT_RC;
-            drawCorners(0, yPos, DEBTOR_BOX_WIDTH_RC - additionalLeftMargin, DEBTOR_BOX_HEIGHT_RC);
+            drawCorners(template.receiptDebtorBoxCorners, yPos);
         }
     }
 
     private void drawReceiptAmountSection() throws IOException {
 
         final double CURRENCY_WIDTH_RC = 12; // mm
-        final double AMOUNT_BOX_WIDTH_RC = 30; // mm
-        final double AMOUNT_BOX_HEIGHT_RC = 10; // mm
 
         // currency
         double y = AMOUNT_SECTION_TOP - labelAscender;
-        String label = getText(MultilingualText.KEY_CURRENCY);
+        String label = getText(TextKey.CURRENCY);
         graphics.putText(label, 0, y, labelFontSize, true);
 
         y -= (textFontSize + 3) * PT_TO_MM;
@@ -287,27 +284,21 @@ class BillLayout {
 
         // amount
         y = AMOUNT_SECTION_TOP - labelAscender;
-        label = getText(MultilingualText.KEY_AMOUNT);
+        label = getText(TextKey.AMOUNT);
         graphics.putText(label, CURRENCY_WIDTH_RC, y, labelFontSize, true);
 
         if (amount != null) {
             y -= (textFontSize + 3) * PT_TO_MM;
             graphics.putText(amount, CURRENCY_WIDTH_RC, y, textFontSize, false);
         } else {
-            drawCorners(RECEIPT_TEXT_WIDTH - AMOUNT_BOX_WIDTH_RC,
-                    AMOUNT_SECTION_TOP - AMOUNT_BOX_HEIGHT_RC,
-                    AMOUNT_BOX_WIDTH_RC - additionalLeftMargin, AMOUNT_BOX_HEIGHT_RC);
+            drawCorners(template.receiptAmountBoxCorners, 0);
         }
     }
 
     private void drawReceiptAcceptancePointSection() throws IOException {
 
-        final double ACCEPTANCE_POINT_SECTION_TOP = 23; // mm (from bottom)
-
-        String label = getText(MultilingualText.KEY_ACCEPTANCE_POINT);
-        double y = ACCEPTANCE_POINT_SECTION_TOP - labelAscender;
-        double w = graphics.getTextWidth(label, labelFontSize, true);
-        graphics.putText(label, RECEIPT_TEXT_WIDTH - additionalLeftMargin - w, y, labelFontSize, true);
+        graphics.putText(template.getLabel(TextKey.ACCEPTANCE_POINT),
+                template.acceptancePointX, template.acceptancePointY, labelFontSize, true);
     }
 
     private boolean computePaymentPartSpacing() {
@@ -376,40 +367,17 @@ class BillLayout {
         extraSpacing = (maxHeight - fixedHeight - numTextLines * lineSpacing) / numExtraLines;
         extraSpacing = Math.min(Math.max(extraSpacing, 0), lineSpacing);
 
-        labelAscender = graphics.getAscender(labelFontSize);
-        textAscender = graphics.getAscender(textFontSize);
+        labelAscender = template.getAscender(labelFontSize);
+        textAscender = template.getAscender(textFontSize);
 
         return extraSpacing / lineSpacing < 0.8;
     }
 
     void drawBorder() throws IOException {
-        SeparatorType separatorType = bill.getFormat().getSeparatorType();
-        OutputSize outputSize = bill.getFormat().getOutputSize();
-
-        if (separatorType == SeparatorType.NONE)
+        if (!template.hasSeparator)
             return;
 
-        boolean hasScissors = separatorType == SeparatorType.SOLID_LINE_WITH_SCISSORS
-                || separatorType == SeparatorType.DASHED_LINE_WITH_SCISSORS
-                || separatorType == SeparatorType.DOTTED_LINE_WITH_SCISSORS;
-
-        Canvas.LineStyle lineStyle;
-        double lineWidth;
-        switch (separatorType) {
-            case DASHED_LINE:
-            case DASHED_LINE_WITH_SCISSORS:
-                lineStyle = Canvas.LineStyle.Dashed;
-                lineWidth = 0.6;
-                break;
-            case DOTTED_LINE:
-            case DOTTED_LINE_WITH_SCISSORS:
-                lineStyle = Canvas.LineStyle.Dotted;
-                lineWidth = 0.75;
-                break;
-            default:
-                lineStyle = Canvas.LineStyle.Solid;
-                lineWidth = 0.5;
-        }
+        boolean hasScissors = template.hasScissors;
 
         graphics.setTransformation(0, 0, 0, 1, 1);
 
@@ -423,7 +391,7 @@ class BillLayout {
         graphics.lineTo(RECEIPT_WIDTH, SLIP_HEIGHT);
 
         // draw horizontal separator line between bill and rest of A4 sheet
-        if (outputSize != OutputSize.QR_BILL_ONLY) {
+        if (template.hasHorizontalLine) {
             graphics.moveTo(0, SLIP_HEIGHT);
             if (hasScissors) {
                 graphics.lineTo(5, SLIP_HEIGHT);
@@ -431,32 +399,16 @@ class BillLayout {
             }
             graphics.lineTo(SLIP_WIDTH, SLIP_HEIGHT);
         }
-        graphics.strokePath(lineWidth, 0, lineStyle, false);
-
-        // draw scissors
-        if (hasScissors) {
-            drawScissors(RECEIPT_WIDTH, SLIP_HEIGHT - 5, 0);
-            if (outputSize != OutputSize.QR_BILL_ONLY)
-                drawScissors(5, SLIP_HEIGHT, Math.PI / 2.0);
-        }
-    }
+        graphics.strokePath(template.lineWidth, 0, template.lineStyle, false);
 
-    private void drawScissors(double x, double y, double angle) throws IOException {
-        drawScissorsBlade(x, y, 3, angle, false);
-        drawScissorsBlade(x, y, 3, angle, true);
+        // draw scissors (the blade transformations are part of the template)
+        for (double[] transformation : template.scissorsBladeTransformations)
+            drawScissorsBlade(transformation);
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private void drawScissorsBlade(double x, double y, double size, double angle, boolean mirrored) throws IOException {
-        double scale = size / 476.0;
-        double xOffset = 0.36 * size;
-        double yOffset = -1.05 * size;
-        AffineTransform transform = new AffineTransform();
-        transform.translate(x, y);
-        transform.rotate(angle);
-        transform.translate(mirrored ? xOffset : -xOffset, yOffset);
-        transform.scale(mirrored ? -scale : scale, scale);
-        graphics.setTransformation(transform.getTranslateX(), transform.getTranslateY(), angle, mirrored ? -scale : scale, scale);
+    private void drawScissorsBlade(double[] transformation) throws IOException {
+        graphics.setTransformation(transformation[0], transformation[1], transformation[2],
+                transformation[3], transformation[4]);
 
         graphics.startPath();
         graphics.moveTo(46.48, 126.784);
@@ -481,7 +433,7 @@ class BillLayout {
 
     // Draws a label at (0, yPos) and advances vertically.
     // yPos is taken as the baseline for the text.
-    private void drawLabel(String labelKey) throws IOException {
+    private void drawLabel(TextKey labelKey) throws IOException {
         graphics.putText(getText(labelKey), 0, yPos, labelFontSize, true);
         yPos -= lineSpacing;
     }
@@ -489,7 +441,7 @@ class BillLayout {
     // Draws a label and a single line of text at (0, yPos) and advances vertically.
     // yPos is taken as the baseline for the text.
     @SuppressWarnings("SameParameterValue")
-    private void drawLabelAndText(String labelKey, String text) throws IOException {
+    private void drawLabelAndText(TextKey labelKey, String text) throws IOException {
         drawLabel(labelKey);
         graphics.putText(text, 0, yPos, textFontSize, false);
         yPos -= lineSpacing + extraSpacing;
@@ -497,9 +449,9 @@ class BillLayout {
 
     // Draws a label and a multiple lines of text at (0, yPos) and advances vertically.
     // yPos is taken as the baseline for the text.
-    private void drawLabelAndTextLines(String labelKey, String[] textLines) throws IOException {
+    private void drawLabelAndTextLines(TextKey labelKey, String[] textLines) throws IOException {
         drawLabel(labelKey);
-        double leading = lineSpacing - graphics.getLineHeight(textFontSize);
+        double leading = lineSpacing - template.getLineHeight(textFontSize);
         graphics.putTextLines(textLines, 0, yPos, textFontSize, leading);
         yPos -= textLines.length * lineSpacing + extraSpacing;
     }
@@ -530,30 +482,14 @@ class BillLayout {
     }
 
 
-    private static final double CORNER_STROKE_WIDTH = 0.75;
-
-    private void drawCorners(double x, double y, double width, double height) throws IOException {
-        final double lwh = CORNER_STROKE_WIDTH * 0.5 / 72 * 25.4;
-        final double s = 3;
-
+    // Draws the corner marks of a box, offset vertically by dy
+    private void drawCorners(double[] corners, double dy) throws IOException {
         graphics.startPath();
-
-        graphics.moveTo(x + lwh, y + s);
-        graphics.lineTo(x + lwh, y + lwh);
-        graphics.lineTo(x + s, y + lwh);
-
-        graphics.moveTo(x + width - s, y + lwh);
-        graphics.lineTo(x + width - lwh, y + lwh);
-        graphics.lineTo(x + width - lwh, y + s);
-
-        graphics.moveTo(x + width - lwh, y + height - s);
-        graphics.lineTo(x + width - lwh, y + height - lwh);
-        graphics.lineTo(x + width - s, y + height - lwh);
-
-        graphics.moveTo(x + s, y + height - lwh);
-        graphics.lineTo(x + lwh, y + height - lwh);
-        graphics.lineTo(x + lwh, y + height - s);
-
+        for (int i = 0; i < corners.length; i += 6) {
+            graphics.moveTo(corners[i], corners[i + 1] + dy);
+            graphics.lineTo(corners[i + 2], corners[i + 3] + dy);
+            graphics.lineTo(corners[i + 4], corners[i + 5] + dy);
+        }
         graphics.strokePath(CORNER_STROKE_WIDTH, 0, Canvas.LineStyle.Solid, false);
     }
 
@@ -569,7 +505,7 @@ class BillLayout {
         return lines[0] + "…";
     }
 
-    private String getText(String textKey) {
-        return MultilingualText.getText(textKey, bill.getFormat().getLanguage());
+    private String getText(TextKey textKey) {
+        return template.getLabel(textKey);
     }
 }
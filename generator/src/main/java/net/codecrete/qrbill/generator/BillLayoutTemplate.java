@@ -0,0 +1,333 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.canvas.AbstractCanvas;
+import net.codecrete.qrbill.canvas.Canvas;
+import net.codecrete.qrbill.canvas.FontMetrics;
+import net.codecrete.qrbill.generator.MultilingualText.TextKey;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bill-independent layout values of a QR bill.
+ * <p>
+ * The template contains everything that does not depend on the bill data:
+ * the additional margins, the position of the payment part, the geometry of
+ * the separator lines and scissors, the titles and labels, the font metrics,
+ * the position of the titles and of the fixed labels, and the corner marks
+ * of the empty amount and debtor boxes.
+ * </p>
+ * <p>
+ * Templates are immutable. They are cached process-wide by the relevant bill
+ * format fields, the language and the font family of the canvas. The font
+ * metrics of a canvas are assumed to only depend on its class and font family.
+ * Templates for canvases not derived from {@link AbstractCanvas} are not cached.
+ * </p>
+ */
+class BillLayoutTemplate {
+
+    // Margins are arbitrary numbers; limit the number of cached templates
+    private static final int MAX_CACHED_TEMPLATES = 100;
+
+    private static final double AMOUNT_BOX_WIDTH_PP = 40; // mm
+    private static final double AMOUNT_BOX_HEIGHT_PP = 15; // mm
+    private static final double AMOUNT_BOX_WIDTH_RC = 30; // mm
+    private static final double AMOUNT_BOX_HEIGHT_RC = 10; // mm
+    private static final double ACCEPTANCE_POINT_SECTION_TOP = 23; // mm (from bottom)
+    private static final double FURTHER_INFORMATION_SECTION_TOP = 15; // mm (from bottom)
+
+    private static final Map<Key, BillLayoutTemplate> cache = new ConcurrentHashMap<>();
+
+    final double additionalLeftMargin;
+    final double additionalRightMargin;
+    final double paymentPartHoriOffset;
+
+    final boolean hasSeparator;
+    final boolean hasScissors;
+    final boolean hasHorizontalLine;
+    final Canvas.LineStyle lineStyle;
+    final double lineWidth;
+    /** Transformations of the scissors blades, each consisting of translation x and y, rotation, scale x and y */
+    final double[][] scissorsBladeTransformations;
+
+    /** Labels, indexed by text key ordinal */
+    private final String[] labels;
+    /** Ascenders (in mm), indexed by font size (in pt) */
+    private final double[] ascenders;
+    /** Line heights (in mm), indexed by font size (in pt) */
+    private final double[] lineHeights;
+
+    /** Baseline of the "Payment part" and "Receipt" titles */
+    final double titleY;
+    /** Position of the "Acceptance point" label */
+    final double acceptancePointX;
+    final double acceptancePointY;
+    /** Baseline of the first line of the further information section */
+    final double furtherInformationY;
+
+    /** Corner marks of the receipt's amount box */
+    final double[] receiptAmountBoxCorners;
+    /** Corner marks of the payment part's amount box, indexed by text font size (in pt) */
+    private final double[][] paymentPartAmountBoxCorners;
+    /** Corner marks of the payment part's debtor box (relative to its bottom left corner) */
+    final double[] paymentPartDebtorBoxCorners;
+    /** Corner marks of the receipt's debtor box (relative to its bottom left corner) */
+    final double[] receiptDebtorBoxCorners;
+
+    private BillLayoutTemplate(Key key, Canvas canvas) {
+        additionalLeftMargin = key.marginLeft - BillLayout.MARGIN;
+        additionalRightMargin = key.marginRight - BillLayout.MARGIN;
+        paymentPartHoriOffset = key.outputSize == OutputSize.PAYMENT_PART_ONLY ? 0 : BillLayout.RECEIPT_WIDTH;
+
+        SeparatorType separatorType = key.separatorType;
+        hasSeparator = separatorType != SeparatorType.NONE;
+        hasScissors = separatorType == SeparatorType.SOLID_LINE_WITH_SCISSORS
+                || separatorType == SeparatorType.DASHED_LINE_WITH_SCISSORS
+                || separatorType == SeparatorType.DOTTED_LINE_WITH_SCISSORS;
+        hasHorizontalLine = key.outputSize != OutputSize.QR_BILL_ONLY;
+
+        switch (separatorType) {
+            case DASHED_LINE:
+            case DASHED_LINE_WITH_SCISSORS:
+                lineStyle = Canvas.LineStyle.Dashed;
+                lineWidth = 0.6;
+                break;
+            case DOTTED_LINE:
+            case DOTTED_LINE_WITH_SCISSORS:
+                lineStyle = Canvas.LineStyle.Dotted;
+                lineWidth = 0.75;
+                break;
+            default:
+                lineStyle = Canvas.LineStyle.Solid;
+                lineWidth = 0.5;
+        }
+
+        if (!hasScissors) {
+            scissorsBladeTransformations = new double[0][];
+        } else if (hasHorizontalLine) {
+            scissorsBladeTransformations = new double[][] {
+                    scissorsBladeTransformation(BillLayout.RECEIPT_WIDTH, BillLayout.SLIP_HEIGHT - 5, 0, false),
+                    scissorsBladeTransformation(BillLayout.RECEIPT_WIDTH, BillLayout.SLIP_HEIGHT - 5, 0, true),
+                    scissorsBladeTransformation(5, BillLayout.SLIP_HEIGHT, Math.PI / 2.0, false),
+                    scissorsBladeTransformation(5, BillLayout.SLIP_HEIGHT, Math.PI / 2.0, true)
+            };
+        } else {
+            scissorsBladeTransformations = new double[][] {
+                    scissorsBladeTransformation(BillLayout.RECEIPT_WIDTH, BillLayout.SLIP_HEIGHT - 5, 0, false),
+                    scissorsBladeTransformation(BillLayout.RECEIPT_WIDTH, BillLayout.SLIP_HEIGHT - 5, 0, true)
+            };
+        }
+
+        // texts and font metrics
+        labels = key.texts;
+        ascenders = new double[BillLayout.FONT_SIZE_TITLE + 1];
+        lineHeights = new double[BillLayout.FONT_SIZE_TITLE + 1];
+        for (int fontSize = 1; fontSize <= BillLayout.FONT_SIZE_TITLE; fontSize++) {
+            ascenders[fontSize] = canvas.getAscender(fontSize);
+            lineHeights[fontSize] = canvas.getLineHeight(fontSize);
+        }
+
+        // fixed text positions
+        titleY = BillLayout.SLIP_HEIGHT - BillLayout.MARGIN - ascenders[BillLayout.FONT_SIZE_TITLE];
+        String acceptancePoint = getLabel(TextKey.ACCEPTANCE_POINT);
+        acceptancePointX = BillLayout.RECEIPT_TEXT_WIDTH - additionalLeftMargin
+                - canvas.getTextWidth(acceptancePoint, BillLayout.RC_LABEL_FONT_SIZE, true);
+        acceptancePointY = ACCEPTANCE_POINT_SECTION_TOP - ascenders[BillLayout.RC_LABEL_FONT_SIZE];
+        furtherInformationY = FURTHER_INFORMATION_SECTION_TOP - ascenders[BillLayout.FURTHER_INFO_FONT_SIZE];
+
+        // corner marks
+        receiptAmountBoxCorners = cornerMarks(BillLayout.RECEIPT_TEXT_WIDTH - AMOUNT_BOX_WIDTH_RC,
+                BillLayout.AMOUNT_SECTION_TOP - AMOUNT_BOX_HEIGHT_RC,
+                AMOUNT_BOX_WIDTH_RC - additionalLeftMargin, AMOUNT_BOX_HEIGHT_RC);
+        paymentPartAmountBoxCorners = new double[BillLayout.PP_TEXT_PREF_FONT_SIZE + 1][];
+        for (int textFontSize = BillLayout.PP_TEXT_MIN_FONT_SIZE;
+                textFontSize <= BillLayout.PP_TEXT_PREF_FONT_SIZE; textFontSize++) {
+            int labelFontSize = textFontSize - (BillLayout.PP_TEXT_PREF_FONT_SIZE - BillLayout.PP_LABEL_PREF_FONT_SIZE);
+            double y = BillLayout.AMOUNT_SECTION_TOP - ascenders[labelFontSize];
+            y -= (textFontSize + 3) * BillLayout.PT_TO_MM;
+            y -= -ascenders[textFontSize] + AMOUNT_BOX_HEIGHT_PP;
+            paymentPartAmountBoxCorners[textFontSize] = cornerMarks(
+                    BillLayout.PP_AMOUNT_SECTION_WIDTH + BillLayout.MARGIN - AMOUNT_BOX_WIDTH_PP, y,
+                    AMOUNT_BOX_WIDTH_PP, AMOUNT_BOX_HEIGHT_PP);
+        }
+        paymentPartDebtorBoxCorners = cornerMarks(0, 0,
+                BillLayout.DEBTOR_BOX_WIDTH_PP, BillLayout.DEBTOR_BOX_HEIGHT_PP);
+        receiptDebtorBoxCorners = cornerMarks(0, 0,
+                BillLayout.DEBTOR_BOX_WIDTH_RC - additionalLeftMargin, BillLayout.DEBTOR_BOX_HEIGHT_RC);
+    }
+
+    /**
+     * Gets the layout template for the specified bill format and canvas.
+     *
+     * @param format bill format
+     * @param canvas canvas the bill will be drawn on (source of the font metrics)
+     * @return layout template
+     */
+    static BillLayoutTemplate forLayout(BillFormat format, Canvas canvas) {
+        Key key = new Key(format, canvas);
+        if (key.fontFamily == null)
+            return new BillLayoutTemplate(key, canvas);
+
+        BillLayoutTemplate template = cache.get(key);
+        if (template != null)
+            return template;
+
+        template = new BillLayoutTemplate(key, canvas);
+        if (cache.size() < MAX_CACHED_TEMPLATES)
+            cache.putIfAbsent(key, template);
+        return template;
+    }
+
+    /**
+     * Removes all cached templates.
+     * <p>
+     * Called when the multilingual texts change.
+     * </p>
+     */
+    static void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Gets the label or title for the specified text key.
+     *
+     * @param key text key
+     * @return label
+     */
+    String getLabel(TextKey key) {
+        return labels[key.ordinal()];
+    }
+
+    /**
+     * Gets the distance between baseline and top of the highest letter.
+     *
+     * @param fontSize font size (in pt)
+     * @return distance (in mm)
+     */
+    double getAscender(int fontSize) {
+        return ascenders[fontSize];
+    }
+
+    /**
+     * Gets the distance between the baselines of two consecutive text lines.
+     *
+     * @param fontSize font size (in pt)
+     * @return distance (in mm)
+     */
+    double getLineHeight(int fontSize) {
+        return lineHeights[fontSize];
+    }
+
+    /**
+     * Gets the corner marks of the payment part's amount box.
+     *
+     * @param textFontSize font size of the payment part's text (in pt)
+     * @return corner marks
+     */
+    double[] getPaymentPartAmountBoxCorners(int textFontSize) {
+        return paymentPartAmountBoxCorners[textFontSize];
+    }
+
+    // Computes the corner marks of a box, consisting of 4 polylines with 3 points each (x and y coordinates)
+    private static double[] cornerMarks(double x, double y, double width, double height) {
+        final double lwh = BillLayout.CORNER_STROKE_WIDTH * 0.5 / 72 * 25.4;
+        final double s = 3;
+
+        return new double[] {
+                x + lwh, y + s,
+                x + lwh, y + lwh,
+                x + s, y + lwh,
+
+                x + width - s, y + lwh,
+                x + width - lwh, y + lwh,
+                x + width - lwh, y + s,
+
+                x + width - lwh, y + height - s,
+                x + width - lwh, y + height - lwh,
+                x + width - s, y + height - lwh,
+
+                x + s, y + height - lwh,
+                x + lwh, y + height - lwh,
+                x + lwh, y + height - s
+        };
+    }
+
+    // Computes the transformation for a scissors blade with the specified position and rotation
+    private static double[] scissorsBladeTransformation(double x, double y, double angle, boolean mirrored) {
+        final double size = 3;
+        double scale = size / 476.0;
+        double xOffset = 0.36 * size;
+        double yOffset = -1.05 * size;
+        // translate by (x, y), rotate, translate by offset (in rotated coordinate system)
+        double offsetX = mirrored ? xOffset : -xOffset;
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        // exact values for quadrant rotations
+        if (Math.abs(sin) == 1.0)
+            cos = 0.0;
+        else if (Math.abs(cos) == 1.0)
+            sin = 0.0;
+        return new double[] {
+                x + offsetX * cos - yOffset * sin, y + offsetX * sin + yOffset * cos,
+                angle, mirrored ? -scale : scale, scale
+        };
+    }
+
+    /**
+     * Bill format fields, texts and font relevant for the template.
+     */
+    private static class Key {
+        private final OutputSize outputSize;
+        private final SeparatorType separatorType;
+        private final double marginLeft;
+        private final double marginRight;
+        /** Current texts of the bill's language (compared by identity) */
+        private final String[] texts;
+        /** Font family of the canvas ({@code null} if unknown) */
+        private final String fontFamily;
+        private final Class<?> canvasClass;
+
+        Key(BillFormat format, Canvas canvas) {
+            outputSize = format.getOutputSize();
+            separatorType = format.getSeparatorType();
+            marginLeft = Math.min(Math.max(format.getMarginLeft(), 5.0), 12.0);
+            marginRight = Math.min(Math.max(format.getMarginRight(), 5.0), 12.0);
+            texts = MultilingualText.getTexts(format.getLanguage());
+            FontMetrics fontMetrics = canvas instanceof AbstractCanvas ? ((AbstractCanvas) canvas).getFontMetrics() : null;
+            fontFamily = fontMetrics != null ? fontMetrics.getFontFamilyList() : null;
+            canvasClass = canvas.getClass();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Double.compare(key.marginLeft, marginLeft) == 0
+                    && Double.compare(key.marginRight, marginRight) == 0
+                    && outputSize == key.outputSize
+                    && separatorType == key.separatorType
+                    && texts == key.texts
+                    && canvasClass == key.canvasClass
+                    && (fontFamily != null ? fontFamily.equals(key.fontFamily) : key.fontFamily == null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = outputSize.hashCode();
+            result = 31 * result + separatorType.hashCode();
+            result = 31 * result + Double.hashCode(marginLeft);
+            result = 31 * result + Double.hashCode(marginRight);
+            result = 31 * result + System.identityHashCode(texts);
+            result = 31 * result + (fontFamily != null ? fontFamily.hashCode() : 0);
+            result = 31 * result + canvasClass.hashCode();
+            return result;
+        }
+    }
+}
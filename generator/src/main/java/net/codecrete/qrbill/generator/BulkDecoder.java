@@ -0,0 +1,352 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Decodes many QR code texts read from a channel.
+ * <p>
+ * The records are read on the calling thread and grouped into chunks. Each chunk
+ * is decoded as a separate task on the executor. Decoding errors are reported
+ * in the results instead of being thrown. The number of chunks in progress is
+ * limited so that large inputs can be processed with bounded memory.
+ * </p>
+ */
+class BulkDecoder {
+
+    static final int CHUNK_SIZE = 256;
+    static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Executor executor;
+    private final int maxPendingChunks;
+    private final QrPayloadFormat format;
+
+    BulkDecoder(Executor executor, int maxPendingChunks, QrPayloadFormat format) {
+        this.executor = executor;
+        this.maxPendingChunks = maxPendingChunks;
+        this.format = format;
+    }
+
+    /**
+     * Decodes all records and passes the results to the consumer.
+     * <p>
+     * The consumer is called on the calling thread in the order of the records.
+     * </p>
+     *
+     * @param channel        channel to read the records from
+     * @param resultConsumer consumer of the results
+     * @throws IOException if the channel cannot be read or the records are not properly framed
+     */
+    void decode(ReadableByteChannel channel, Consumer<DecodingResult> resultConsumer) throws IOException {
+        RecordReader reader = new RecordReader(channel, format);
+        Deque<CompletableFuture<DecodingResult[]>> pending = new ArrayDeque<>();
+        int numRecords = 0;
+
+        while (true) {
+            Chunk chunk = readChunk(reader, numRecords);
+            if (chunk.count == 0)
+                break;
+
+            numRecords += chunk.count;
+            pending.add(CompletableFuture.supplyAsync(() -> decodeChunk(chunk, format), executor));
+            while (pending.size() >= maxPendingChunks)
+                deliver(pending.remove(), resultConsumer);
+        }
+
+        while (!pending.isEmpty())
+            deliver(pending.remove(), resultConsumer);
+    }
+
+    private static Chunk readChunk(RecordReader reader, int firstIndex) throws IOException {
+        Chunk chunk = new Chunk(firstIndex);
+        while (chunk.count < CHUNK_SIZE && reader.next())
+            chunk.add(reader.data(), reader.recordStart, reader.recordLength);
+        return chunk;
+    }
+
+    private static void deliver(CompletableFuture<DecodingResult[]> future, Consumer<DecodingResult> resultConsumer) {
+        DecodingResult[] results;
+        try {
+            results = future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+        for (DecodingResult result : results)
+            resultConsumer.accept(result);
+    }
+
+    private static DecodingResult[] decodeChunk(Chunk chunk, QrPayloadFormat format) {
+        DecodingResult[] results = new DecodingResult[chunk.count];
+        for (int i = 0; i < chunk.count; i++) {
+            String record = new String(chunk.data, chunk.starts[i], chunk.lengths[i], StandardCharsets.UTF_8);
+            results[i] = decodeRecord(chunk.firstIndex + i, record, format);
+        }
+        return results;
+    }
+
+    private static DecodingResult decodeRecord(int index, String record, QrPayloadFormat format) {
+        ValidationResult result = new ValidationResult();
+        String text = record;
+        if (format == QrPayloadFormat.JSON_LINES) {
+            text = parseJsonString(record);
+            if (text == null) {
+                result.addMessage(ValidationMessage.Type.ERROR, ValidationConstants.FIELD_QR_TYPE,
+                        ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+                return new DecodingResult(index, record, null, result);
+            }
+        }
+
+        Bill bill = QRCodeText.decode(text, result);
+        return new DecodingResult(index, text, bill, bill == null ? result : null);
+    }
+
+    /**
+     * Parses a JSON string (enclosed in double quotes), optionally surrounded by whitespace.
+     *
+     * @param json the JSON text
+     * @return the parsed string, or {@code null} if the JSON text is not a valid JSON string
+     */
+    static String parseJsonString(String json) {
+        int start = 0;
+        int end = json.length();
+        while (start < end && isJsonWhitespace(json.charAt(start)))
+            start += 1;
+        while (end > start && isJsonWhitespace(json.charAt(end - 1)))
+            end -= 1;
+        if (end - start < 2 || json.charAt(start) != '"' || json.charAt(end - 1) != '"')
+            return null;
+
+        // the string builder is only needed if the string contains escape sequences
+        start += 1;
+        end -= 1;
+        StringBuilder sb = null;
+        int copied = start;
+        int index = start;
+        while (index < end) {
+            char ch = json.charAt(index);
+            if (ch == '"' || ch < 0x20)
+                return null;
+            if (ch != '\\') {
+                index += 1;
+                continue;
+            }
+
+            if (sb == null)
+                sb = new StringBuilder(end - start);
+            sb.append(json, copied, index);
+            if (index + 1 >= end)
+                return null;
+            int escapeLength = appendEscapedChar(json, index + 1, end, sb);
+            if (escapeLength < 0)
+                return null;
+            index += 1 + escapeLength;
+            copied = index;
+        }
+
+        if (sb == null)
+            return json.substring(start, end);
+        sb.append(json, copied, end);
+        return sb.toString();
+    }
+
+    // returns the length of the escape sequence (excluding the backslash) or -1 if it is invalid
+    private static int appendEscapedChar(String json, int index, int end, StringBuilder sb) {
+        char ch = json.charAt(index);
+        switch (ch) {
+            case '"':
+            case '\\':
+            case '/':
+                sb.append(ch);
+                return 1;
+            case 'b':
+                sb.append('\b');
+                return 1;
+            case 'f':
+                sb.append('\f');
+                return 1;
+            case 'n':
+                sb.append('\n');
+                return 1;
+            case 'r':
+                sb.append('\r');
+                return 1;
+            case 't':
+                sb.append('\t');
+                return 1;
+            case 'u':
+                if (index + 5 > end)
+                    return -1;
+                int codeUnit = 0;
+                for (int i = index + 1; i < index + 5; i++) {
+                    int digit = Character.digit(json.charAt(i), 16);
+                    if (digit < 0)
+                        return -1;
+                    codeUnit = codeUnit * 16 + digit;
+                }
+                sb.append((char) codeUnit);
+                return 5;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isJsonWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n';
+    }
+
+    /**
+     * Records of a chunk.
+     * <p>
+     * The record data is copied so that the read buffer can be reused.
+     * </p>
+     */
+    private static class Chunk {
+        final int firstIndex;
+        final int[] starts = new int[CHUNK_SIZE];
+        final int[] lengths = new int[CHUNK_SIZE];
+        byte[] data = new byte[16 * 1024];
+        int count;
+        int dataLength;
+
+        Chunk(int firstIndex) {
+            this.firstIndex = firstIndex;
+        }
+
+        void add(byte[] src, int start, int length) {
+            if (dataLength + length > data.length)
+                data = Arrays.copyOf(data, Math.max(2 * data.length, dataLength + length));
+            System.arraycopy(src, start, data, dataLength, length);
+            starts[count] = dataLength;
+            lengths[count] = length;
+            dataLength += length;
+            count += 1;
+        }
+    }
+
+    /**
+     * Reads the records from the channel.
+     * <p>
+     * The current record is available in the read buffer at {@code recordStart}
+     * with the length {@code recordLength}. It is only valid until the next record is read.
+     * </p>
+     */
+    private static class RecordReader {
+        private final ReadableByteChannel channel;
+        private final QrPayloadFormat format;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private boolean isEndOfInput;
+        int recordStart;
+        int recordLength;
+
+        RecordReader(ReadableByteChannel channel, QrPayloadFormat format) {
+            this.channel = channel;
+            this.format = format;
+            buffer.flip();
+        }
+
+        byte[] data() {
+            return buffer.array();
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return {@code true} if a record has been read, {@code false} at the end of the input
+         * @throws IOException if the channel cannot be read or the record is not properly framed
+         */
+        boolean next() throws IOException {
+            return format == QrPayloadFormat.LENGTH_PREFIXED ? nextLengthPrefixed() : nextLine();
+        }
+
+        private boolean nextLengthPrefixed() throws IOException {
+            if (!fill(4)) {
+                if (buffer.hasRemaining())
+                    throw new IOException("Incomplete record length at end of input");
+                return false;
+            }
+
+            int length = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD_LENGTH)
+                throw new IOException("Invalid record length: " + length);
+            if (!fill(length))
+                throw new IOException("Incomplete record at end of input");
+
+            recordStart = buffer.position();
+            recordLength = length;
+            buffer.position(recordStart + length);
+            return true;
+        }
+
+        private boolean nextLine() throws IOException {
+            int numScanned = 0;
+            while (true) {
+                byte[] data = buffer.array();
+                int start = buffer.position();
+                int limit = buffer.limit();
+                int index = start + numScanned;
+                while (index < limit && data[index] != '\n')
+                    index += 1;
+
+                if (index == limit && !isEndOfInput) {
+                    numScanned = limit - start;
+                    if (numScanned > MAX_RECORD_LENGTH)
+                        throw new IOException("Line exceeds maximum record length");
+                    readMore();
+                    continue;
+                }
+
+                if (start == limit)
+                    return false;
+
+                buffer.position(index < limit ? index + 1 : limit);
+                int end = index;
+                if (end > start && data[end - 1] == '\r')
+                    end -= 1;
+                if (end > start) {
+                    recordStart = start;
+                    recordLength = end - start;
+                    return true;
+                }
+
+                // skip empty line
+                numScanned = 0;
+            }
+        }
+
+        private boolean fill(int length) throws IOException {
+            while (buffer.remaining() < length && !isEndOfInput)
+                readMore();
+            return buffer.remaining() >= length;
+        }
+
+        private void readMore() throws IOException {
+            if (buffer.remaining() == buffer.capacity()) {
+                ByteBuffer largerBuffer = ByteBuffer.allocate(2 * buffer.capacity());
+                largerBuffer.put(buffer);
+                buffer = largerBuffer;
+            } else {
+                buffer.compact();
+            }
+            if (channel.read(buffer) < 0)
+                isEndOfInput = true;
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of validating many bills given in column-oriented form.
+ * <p>
+ * A row (bill) has failed if its validation resulted in at least one error.
+ * Validation messages are only retained for failed rows. For rows that have
+ * passed, warnings are discarded.
+ * </p>
+ *
+ * @see QRBill#validateAll(BillColumns)
+ */
+public class BulkValidationResult {
+
+    private final int numRows;
+    private final BitSet failedRows;
+    private final Map<Integer, List<ValidationMessage>> messages;
+
+    BulkValidationResult(int numRows, BitSet failedRows, Map<Integer, List<ValidationMessage>> messages) {
+        this.numRows = numRows;
+        this.failedRows = failedRows;
+        this.messages = messages;
+    }
+
+    /**
+     * Gets the number of validated rows.
+     *
+     * @return the number of rows
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Gets the number of failed rows.
+     *
+     * @return the number of rows with validation errors
+     */
+    public int getNumFailedRows() {
+        return failedRows.cardinality();
+    }
+
+    /**
+     * Gets if the bill data of the specified row has failed validation.
+     *
+     * @param row row index
+     * @return {@code true} if the row has validation errors, {@code false} otherwise
+     */
+    public boolean hasFailed(int row) {
+        checkRow(row);
+        return failedRows.get(row);
+    }
+
+    /**
+     * Gets the failed rows.
+     * <p>
+     * The returned bit set has a bit set for each row with validation errors.
+     * </p>
+     *
+     * @return the failed rows (copy)
+     */
+    public BitSet getFailedRows() {
+        return (BitSet) failedRows.clone();
+    }
+
+    /**
+     * Gets the validation messages of the specified row.
+     *
+     * @param row row index
+     * @return the validation messages (errors and warnings) if the row has failed, an empty list otherwise
+     */
+    public List<ValidationMessage> getValidationMessages(int row) {
+        checkRow(row);
+        List<ValidationMessage> rowMessages = messages.get(row);
+        return rowMessages != null ? rowMessages : Collections.emptyList();
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= numRows)
+            throw new IndexOutOfBoundsException("Invalid row " + row);
+    }
+}
@@ -0,0 +1,304 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.qrbill.generator;
+
+/**
+ * Check digit calculation and validation for IBANs, ISO 11649 creditor references and QR references.
+ * <p>
+ * All methods work directly on a range of a {@code CharSequence} and skip spaces in place.
+ * Validation does not allocate any memory.
+ * </p>
+ */
+class Checksums {
+    private Checksums() {
+    }
+
+    private static final int INVALID = -1;
+
+    private static final int[] MOD_10 = { 0, 9, 4, 6, 8, 2, 7, 1, 3, 5 };
+
+    // value of "RF00" in the modulo 97 calculation (R = 27, F = 15)
+    private static final int RF00_VALUE = 271500;
+
+    /**
+     * Validates if the text range is a valid IBAN.
+     * <p>
+     * The range is checked for valid characters, valid length and for a valid
+     * check digit. Spaces are ignored.
+     * </p>
+     *
+     * @param text text containing the IBAN
+     * @param start start index of the IBAN (inclusive)
+     * @param end end index of the IBAN (exclusive)
+     * @return {@code true} if the IBAN is valid, {@code false} otherwise
+     */
+    static boolean isValidIBAN(CharSequence text, int start, int end) {
+        return checkedMod97(text, start, end, false) == 1;
+    }
+
+    /**
+     * Validates if the text range is a valid QR-IBAN.
+     * <p>
+     * Spaces are ignored. The country code may be in lowercase letters.
+     * </p>
+     *
+     * @param text text containing the IBAN
+     * @param start start index of the IBAN (inclusive)
+     * @param end end index of the IBAN (exclusive)
+     * @return {@code true} if the range is a valid QR-IBAN, {@code false} otherwise
+     */
+    static boolean isQRIBAN(CharSequence text, int start, int end) {
+        if (!isValidIBAN(text, start, end))
+            return false;
+
+        // country code CH or LI, institution ID 30000 to 31999
+        int n = 0;
+        char countryCode = 0;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == ' ')
+                continue;
+
+            switch (n) {
+                case 0:
+                    countryCode = toUpperCase(ch);
+                    if (countryCode != 'C' && countryCode != 'L')
+                        return false;
+                    break;
+                case 1:
+                    if (toUpperCase(ch) != (countryCode == 'C' ? 'H' : 'I'))
+                        return false;
+                    break;
+                case 4:
+                    if (ch != '3')
+                        return false;
+                    break;
+                case 5:
+                    return ch == '0' || ch == '1';
+                default:
+                    break;
+            }
+            n++;
+        }
+        return false;
+    }
+
+    /**
+     * Validates if the text range is a valid ISO 11649 creditor reference.
+     * <p>
+     * The range is checked for valid characters, valid length and a valid check
+     * digit. Spaces are ignored.
+     * </p>
+     *
+     * @param text text containing the creditor reference
+     * @param start start index of the reference (inclusive)
+     * @param end end index of the reference (exclusive)
+     * @return {@code true} if the creditor reference is valid, {@code false} otherwise
+     */
+    static boolean isValidISO11649Reference(CharSequence text, int start, int end) {
+        return checkedMod97(text, start, end, true) == 1;
+    }
+
+    /**
+     * Validates if the text range is a valid QR reference.
+     * <p>
+     * The range is checked for valid characters, valid length and a valid check
+     * digit. Spaces are ignored.
+     * </p>
+     *
+     * @param text text containing the QR reference
+     * @param start start index of the reference (inclusive)
+     * @param end end index of the reference (exclusive)
+     * @return {@code true} if the reference is valid, {@code false} otherwise
+     */
+    static boolean isValidQRReference(CharSequence text, int start, int end) {
+        int length = 0;
+        int carry = 0;
+        boolean isAllZeros = true;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == ' ')
+                continue;
+            if (ch < '0' || ch > '9')
+                return false;
+            length++;
+            if (length > 27)
+                return false;
+            int digit = ch - '0';
+            if (digit != 0)
+                isAllZeros = false;
+            carry = MOD_10[(carry + digit) % 10];
+        }
+
+        return length == 27 && !isAllZeros && carry == 0;
+    }
+
+    /**
+     * Creates an ISO 11649 creditor reference by prefixing the raw reference
+     * with "RF" and the modulo 97 check digits.
+     * <p>
+     * Spaces are removed from the raw reference.
+     * </p>
+     *
+     * @param rawReference the raw reference
+     * @return the creditor reference
+     * @throws IllegalArgumentException if {@code rawReference} contains invalid characters or is empty
+     */
+    static String createISO11649Reference(CharSequence rawReference) {
+        int len = rawReference.length();
+        int sum = 0;
+        int length = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = rawReference.charAt(i);
+            if (ch == ' ')
+                continue;
+            int value = alphaNumericValue(ch);
+            if (value < 0)
+                throw new IllegalArgumentException("Invalid character in reference: " + ch);
+            sum = addToMod97(sum, value);
+            length++;
+        }
+        if (length == 0)
+            throw new IllegalArgumentException("Insufficient characters for checksum calculation");
+
+        int checkDigits = 98 - (sum % 97 * 1000000 + RF00_VALUE) % 97;
+
+        StringBuilder sb = new StringBuilder(length + 4);
+        sb.append('R').append('F').append((char) ('0' + checkDigits / 10)).append((char) ('0' + checkDigits % 10));
+        appendWithoutSpaces(sb, rawReference);
+        return sb.toString();
+    }
+
+    /**
+     * Creates a QR reference by appending the check digit to the raw reference
+     * and prepending zeros to make it the correct length.
+     * <p>
+     * Spaces are removed from the raw reference.
+     * </p>
+     *
+     * @param rawReference the raw reference (digits and spaces only)
+     * @return the QR reference
+     * @throws IllegalArgumentException if {@code rawReference} contains invalid characters or is too long
+     */
+    static String createQRReference(CharSequence rawReference) {
+        int len = rawReference.length();
+        int carry = 0;
+        int length = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = rawReference.charAt(i);
+            if (ch == ' ')
+                continue;
+            if (ch < '0' || ch > '9')
+                throw new IllegalArgumentException("Invalid character in reference (digits allowed only)");
+            carry = MOD_10[(carry + ch - '0') % 10];
+            length++;
+        }
+        if (length > 26)
+            throw new IllegalArgumentException("Reference number is too long");
+
+        StringBuilder sb = new StringBuilder(27);
+        for (int i = length; i < 26; i++)
+            sb.append('0');
+        appendWithoutSpaces(sb, rawReference);
+        sb.append((char) ('0' + (10 - carry) % 10));
+        return sb.toString();
+    }
+
+    /**
+     * Validates the structure of an IBAN or ISO 11649 creditor reference and calculates
+     * its modulo 97 checksum.
+     * <p>
+     * The number must start with two letters and two check digits, followed by at least one more
+     * letter or digit. For the checksum, these first four characters are moved to the end.
+     * Spaces are skipped.
+     * </p>
+     *
+     * @param text text containing the number
+     * @param start start index of the number (inclusive)
+     * @param end end index of the number (exclusive)
+     * @param isCreditorReference {@code true} to check for the "RF" prefix and the maximum length of
+     *                            creditor references, {@code false} to check for the IBAN check digit rules
+     * @return the checksum (0 to 96), or {@link #INVALID} if the structure is invalid
+     */
+    private static int checkedMod97(CharSequence text, int start, int end, boolean isCreditorReference) {
+        int maxLength = isCreditorReference ? 25 : Integer.MAX_VALUE;
+        int sum = 0;
+        int prefix = 0;
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch == ' ')
+                continue;
+            int value = alphaNumericValue(ch);
+            if (value < 0)
+                return INVALID;
+
+            if (length < 2) {
+                // country code or "RF"
+                if (value < 10)
+                    return INVALID;
+                if (isCreditorReference && ch != (length == 0 ? 'R' : 'F'))
+                    return INVALID;
+                prefix = prefix * 100 + value;
+            } else if (length < 4) {
+                // check digits
+                if (value >= 10)
+                    return INVALID;
+                prefix = prefix * 10 + value;
+            } else {
+                sum = addToMod97(sum, value);
+            }
+
+            length++;
+            if (length > maxLength)
+                return INVALID;
+        }
+
+        if (length < 5)
+            return INVALID;
+
+        if (!isCreditorReference) {
+            int checkDigits = prefix % 100;
+            if (checkDigits == 0 || checkDigits == 1 || checkDigits == 99)
+                return INVALID;
+        }
+
+        // append the first four characters (at most 6 decimal digits)
+        return (sum % 97 * 1000000 + prefix) % 97;
+    }
+
+    private static int addToMod97(int sum, int value) {
+        sum = value < 10 ? sum * 10 + value : sum * 100 + value;
+        if (sum > 9999999)
+            sum = sum % 97;
+        return sum;
+    }
+
+    private static int alphaNumericValue(char ch) {
+        if (ch >= '0' && ch <= '9')
+            return ch - '0';
+        if (ch >= 'A' && ch <= 'Z')
+            return ch - 'A' + 10;
+        if (ch >= 'a' && ch <= 'z')
+            return ch - 'a' + 10;
+        return INVALID;
+    }
+
+    private static char toUpperCase(char ch) {
+        return ch >= 'a' && ch <= 'z' ? (char) (ch - 'a' + 'A') : ch;
+    }
+
+    private static void appendWithoutSpaces(StringBuilder sb, CharSequence text) {
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            char ch = text.charAt(i);
+            if (ch != ' ')
+                sb.append(ch);
+        }
+    }
+}
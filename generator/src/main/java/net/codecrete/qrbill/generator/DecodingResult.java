@@ -0,0 +1,85 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+/**
+ * Result of decoding a single QR code text.
+ * <p>
+ * If the text was successfully decoded, the result contains the bill data.
+ * Otherwise, it contains the validation result with the error.
+ * </p>
+ *
+ * @see QRBill#tryDecodeQrCodeText(String)
+ * @see QRBill#decodeAll(java.nio.file.Path, QrPayloadFormat, java.util.function.Consumer)
+ */
+public class DecodingResult {
+
+    private final int index;
+    private final String text;
+    private final Bill bill;
+    private final ValidationResult validationResult;
+
+    DecodingResult(int index, String text, Bill bill, ValidationResult validationResult) {
+        this.index = index;
+        this.text = text;
+        this.bill = bill;
+        this.validationResult = validationResult;
+    }
+
+    /**
+     * Gets the index of the record.
+     * <p>
+     * For bulk decoding, the index is the zero-based position of the record in the
+     * input. Ignored empty lines are not counted. For a single text, the index is 0.
+     * </p>
+     *
+     * @return the index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the decoded QR code text.
+     * <p>
+     * For {@link QrPayloadFormat#JSON_LINES}, the text is the content of the line
+     * if it is not a valid JSON string.
+     * </p>
+     *
+     * @return the QR code text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets if the text was successfully decoded.
+     *
+     * @return {@code true} if the text was decoded, {@code false} if it failed
+     */
+    public boolean isSuccessful() {
+        return bill != null;
+    }
+
+    /**
+     * Gets the decoded bill data.
+     *
+     * @return the bill data, or {@code null} if decoding failed
+     */
+    public Bill getBill() {
+        return bill;
+    }
+
+    /**
+     * Gets the validation result with the decoding error.
+     *
+     * @return the validation result, or {@code null} if the text was decoded successfully
+     */
+    public ValidationResult getValidationResult() {
+        return validationResult;
+    }
+}
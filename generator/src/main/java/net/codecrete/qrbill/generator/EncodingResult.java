@@ -0,0 +1,57 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+/**
+ * Result of encoding bill data as the text embedded in the QR code.
+ * <p>
+ * If the bill data is valid, the result contains the QR code text.
+ * In any case, it contains the validation result.
+ * </p>
+ *
+ * @see QRBill#tryEncodeQrCodeText(Bill)
+ */
+public class EncodingResult {
+
+    private final String text;
+    private final ValidationResult validationResult;
+
+    EncodingResult(String text, ValidationResult validationResult) {
+        this.text = text;
+        this.validationResult = validationResult;
+    }
+
+    /**
+     * Gets if the bill data was successfully encoded.
+     *
+     * @return {@code true} if the bill data was encoded, {@code false} if it is not valid
+     */
+    public boolean isSuccessful() {
+        return text != null;
+    }
+
+    /**
+     * Gets the QR code text.
+     *
+     * @return the QR code text, or {@code null} if the bill data is not valid
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the validation result.
+     * <p>
+     * If the bill data is valid, the validation result might still contain warnings.
+     * </p>
+     *
+     * @return the validation result
+     */
+    public ValidationResult getValidationResult() {
+        return validationResult;
+    }
+}
@@ -20,6 +20,14 @@ public enum GraphicsFormat {
     SVG,
     /**
      * PNG
+     * <p>
+     * For the output sizes {@link OutputSize#QR_CODE_ONLY} and {@link OutputSize#QR_CODE_WITH_QUIET_ZONE},
+     * a black and white image is generated.
+     * </p>
+     * <p>
+     * For the other output sizes, the image is rendered with AWT unless headless rendering
+     * is enabled (see {@link BillFormat#setHeadlessRendering(boolean)}).
+     * </p>
      */
     PNG
 }
@@ -7,6 +7,8 @@
 package net.codecrete.qrbill.generator;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 /**
@@ -60,9 +62,94 @@ public class MultilingualText {
     public static final String KEY_DO_NOT_USE_FOR_PAYMENT = "do_not_use_for_payment";
 
 
-    private static final String[] languageCodes = { "de", "fr", "it", "rm", "en" };
+    /**
+     * Text keys as enumeration.
+     * <p>
+     * Looking up a text with an enumeration value is a simple array access.
+     * </p>
+     */
+    public enum TextKey {
+        /**
+         * Text key for "Payment part"
+         */
+        PAYMENT_PART(KEY_PAYMENT_PART),
+        /**
+         * Text key for "Account / payable to"
+         */
+        ACCOUNT_PAYABLE_TO(KEY_ACCOUNT_PAYABLE_TO),
+        /**
+         * Text key for "Reference"
+         */
+        REFERENCE(KEY_REFERENCE),
+        /**
+         * Text key for "Additional information"
+         */
+        ADDITIONAL_INFORMATION(KEY_ADDITIONAL_INFORMATION),
+        /**
+         * Text key for "Currency"
+         */
+        CURRENCY(KEY_CURRENCY),
+        /**
+         * Text key for "Amount"
+         */
+        AMOUNT(KEY_AMOUNT),
+        /**
+         * Text key for "Receipt"
+         */
+        RECEIPT(KEY_RECEIPT),
+        /**
+         * Text key for "Acceptance point"
+         */
+        ACCEPTANCE_POINT(KEY_ACCEPTANCE_POINT),
+        /**
+         * Text key for "Payable by"
+         */
+        PAYABLE_BY(KEY_PAYABLE_BY),
+        /**
+         * Text key for "Payable by (name / address)"
+         */
+        PAYABLE_BY_NAME_ADDRESS(KEY_PAYABLE_BY_NAME_ADDRESS),
+        /**
+         * Text key for "DO NOT USE FOR PAYMENT"
+         */
+        DO_NOT_USE_FOR_PAYMENT(KEY_DO_NOT_USE_FOR_PAYMENT);
+
+        private static final TextKey[] VALUES = values();
+
+        private final String key;
+
+        TextKey(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Gets the text key as a string, e.g. {@code "payment_part"}
+         *
+         * @return text key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Gets the enumeration value for the specified string text key.
+         *
+         * @param key text key, e.g. {@code "payment_part"}
+         * @return enumeration value
+         * @throws MissingResourceException if the key is unknown
+         */
+        public static TextKey forKey(String key) {
+            for (TextKey textKey : VALUES) {
+                if (textKey.key.equals(key))
+                    return textKey;
+            }
+            throw new MissingResourceException("Unknown text key " + key, MultilingualText.class.getName(), key);
+        }
+    }
 
-    private static final ResourceBundle[] messageBundles = new ResourceBundle[5];
+    // Texts indexed by language ordinal and text key ordinal. The arrays are never
+    // modified after they have been published; changes replace the entire table.
+    private static volatile String[][] texts = loadTexts();
 
 
     private MultilingualText() {
@@ -76,39 +163,86 @@ public class MultilingualText {
      * @param language language
      * @return text
      */
+    public static String getText(TextKey key, Language language) {
+        return texts[language.ordinal()][key.ordinal()];
+    }
+
+    /**
+     * Gets the text for the specified text key in the specified language
+     *
+     * @param key      text key
+     * @param language language
+     * @return text
+     * @throws MissingResourceException if the key is unknown
+     */
     public static String getText(String key, Language language) {
+        return getText(TextKey.forKey(key), language);
+    }
 
-        int index = getLanguageIndex(language);
-        ResourceBundle bundle = messageBundles[index];
+    /**
+     * Gets the current texts of the specified language, indexed by text key ordinal.
+     * <p>
+     * The returned array must not be modified. It is replaced (not modified) if the
+     * texts are changed.
+     * </p>
+     *
+     * @param language language
+     * @return texts
+     */
+    static String[] getTexts(Language language) {
+        return texts[language.ordinal()];
+    }
 
-        if (bundle == null) {
-            Locale locale = new Locale(languageCodes[index], "CH");
-            bundle = ResourceBundle.getBundle("qrbill", locale, MultilingualText.class.getClassLoader());
-            messageBundles[index] = bundle;
+    /**
+     * Replaces texts for the specified language.
+     * <p>
+     * The texts are specified as a map from text key to text. Texts not contained
+     * in the map remain unchanged. The change applies to all QR bills generated
+     * afterwards (in all threads).
+     * </p>
+     *
+     * @param language language
+     * @param newTexts map of text keys and texts
+     * @throws MissingResourceException if one of the keys is unknown
+     * @throws IllegalArgumentException if one of the keys or texts is {@code null}
+     */
+    public static synchronized void setTexts(Language language, Map<String, String> newTexts) {
+        String[] languageTexts = texts[language.ordinal()].clone();
+        for (Map.Entry<String, String> entry : newTexts.entrySet()) {
+            if (entry.getKey() == null)
+                throw new IllegalArgumentException("Text key must not be null");
+            TextKey key = TextKey.forKey(entry.getKey());
+            if (entry.getValue() == null)
+                throw new IllegalArgumentException("Text for key " + key.getKey() + " must not be null");
+            languageTexts[key.ordinal()] = entry.getValue();
         }
 
-        return bundle.getString(key);
+        String[][] updatedTexts = texts.clone();
+        updatedTexts[language.ordinal()] = languageTexts;
+        texts = updatedTexts;
+        BillLayoutTemplate.clearCache();
     }
 
-    private static int getLanguageIndex(Language language) {
-        int index;
-        switch (language) {
-            case DE:
-                index = 0;
-                break;
-            case FR:
-                index = 1;
-                break;
-            case IT:
-                index = 2;
-                break;
-            case RM:
-                index = 3;
-                break;
-            default:
-                index = 4;
-        }
+    /**
+     * Restores the texts of all languages to the texts provided by this library.
+     */
+    public static synchronized void resetTexts() {
+        texts = loadTexts();
+        BillLayoutTemplate.clearCache();
+    }
 
-        return index;
+    private static String[][] loadTexts() {
+        TextKey[] keys = TextKey.values();
+        Language[] languages = Language.values();
+        String[][] allTexts = new String[languages.length][];
+        for (Language language : languages) {
+            Locale locale = new Locale(language.name().toLowerCase(Locale.ROOT), "CH");
+            ResourceBundle bundle = ResourceBundle.getBundle("qrbill", locale, MultilingualText.class.getClassLoader());
+            String[] languageTexts = new String[keys.length];
+            for (TextKey key : keys)
+                languageTexts[key.ordinal()] = bundle.getString(key.getKey());
+            allTexts[language.ordinal()] = languageTexts;
+        }
+        return allTexts;
     }
 }
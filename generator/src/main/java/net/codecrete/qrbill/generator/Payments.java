@@ -7,7 +7,7 @@
 
 package net.codecrete.qrbill.generator;
 
-import java.util.Locale;
+import java.util.BitSet;
 
 /**
  * Field validations related to Swiss Payment standards
@@ -96,29 +96,43 @@ public class Payments {
      * @return {@code true} if the IBAN is valid, {@code false} otherwise
      */
     public static boolean isValidIBAN(String iban) {
+        return Checksums.isValidIBAN(iban, 0, iban.length());
+    }
 
-        iban = Strings.whiteSpaceRemoved(iban);
-
-        int len = iban.length();
-        if (len < 5)
-            return false;
-
-        if (!isAlphaNumeric(iban))
-            return false;
-
-        // Check for country code
-        if (!Character.isLetter(iban.charAt(0)) || !Character.isLetter(iban.charAt(1)))
-            return false;
-
-        // Check for check digits
-        if (!Character.isDigit(iban.charAt(2)) || !Character.isDigit(iban.charAt(3)))
-            return false;
-
-        String checkDigits = iban.substring(2, 4);
-        if ("00".equals(checkDigits) || "01".equals(checkDigits) || "99".equals(checkDigits))
-            return false;
+    /**
+     * Validates if a range of the character sequence is a valid IBAN number
+     * <p>
+     * The range is checked for valid characters, valid length and for a valid
+     * check digit. White space is ignored. No memory is allocated.
+     * </p>
+     *
+     * @param text  character sequence containing the IBAN
+     * @param start start index of the IBAN (inclusive)
+     * @param end   end index of the IBAN (exclusive)
+     * @return {@code true} if the IBAN is valid, {@code false} otherwise
+     */
+    public static boolean isValidIBAN(CharSequence text, int start, int end) {
+        return Checksums.isValidIBAN(text, start, end);
+    }
 
-        return hasValidMod97CheckDigits(iban);
+    /**
+     * Validates an array of IBAN numbers.
+     * <p>
+     * {@code null} elements are considered invalid.
+     * </p>
+     *
+     * @param ibans IBANs to validate
+     * @return set with the indexes of the invalid IBANs
+     * @see #isValidIBAN(String)
+     */
+    public static BitSet validateIBANs(CharSequence[] ibans) {
+        BitSet invalid = new BitSet(ibans.length);
+        for (int i = 0; i < ibans.length; i++) {
+            CharSequence iban = ibans[i];
+            if (iban == null || !Checksums.isValidIBAN(iban, 0, iban.length()))
+                invalid.set(i);
+        }
+        return invalid;
     }
 
     /**
@@ -133,11 +147,7 @@ public class Payments {
      * @return {@code true} for valid QR-IBANs, {@code false} otherwise
      */
     public static boolean isQRIBAN(String iban) {
-        iban = Strings.whiteSpaceRemoved(iban).toUpperCase(Locale.US);
-        return isValidIBAN(iban)
-                && (iban.startsWith("CH") || iban.startsWith("LI"))
-                && iban.charAt(4) == '3'
-                && (iban.charAt(5) == '0' || iban.charAt(5) == '1');
+        return Checksums.isQRIBAN(iban, 0, iban.length());
     }
 
     /**
@@ -177,22 +187,44 @@ public class Payments {
      * otherwise
      */
     public static boolean isValidISO11649Reference(String reference) {
+        return Checksums.isValidISO11649Reference(reference, 0, reference.length());
+    }
 
-        reference = Strings.whiteSpaceRemoved(reference);
-
-        if (reference.length() < 5 || reference.length() > 25)
-            return false;
-
-        if (!isAlphaNumeric(reference))
-            return false;
-
-        if (reference.charAt(0) != 'R' || reference.charAt(1) != 'F')
-            return false;
-
-        if (!Character.isDigit(reference.charAt(2)) || !Character.isDigit(reference.charAt(3)))
-            return false;
+    /**
+     * Validates if a range of the character sequence is a valid ISO 11649 reference number.
+     * <p>
+     * The range is checked for valid characters, valid length and a valid check
+     * digit. White space is ignored. No memory is allocated.
+     * </p>
+     *
+     * @param text  character sequence containing the creditor reference
+     * @param start start index of the reference (inclusive)
+     * @param end   end index of the reference (exclusive)
+     * @return {@code true} if the creditor reference is valid, {@code false}
+     * otherwise
+     */
+    public static boolean isValidISO11649Reference(CharSequence text, int start, int end) {
+        return Checksums.isValidISO11649Reference(text, start, end);
+    }
 
-        return hasValidMod97CheckDigits(reference);
+    /**
+     * Validates an array of ISO 11649 reference numbers.
+     * <p>
+     * {@code null} elements are considered invalid.
+     * </p>
+     *
+     * @param references creditor references to validate
+     * @return set with the indexes of the invalid references
+     * @see #isValidISO11649Reference(String)
+     */
+    public static BitSet validateISO11649References(CharSequence[] references) {
+        BitSet invalid = new BitSet(references.length);
+        for (int i = 0; i < references.length; i++) {
+            CharSequence reference = references[i];
+            if (reference == null || !Checksums.isValidISO11649Reference(reference, 0, reference.length()))
+                invalid.set(i);
+        }
+        return invalid;
     }
 
     /**
@@ -208,56 +240,25 @@ public class Payments {
      *                                  characters
      */
     public static String createISO11649Reference(String rawReference) {
-        final String whiteSpaceRemoved = Strings.whiteSpaceRemoved(rawReference);
-        final int modulo = Payments.calculateMod97("RF00" + whiteSpaceRemoved);
-        return String.format("RF%02d", 98 - modulo) + whiteSpaceRemoved;
-    }
-
-    private static boolean hasValidMod97CheckDigits(String number) {
-        return calculateMod97(number) == 1;
+        return Checksums.createISO11649Reference(rawReference);
     }
 
     /**
-     * Calculate the reference's modulo 97 checksum according to ISO11649 and IBAN
-     * standard.
-     * <p>
-     * The string may only contains digits, letters ('A' to 'Z' and 'a' to 'z', no
-     * accents). It must not contain white space.
-     * </p>
+     * Creates ISO11649 creditor references from an array of raw strings.
      *
-     * @param reference the reference
-     * @return the checksum (0 to 96)
-     * @throws IllegalArgumentException thrown if the reference contains an invalid
-     *                                  character
+     * @param rawReferences the raw strings
+     * @return array with the ISO11649 creditor references
+     * @throws IllegalArgumentException if any raw string contains invalid
+     *                                  characters
+     * @see #createISO11649Reference(String)
      */
-    private static int calculateMod97(String reference) {
-        int len = reference.length();
-        if (len < 5)
-            throw new IllegalArgumentException("Insufficient characters for checksum calculation");
-
-        String rearranged = reference.substring(4) + reference.substring(0, 4);
-        int sum = 0;
-        for (int i = 0; i < len; i++) {
-            char ch = rearranged.charAt(i);
-            if (ch >= '0' && ch <= '9') {
-                sum = sum * 10 + (ch - '0');
-            } else if (ch >= 'A' && ch <= 'Z') {
-                sum = sum * 100 + (ch - 'A' + 10);
-            } else if (ch >= 'a' && ch <= 'z') {
-                sum = sum * 100 + (ch - 'a' + 10);
-            } else {
-                throw new IllegalArgumentException("Invalid character in reference: " + ch);
-            }
-            if (sum > 9999999)
-                sum = sum % 97;
-        }
-
-        sum = sum % 97;
-        return sum;
+    public static String[] createISO11649References(CharSequence[] rawReferences) {
+        String[] references = new String[rawReferences.length];
+        for (int i = 0; i < rawReferences.length; i++)
+            references[i] = Checksums.createISO11649Reference(rawReferences[i]);
+        return references;
     }
 
-    private static final int[] MOD_10 = { 0, 9, 4, 6, 8, 2, 7, 1, 3, 5 };
-
     /**
      * Validates if the string is a valid QR reference.
      * <p>
@@ -273,20 +274,44 @@ public class Payments {
      * otherwise
      */
     public static boolean isValidQRReference(String reference) {
+        return Checksums.isValidQRReference(reference, 0, reference.length());
+    }
 
-        reference = Strings.whiteSpaceRemoved(reference);
-
-        if (!isNumeric(reference))
-            return false;
-
-        int len = reference.length();
-        if (len != 27)
-            return false;
-
-        if ("000000000000000000000000000".equals(reference))
-            return false;
+    /**
+     * Validates if a range of the character sequence is a valid QR reference.
+     * <p>
+     * The range is checked for valid characters, valid length and a valid check
+     * digit. White space is ignored. No memory is allocated.
+     * </p>
+     *
+     * @param text  character sequence containing the QR reference
+     * @param start start index of the reference (inclusive)
+     * @param end   end index of the reference (exclusive)
+     * @return {@code true} if the reference number is valid, {@code false}
+     * otherwise
+     */
+    public static boolean isValidQRReference(CharSequence text, int start, int end) {
+        return Checksums.isValidQRReference(text, start, end);
+    }
 
-        return calculateMod10(reference) == 0;
+    /**
+     * Validates an array of QR references.
+     * <p>
+     * {@code null} elements are considered invalid.
+     * </p>
+     *
+     * @param references QR references to validate
+     * @return set with the indexes of the invalid references
+     * @see #isValidQRReference(String)
+     */
+    public static BitSet validateQRReferences(CharSequence[] references) {
+        BitSet invalid = new BitSet(references.length);
+        for (int i = 0; i < references.length; i++) {
+            CharSequence reference = references[i];
+            if (reference == null || !Checksums.isValidQRReference(reference, 0, reference.length()))
+                invalid.set(i);
+        }
+        return invalid;
     }
 
     /**
@@ -302,24 +327,23 @@ public class Payments {
      *                                  characters
      */
     public static String createQRReference(String rawReference) {
-        final String rawRef = Strings.whiteSpaceRemoved(rawReference);
-        if (!isNumeric(rawRef))
-            throw new IllegalArgumentException("Invalid character in reference (digits allowed only)");
-        if (rawRef.length() > 26)
-            throw new IllegalArgumentException("Reference number is too long");
-        int mod10 = calculateMod10(rawRef);
-        return "00000000000000000000000000".substring(0, 26 - rawRef.length()) + rawRef + (char) ('0' + mod10);
-
+        return Checksums.createQRReference(rawReference);
     }
 
-    private static int calculateMod10(String reference) {
-        int len = reference.length();
-        int carry = 0;
-        for (int i = 0; i < len; i++) {
-            int digit = reference.charAt(i) - '0';
-            carry = MOD_10[(carry + digit) % 10];
-        }
-        return (10 - carry) % 10;
+    /**
+     * Creates QR references from an array of raw strings.
+     *
+     * @param rawReferences the raw strings (digits and whitespace only)
+     * @return array with the QR references
+     * @throws IllegalArgumentException if any raw string contains invalid
+     *                                  characters
+     * @see #createQRReference(String)
+     */
+    public static String[] createQRReferences(CharSequence[] rawReferences) {
+        String[] references = new String[rawReferences.length];
+        for (int i = 0; i < rawReferences.length; i++)
+            references[i] = Checksums.createQRReference(rawReferences[i]);
+        return references;
     }
 
     /**
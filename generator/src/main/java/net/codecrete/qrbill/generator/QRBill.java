@@ -8,7 +8,20 @@ package net.codecrete.qrbill.generator;
 
 import net.codecrete.qrbill.canvas.*;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Generates Swiss QR bill payment part.
@@ -129,7 +142,24 @@ public class QRBill {
     }
 
     /**
-     * Generates a QR bill (payment part and receipt) or QR code as an SVG image or PDF document.
+     * Validates the bill data of many bills given in column-oriented form.
+     * <p>
+     * The validation is the same as for {@link #validate(Bill)}. But instead of
+     * cleaned bill data, the result only indicates which bills (rows) have failed
+     * and contains the validation messages of the failed rows. As no bill data
+     * is created for each row, this is an efficient way to validate a large number
+     * of bills before generating them.
+     * </p>
+     *
+     * @param columns bill data
+     * @return validation result
+     */
+    public static BulkValidationResult validateAll(BillColumns columns) {
+        return Validator.validateAll(columns);
+    }
+
+    /**
+     * Generates a QR bill (payment part and receipt) or QR code as an SVG image, PDF document or PNG image.
      * <p>
      * If the bill data is not valid, a {@link QRBillValidationError} is
      * thrown, which contains the validation result. For details about the
@@ -139,8 +169,9 @@ public class QRBill {
      * </p>
      * <p>
      * The graphics format is specified with {@code bill.getFormat().setGraphicsFormat(...)}.
-     * This method only supports the generation of SVG images and PDF files. For other graphics
-     * formats (in particular PNG), use {@link #draw}
+     * All graphics formats (SVG, PDF and PNG) are supported. To write the result directly to
+     * a stream or channel instead of creating a byte array, use {@link #generate(Bill, OutputStream)}
+     * or {@link #generate(Bill, WritableByteChannel)}. To draw on a custom canvas, use {@link #draw}.
      * </p>
      *
      * @param bill the bill data
@@ -157,6 +188,139 @@ public class QRBill {
         }
     }
 
+    /**
+     * Generates a QR bill (payment part and receipt) or QR code and writes it to the specified output stream.
+     * <p>
+     * This method is the same as {@link #generate(Bill)} except that the result is written
+     * directly to the output stream instead of being returned as a byte array. SVG images are
+     * written while they are drawn. PDF documents and PNG images are written once they are
+     * complete without creating an additional copy in memory.
+     * </p>
+     * <p>
+     * The bill data is validated before anything is written. If it is not valid, a
+     * {@link QRBillValidationError} is thrown and nothing is written. The output stream
+     * is not closed.
+     * </p>
+     *
+     * @param bill         the bill data
+     * @param outputStream the output stream to write the generated QR bill to
+     * @throws QRBillValidationError thrown if the bill data does not validate
+     * @see #generate(Bill)
+     */
+    public static void generate(Bill bill, OutputStream outputStream) {
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        Bill cleanedBill = result.getCleanedBill();
+        if (result.hasErrors())
+            throw new QRBillValidationError(result);
+
+        QRCode qrCode = new QRCode(cleanedBill);
+        boolean isStreaming = bill.getFormat().getGraphicsFormat() == GraphicsFormat.SVG;
+        // SVG canvases buffer the output themselves; PDF and PNG canvases write it in smaller pieces
+        OutputStream unclosableStream = new UnclosableOutputStream(outputStream);
+        try (OutputStream os = isStreaming ? unclosableStream : new BufferedOutputStream(unclosableStream);
+             Canvas canvas = isStreaming ? createCanvas(bill, os) : createCanvas(bill)) {
+            drawCleanedBill(cleanedBill, qrCode, canvas);
+            if (!isStreaming)
+                ((ByteArrayResult) canvas).writeTo(os);
+        } catch (IOException e) {
+            throw new QRBillGenerationException(e);
+        }
+    }
+
+    /**
+     * Generates a QR bill (payment part and receipt) or QR code and writes it to the specified channel.
+     * <p>
+     * See {@link #generate(Bill, OutputStream)} for details. The channel is not closed.
+     * </p>
+     *
+     * @param bill    the bill data
+     * @param channel the channel to write the generated QR bill to
+     * @throws QRBillValidationError thrown if the bill data does not validate
+     */
+    public static void generate(Bill bill, WritableByteChannel channel) {
+        generate(bill, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Generates QR bills for all specified bill data using a pool of worker threads.
+     * <p>
+     * The results are passed to the specified consumer in the order of the bills.
+     * The consumer is always called on the calling thread. The number of worker
+     * threads is equal to the number of available processors.
+     * </p>
+     * <p>
+     * See {@link #generateAll(Iterable, int, boolean, Consumer)} for details.
+     * </p>
+     *
+     * @param bills          the bill data
+     * @param resultConsumer consumer receiving the result of each bill
+     */
+    public static void generateAll(Iterable<Bill> bills, Consumer<BatchResult> resultConsumer) {
+        generateAll(bills, Runtime.getRuntime().availableProcessors(), true, resultConsumer);
+    }
+
+    /**
+     * Generates QR bills for all specified bill data using a pool of worker threads.
+     * <p>
+     * Each bill is processed in separate stages (validation, QR code text encoding,
+     * QR code matrix encoding and generation of the graphics output) that are scheduled
+     * independently on the worker threads. The graphics format and output size
+     * are taken from each bill's format (see {@link #generate(Bill)}).
+     * </p>
+     * <p>
+     * A bill failing validation or generation does not abort the batch. Instead, the
+     * failure is reported in the bill's {@link BatchResult}. The results are passed
+     * to the consumer on the calling thread. If {@code preserveOrder} is {@code true},
+     * they are passed in the order of the bills. Otherwise, they are passed in the
+     * order of completion, which reduces the number of results held in memory.
+     * </p>
+     * <p>
+     * The bills are consumed from the iterable as the batch progresses, and the
+     * number of bills in progress is limited. So the iterable can lazily provide a
+     * large number of bills.
+     * </p>
+     *
+     * @param bills          the bill data
+     * @param numThreads     number of worker threads
+     * @param preserveOrder  {@code true} if the results should be passed to the consumer in the order of the bills
+     * @param resultConsumer consumer receiving the result of each bill
+     */
+    public static void generateAll(Iterable<Bill> bills, int numThreads, boolean preserveOrder,
+                                   Consumer<BatchResult> resultConsumer) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("numThreads must be at least 1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, BatchGenerator.threadFactory());
+        try {
+            generateAll(bills, executor, 4 * numThreads, preserveOrder, resultConsumer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Generates QR bills for all specified bill data using the specified executor.
+     * <p>
+     * This method is the same as {@link #generateAll(Iterable, int, boolean, Consumer)}
+     * except that it uses an existing executor (e.g. a shared thread pool) and
+     * limits the number of bills in progress to {@code maxPending}.
+     * </p>
+     *
+     * @param bills          the bill data
+     * @param executor       executor running the processing stages
+     * @param maxPending     maximum number of bills in progress (including completed results not yet passed to the consumer)
+     * @param preserveOrder  {@code true} if the results should be passed to the consumer in the order of the bills
+     * @param resultConsumer consumer receiving the result of each bill
+     */
+    public static void generateAll(Iterable<Bill> bills, Executor executor, int maxPending, boolean preserveOrder,
+                                   Consumer<BatchResult> resultConsumer) {
+        if (maxPending < 1)
+            throw new IllegalArgumentException("maxPending must be at least 1");
+
+        BatchGenerator generator = new BatchGenerator(executor, maxPending, preserveOrder);
+        generator.generate(bills, resultConsumer);
+    }
+
     /**
      * Draws the QR bill (payment part and receipt) or QR code for the specified bill data onto the specified canvas.
      * <p>
@@ -224,24 +388,26 @@ public class QRBill {
     }
 
     private static void validateAndGenerate(Bill bill, Canvas canvas) throws IOException {
-        ValidationResult result = Validator.validate(bill);
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
         Bill cleanedBill = result.getCleanedBill();
         if (result.hasErrors())
             throw new QRBillValidationError(result);
 
-        if (bill.getFormat().getOutputSize() == OutputSize.QR_CODE_ONLY) {
-            QRCode qrCode = new QRCode(cleanedBill);
+        drawCleanedBill(cleanedBill, new QRCode(cleanedBill), canvas);
+    }
+
+    static void drawCleanedBill(Bill cleanedBill, QRCode qrCode, Canvas canvas) throws IOException {
+        if (cleanedBill.getFormat().getOutputSize() == OutputSize.QR_CODE_ONLY) {
             qrCode.draw(canvas, 0, 0);
 
-        } else if (bill.getFormat().getOutputSize() == OutputSize.QR_CODE_WITH_QUIET_ZONE) {
-                QRCode qrCode = new QRCode(cleanedBill);
-                canvas.startPath();
-                canvas.addRectangle(0, 0, QR_CODE_WITH_QUIET_ZONE_WIDTH, QR_CODE_WITH_QUIET_ZONE_HEIGHT);
-                canvas.fillPath(0xffffff, false);
-                qrCode.draw(canvas, 5, 5);
+        } else if (cleanedBill.getFormat().getOutputSize() == OutputSize.QR_CODE_WITH_QUIET_ZONE) {
+            canvas.startPath();
+            canvas.addRectangle(0, 0, QR_CODE_WITH_QUIET_ZONE_WIDTH, QR_CODE_WITH_QUIET_ZONE_HEIGHT);
+            canvas.fillPath(0xffffff, false);
+            qrCode.draw(canvas, 5, 5);
 
         } else {
-            BillLayout layout = new BillLayout(cleanedBill, canvas);
+            BillLayout layout = new BillLayout(cleanedBill, qrCode, canvas);
             layout.draw();
         }
     }
@@ -264,7 +430,7 @@ public class QRBill {
      * @throws QRBillValidationError thrown if the bill data does not validate
      */
     public static String encodeQrCodeText(Bill bill) {
-        ValidationResult result = Validator.validate(bill);
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
         Bill cleanedBill = result.getCleanedBill();
         if (result.hasErrors())
             throw new QRBillValidationError(result);
@@ -272,6 +438,24 @@ public class QRBill {
         return QRCodeText.create(cleanedBill);
     }
 
+    /**
+     * Validates and cleans the bill data and encodes it as the text embedded in the QR code.
+     * <p>
+     * This method is the same as {@link #encodeQrCodeText(Bill)} except that invalid bill
+     * data is reported in the result instead of throwing a {@link QRBillValidationError}.
+     * </p>
+     *
+     * @param bill the bill data to encode
+     * @return the encoding result with the QR code text or the validation errors
+     */
+    public static EncodingResult tryEncodeQrCodeText(Bill bill) {
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        if (result.hasErrors())
+            return new EncodingResult(null, result);
+
+        return new EncodingResult(QRCodeText.create(result.getCleanedBill()), result);
+    }
+
     /**
      * Decodes the text embedded in the QR code and fills it into a {@link Bill}
      * data structure.
@@ -292,7 +476,84 @@ public class QRBill {
         return QRCodeText.decode(text);
     }
 
-    private static Canvas createCanvas(Bill bill) throws IOException {
+    /**
+     * Decodes the text embedded in the QR code and fills it into a {@link Bill}
+     * data structure.
+     * <p>
+     * This method is the same as {@link #decodeQrCodeText(String)} except that a
+     * validation error is reported in the result instead of throwing a
+     * {@link QRBillValidationError}. It is intended for processing many texts
+     * where invalid texts are common, e.g. texts of arbitrary scanned QR codes.
+     * </p>
+     *
+     * @param text the text to decode
+     * @return the decoding result with the decoded bill data or the validation error
+     */
+    public static DecodingResult tryDecodeQrCodeText(String text) {
+        ValidationResult result = new ValidationResult();
+        Bill bill = QRCodeText.decode(text, result);
+        return new DecodingResult(0, text, bill, bill == null ? result : null);
+    }
+
+    /**
+     * Decodes all QR code texts contained in the specified file using a pool of worker threads.
+     * <p>
+     * The number of worker threads is equal to the number of available processors.
+     * See {@link #decodeAll(ReadableByteChannel, QrPayloadFormat, int, Consumer)} for details.
+     * </p>
+     *
+     * @param path           path of the file
+     * @param format         format of the file
+     * @param resultConsumer consumer receiving the result of each QR code text
+     * @throws IOException thrown if the file cannot be read or its records are not properly framed
+     */
+    public static void decodeAll(Path path, QrPayloadFormat format, Consumer<DecodingResult> resultConsumer)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            decodeAll(channel, format, Runtime.getRuntime().availableProcessors(), resultConsumer);
+        }
+    }
+
+    /**
+     * Decodes all QR code texts read from the specified channel using a pool of worker threads.
+     * <p>
+     * The records are read on the calling thread and decoded in groups on the worker threads
+     * (see {@link #decodeQrCodeText(String)} for the validations). A text failing to decode
+     * does not abort the process and no exception is thrown. Instead, the error is reported
+     * in the text's {@link DecodingResult}. The results are passed to the consumer on the
+     * calling thread in the order of the records.
+     * </p>
+     * <p>
+     * The channel is read as decoding progresses, and the number of records in progress is
+     * limited. So the channel can provide a large number of records. The channel is not closed.
+     * </p>
+     *
+     * @param channel        the channel to read from
+     * @param format         format of the data read from the channel
+     * @param numThreads     number of worker threads
+     * @param resultConsumer consumer receiving the result of each QR code text
+     * @throws IOException thrown if the channel cannot be read or its records are not properly framed
+     */
+    public static void decodeAll(ReadableByteChannel channel, QrPayloadFormat format, int numThreads,
+                                 Consumer<DecodingResult> resultConsumer) throws IOException {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("numThreads must be at least 1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, BatchGenerator.threadFactory());
+        try {
+            BulkDecoder decoder = new BulkDecoder(executor, 2 * numThreads, format);
+            decoder.decode(channel, resultConsumer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static Canvas createCanvas(Bill bill) throws IOException {
+        return createCanvas(bill, null);
+    }
+
+    // If an output stream is specified, SVG images are written to it while drawing
+    private static Canvas createCanvas(Bill bill, OutputStream os) throws IOException {
         double drawingWidth;
         double drawingHeight;
         BillFormat format = bill.getFormat();
@@ -329,7 +590,9 @@ public class QRBill {
         Canvas canvas;
         switch (format.getGraphicsFormat()) {
             case SVG:
-                canvas = new SVGCanvas(drawingWidth, drawingHeight, format.getFontFamily());
+                canvas = os != null
+                        ? new SVGCanvas(os, drawingWidth, drawingHeight, format.getFontFamily())
+                        : new SVGCanvas(drawingWidth, drawingHeight, format.getFontFamily());
                 break;
             case PDF:
                 canvas = new PDFCanvas(drawingWidth, drawingHeight,
@@ -338,11 +601,39 @@ public class QRBill {
                                 : PDFFontSettings.standardHelvetica());
                 break;
             case PNG:
-                canvas = new PNGCanvas(drawingWidth, drawingHeight, format.getResolution(), format.getFontFamily());
+                if (format.getOutputSize() == OutputSize.QR_CODE_ONLY
+                        || format.getOutputSize() == OutputSize.QR_CODE_WITH_QUIET_ZONE) {
+                    // the QR code consists of rectangles only; rasterize it without AWT
+                    canvas = new QRCodePNGCanvas(drawingWidth, drawingHeight, format.getResolution());
+                } else if (format.isHeadlessRendering()) {
+                    canvas = new HeadlessPNGCanvas(drawingWidth, drawingHeight, format.getResolution());
+                } else {
+                    canvas = new PNGCanvas(drawingWidth, drawingHeight, format.getResolution(), format.getFontFamily());
+                }
                 break;
             default:
                 throw new QRBillGenerationException("Invalid graphics format specified");
         }
         return canvas;
     }
+
+    /**
+     * Output stream flushing but not closing the underlying stream when it is closed.
+     */
+    private static class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
 }
@@ -10,6 +10,7 @@ import io.nayuki.qrcodegen.QrCode;
 import net.codecrete.qrbill.canvas.Canvas;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Generates the QR code for the Swiss QR bill.
@@ -23,6 +24,7 @@ class QRCode {
     static final double SIZE = 46; // mm
 
     private final String embeddedText;
+    private Modules modules;
 
     /**
      * Creates an instance of the QR code for the specified bill data.
@@ -33,7 +35,34 @@ class QRCode {
      * @param bill bill data
      */
     QRCode(Bill bill) {
-        embeddedText = QRCodeText.create(bill);
+        this(QRCodeText.create(bill));
+    }
+
+    /**
+     * Creates an instance of the QR code for the specified embedded text.
+     *
+     * @param embeddedText text to embed in the QR code
+     */
+    QRCode(String embeddedText) {
+        this.embeddedText = embeddedText;
+    }
+
+    /**
+     * Encodes the embedded text as a QR code matrix.
+     * <p>
+     * The matrix is computed once and reused by subsequent calls to {@link #draw}.
+     * Calling this method is optional. It allows separating the encoding
+     * from the drawing, e.g. to run them on different threads.
+     * </p>
+     * <p>
+     * If enabled, the matrix is taken from the {@link QRCodeCache}.
+     * </p>
+     */
+    void encode() {
+        if (modules != null)
+            return;
+
+        modules = QRCodeCache.getModules(embeddedText);
     }
 
     /**
@@ -46,14 +75,11 @@ class QRCode {
      * @throws IOException exception thrown in case of error in graphics context
      */
     void draw(Canvas graphics, double offsetX, double offsetY) throws IOException {
-        QrCode qrCode = QrCode.encodeText(embeddedText, QrCode.Ecc.MEDIUM);
-
-        boolean[][] modules = copyModules(qrCode);
-        clearSwissCrossArea(modules);
+        encode();
 
-        graphics.setTransformation(offsetX, offsetY, 0, SIZE / modules.length / 25.4 * 72, SIZE / modules.length / 25.4 * 72);
+        graphics.setTransformation(offsetX, offsetY, 0, SIZE / modules.size / 25.4 * 72, SIZE / modules.size / 25.4 * 72);
         graphics.startPath();
-        drawModulesPath(graphics, modules);
+        drawModulesPath(graphics);
         graphics.fillPath(0, false);
         graphics.setTransformation(offsetX, offsetY, 0, 1, 1);
 
@@ -115,70 +141,215 @@ class QRCode {
         graphics.fillPath(0xffffff, false);
     }
 
-    private void drawModulesPath(Canvas graphics, boolean[][] modules) throws IOException {
-        // Simple algorithm to reduce the number of drawn rectangles
-        int size = modules.length;
+    private void drawModulesPath(Canvas graphics) throws IOException {
+        final double unit = 25.4 / 72;
+        int size = modules.size;
+        int[] rectangles = modules.rectangles;
+        for (int i = 0; i < rectangles.length; i += 4) {
+            int x = rectangles[i];
+            int y = rectangles[i + 1];
+            int w = rectangles[i + 2];
+            int h = rectangles[i + 3];
+            graphics.addRectangle(x * unit, (size - y - h) * unit, w * unit, h * unit);
+        }
+    }
+
+    /**
+     * Encoded QR code, decomposed into rectangles.
+     * <p>
+     * Instances are immutable and can be shared between threads.
+     * </p>
+     */
+    static class Modules {
+        /** Number of modules per row and column */
+        final int size;
+        /** Rectangles covering the dark modules (possibly overlapping), as sequence of x, y, width and height (in modules, from top left) */
+        final int[] rectangles;
+
+        private Modules(int size, int[] rectangles) {
+            this.size = size;
+            this.rectangles = rectangles;
+        }
+
+        /**
+         * Encodes the specified text as a QR code, clears the area of the Swiss cross
+         * and covers the dark modules with rectangles.
+         *
+         * @param embeddedText text to embed in the QR code
+         * @return encoded QR code
+         */
+        static Modules encode(String embeddedText) {
+            QrCode qrCode = QrCode.encodeText(embeddedText, QrCode.Ecc.MEDIUM);
+            long[][] rows = copyModules(qrCode);
+            clearSwissCrossArea(rows, qrCode.size);
+            return new Modules(qrCode.size, decomposeIntoRectangles(rows, qrCode.size));
+        }
+    }
+
+    // The modules are stored bit-packed: each row is an array of longs, with
+    // module x in bit (x % 64) of element (x / 64). Set bits are dark modules.
+
+    // Covers the dark modules with rectangles by merging runs: each row is split
+    // into horizontal runs of dark modules, and a rectangle of the previous row
+    // is extended downwards as long as its x range remains dark. New rectangles
+    // are only started for the parts of a run not covered by extended rectangles.
+    // As all rectangles are filled together (non-zero winding rule), they may overlap.
+    private static int[] decomposeIntoRectangles(long[][] rows, int size) {
+        int[] rectangles = new int[64];
+        int count = 0;
+        // indexes (into rectangles) of the rectangles reaching the previous row and the current row
+        int[] open = new int[16];
+        int numOpen = 0;
+        int[] next = new int[16];
+        int numNext;
+        long[] covered = new long[rows.length > 0 ? rows[0].length : 0];
+
         for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                if (modules[y][x]) {
-                    drawLargestRectangle(graphics, modules, x, y);
+            long[] row = rows[y];
+            Arrays.fill(covered, 0);
+            numNext = 0;
+
+            // extend rectangles whose x range is dark in this row
+            for (int i = 0; i < numOpen; i++) {
+                int index = open[i];
+                int x = rectangles[index];
+                int end = x + rectangles[index + 2];
+                if (isRangeSet(row, x, end)) {
+                    rectangles[index + 3] += 1;
+                    setRange(covered, x, end);
+                    if (numNext == next.length)
+                        next = Arrays.copyOf(next, numNext * 2);
+                    next[numNext++] = index;
                 }
             }
+
+            // start new rectangles for the uncovered parts of each run
+            int x = nextSetBit(row, 0, size);
+            while (x < size) {
+                int end = x + runLength(row, x, size);
+                int uncoveredStart = nextUncovered(row, covered, x, end);
+                if (uncoveredStart < end) {
+                    int uncoveredEnd = lastUncovered(row, covered, uncoveredStart, end) + 1;
+                    if (count + 4 > rectangles.length)
+                        rectangles = Arrays.copyOf(rectangles, rectangles.length * 2);
+                    rectangles[count] = uncoveredStart;
+                    rectangles[count + 1] = y;
+                    rectangles[count + 2] = uncoveredEnd - uncoveredStart;
+                    rectangles[count + 3] = 1;
+                    if (numNext == next.length)
+                        next = Arrays.copyOf(next, numNext * 2);
+                    next[numNext++] = count;
+                    count += 4;
+                }
+                x = nextSetBit(row, end, size);
+            }
+
+            int[] t = open;
+            open = next;
+            next = t;
+            numOpen = numNext;
         }
+        return Arrays.copyOf(rectangles, count);
     }
 
-    // Simple algorithms to reduce the number of rectangles for drawing the QR code
-    // and reduce SVG size
-    private void drawLargestRectangle(Canvas graphics, boolean[][] modules, int x, int y) throws IOException {
-        int size = modules.length;
-
-        int bestW = 1;
-        int bestH = 1;
-        int maxArea = 1;
-
-        int xLimit = size;
-        int iy = y;
-        while (iy < size && modules[iy][x]) {
-            int w = 0;
-            while (x + w < xLimit && modules[iy][x + w])
-                w++;
-            int area = w * (iy - y + 1);
-            if (area > maxArea) {
-                maxArea = area;
-                bestW = w;
-                bestH = iy - y + 1;
-            }
-            xLimit = x + w;
-            iy++;
+    // Returns the index of the first set bit at or after x (or limit if there is none before limit)
+    private static int nextSetBit(long[] row, int x, int limit) {
+        while (x < limit) {
+            long word = row[x >>> 6] & (-1L << x);
+            if (word != 0)
+                return Math.min((x & ~63) + Long.numberOfTrailingZeros(word), limit);
+            x = (x & ~63) + 64;
         }
+        return limit;
+    }
 
-        final double unit = 25.4 / 72;
-        graphics.addRectangle(x * unit, (size - y - bestH) * unit, bestW * unit, bestH * unit);
-        clearRectangle(modules, x, y, bestW, bestH);
+    // Returns the index of the first module in [x, end) that is dark but not covered (or end if there is none)
+    private static int nextUncovered(long[] row, long[] covered, int x, int end) {
+        while (x < end) {
+            int word = x >>> 6;
+            long bits = row[word] & ~covered[word] & (-1L << x);
+            if (bits != 0)
+                return Math.min((x & ~63) + Long.numberOfTrailingZeros(bits), end);
+            x = (x & ~63) + 64;
+        }
+        return end;
     }
 
-    private static void clearSwissCrossArea(boolean[][] modules) {
+    // Returns the index of the last module in [start, end) that is dark but not covered
+    // (the module at start must be dark and uncovered)
+    private static int lastUncovered(long[] row, long[] covered, int start, int end) {
+        int x = end - 1;
+        while (x > start) {
+            int word = x >>> 6;
+            long bits = row[word] & ~covered[word] & (-1L >>> (63 - (x & 63)));
+            if (bits != 0)
+                return Math.max((x & ~63) + 63 - Long.numberOfLeadingZeros(bits), start);
+            x = (x & ~63) - 1;
+        }
+        return start;
+    }
+
+    // Returns the number of consecutive set bits starting at x (but not extending beyond limit)
+    private static int runLength(long[] row, int x, int limit) {
+        int end = x;
+        while (end < limit) {
+            int bit = end & 63;
+            // the bits shifted in at the top are 0, so the run cannot extend past the word
+            int ones = Long.numberOfTrailingZeros(~(row[end >>> 6] >>> bit));
+            end += ones;
+            if (ones < 64 - bit)
+                break;
+        }
+        return Math.min(end, limit) - x;
+    }
+
+    // Tests if all bits within [x, end) are set
+    private static boolean isRangeSet(long[] row, int x, int end) {
+        for (int word = x >>> 6; word << 6 < end; word++) {
+            long mask = rangeMask(word, x, end);
+            if ((row[word] & mask) != mask)
+                return false;
+        }
+        return true;
+    }
+
+    private static void setRange(long[] row, int x, int end) {
+        for (int word = x >>> 6; word << 6 < end; word++)
+            row[word] |= rangeMask(word, x, end);
+    }
+
+    // Returns the mask of the bits within [x, end) in the specified word
+    private static long rangeMask(int word, int x, int end) {
+        int from = Math.max(x - (word << 6), 0);
+        int to = Math.min(end - (word << 6), 64);
+        return (to == 64 ? -1L : (1L << to) - 1) & (-1L << from);
+    }
+
+    private static void clearSwissCrossArea(long[][] rows, int size) {
         // The Swiss cross area is supposed to be 7 by 7 mm in the center of
         // the QR code, which is 46 by 46 mm.
         // We clear sufficient modules to make room for the cross.
-        int size = modules.length;
         int start = (int) Math.floor((46 - 6.8) / 2 * size / 46);
-        clearRectangle(modules, start, start, size - 2 * start, size - 2 * start);
+        clearRectangle(rows, start, start, size - 2 * start, size - 2 * start);
     }
 
-    private static boolean[][] copyModules(QrCode qrCode) {
+    private static long[][] copyModules(QrCode qrCode) {
         int size = qrCode.size;
-        boolean[][] modules = new boolean[size][size];
+        long[][] rows = new long[size][(size + 63) >>> 6];
         for (int y = 0; y < size; y++)
             for (int x = 0; x < size; x++)
-                modules[y][x] = qrCode.getModule(x, y);
-        return modules;
+                if (qrCode.getModule(x, y))
+                    rows[y][x >>> 6] |= 1L << x;
+        return rows;
     }
 
-    private static void clearRectangle(boolean[][] modules, int x, int y, int width, int height) {
-        for (int iy = y; iy < y + height; iy++)
-            for (int ix = x; ix < x + width; ix++)
-                modules[iy][ix] = false;
+    private static void clearRectangle(long[][] rows, int x, int y, int width, int height) {
+        int end = x + width;
+        for (int word = x >>> 6; word << 6 < end; word++) {
+            long mask = rangeMask(word, x, end);
+            for (int iy = y; iy < y + height; iy++)
+                rows[iy][word] &= ~mask;
+        }
     }
 
 }
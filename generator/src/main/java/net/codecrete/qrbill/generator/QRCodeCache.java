@@ -0,0 +1,163 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of encoded QR codes.
+ * <p>
+ * If the same bill is generated several times (e.g. as PDF, PNG and SVG), the
+ * QR code is only encoded once. The cache is keyed by the text embedded in the QR
+ * code and holds the QR code modules already decomposed into rectangles, ready for
+ * drawing.
+ * </p>
+ * <p>
+ * The cache is disabled by default. It is enabled by setting a maximum size.
+ * If the cache is full, the least recently used entry is removed.
+ * </p>
+ * <p>
+ * The cache can be used from multiple threads.
+ * </p>
+ */
+public final class QRCodeCache {
+
+    private static final Object lock = new Object();
+    private static int maxSize = 0;
+    private static long hitCount = 0;
+    private static long missCount = 0;
+
+    private static final LinkedHashMap<String, QRCode.Modules> cache =
+            new LinkedHashMap<String, QRCode.Modules>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, QRCode.Modules> eldest) {
+                    return size() > maxSize;
+                }
+            };
+
+    private QRCodeCache() {
+        // do not instantiate
+    }
+
+    /**
+     * Gets the maximum number of QR codes held in the cache.
+     *
+     * @return the maximum number of QR codes ({@code 0} if the cache is disabled)
+     */
+    public static int getMaxSize() {
+        synchronized (lock) {
+            return maxSize;
+        }
+    }
+
+    /**
+     * Sets the maximum number of QR codes held in the cache.
+     * <p>
+     * Each QR code takes about 10 to 20 KB of memory. Setting the maximum size
+     * to 0 disables the cache and removes all cached QR codes.
+     * </p>
+     *
+     * @param maxSize the maximum number of QR codes
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("maxSize must not be negative");
+
+        synchronized (lock) {
+            QRCodeCache.maxSize = maxSize;
+            if (maxSize == 0) {
+                cache.clear();
+            } else {
+                Iterator<String> iterator = cache.keySet().iterator();
+                while (cache.size() > maxSize) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of QR codes currently held in the cache.
+     *
+     * @return the number of QR codes
+     */
+    public static int getSize() {
+        synchronized (lock) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Gets the number of times an encoded QR code was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static long getHitCount() {
+        synchronized (lock) {
+            return hitCount;
+        }
+    }
+
+    /**
+     * Gets the number of times a QR code had to be encoded as it was not found in the cache.
+     * <p>
+     * QR codes encoded while the cache is disabled are not counted.
+     * </p>
+     *
+     * @return the number of cache misses
+     */
+    public static long getMissCount() {
+        synchronized (lock) {
+            return missCount;
+        }
+    }
+
+    /**
+     * Removes all QR codes from the cache and resets the hit and miss count.
+     */
+    public static void clear() {
+        synchronized (lock) {
+            cache.clear();
+            hitCount = 0;
+            missCount = 0;
+        }
+    }
+
+    /**
+     * Gets the encoded QR code for the specified text.
+     * <p>
+     * If the QR code is not in the cache, it is encoded and added to the cache.
+     * The encoding runs outside the lock so other threads are not blocked.
+     * </p>
+     *
+     * @param embeddedText text embedded in the QR code
+     * @return encoded QR code
+     */
+    static QRCode.Modules getModules(String embeddedText) {
+        synchronized (lock) {
+            if (maxSize != 0) {
+                QRCode.Modules modules = cache.get(embeddedText);
+                if (modules != null) {
+                    hitCount += 1;
+                    return modules;
+                }
+                missCount += 1;
+            }
+        }
+
+        QRCode.Modules modules = QRCode.Modules.encode(embeddedText);
+
+        synchronized (lock) {
+            if (maxSize != 0)
+                cache.put(embeddedText, modules);
+        }
+        return modules;
+    }
+}
@@ -9,9 +9,7 @@ package net.codecrete.qrbill.generator;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.ParsePosition;
 import java.util.Locale;
-import java.util.regex.Pattern;
 
 
 /**
@@ -118,9 +116,6 @@ public class QRCodeText {
         return createAmountFormatter().format(amount);
     }
 
-    // According to a letter from SIX dated August 5, 2020, only the major number (leading "02") should be checked
-    private static final Pattern VALID_VERSION = Pattern.compile("^02\\d\\d$");
-
     /**
      * Decodes the specified text and returns the bill data.
      * <p>
@@ -137,41 +132,69 @@ public class QRCodeText {
      * @throws QRBillValidationError if a validation error occurs
      */
     public static Bill decode(String text) {
-        String[] lines = splitLines(text);
-        validateHeader(lines);
+        ValidationResult result = new ValidationResult();
+        Bill bill = decode(text, result);
+        if (bill == null)
+            throw new QRBillValidationError(result);
+        return bill;
+    }
+
+    /**
+     * Decodes the specified text and returns the bill data.
+     * <p>
+     * This method is the same as {@link #decode(String)} except that a validation
+     * error is added to the specified validation result instead of being thrown.
+     * </p>
+     *
+     * @param text   the text to decode
+     * @param result validation result receiving the validation error
+     * @return the bill data, or {@code null} if a validation error occurred
+     */
+    static Bill decode(String text, ValidationResult result) {
+        // quickly reject texts of other QR codes (without scanning the lines)
+        if (!hasQrTypeHeader(text)) {
+            addDecodingError(result, ValidationConstants.FIELD_QR_TYPE, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+            return null;
+        }
+
+        Lines lines = new Lines(text);
+        if (!isValidHeader(lines, result))
+            return null;
 
         Bill bill = new Bill();
         bill.setVersion(Bill.Version.V2_0);
-        bill.setSeparator(text.contains("\r\n") ? QrDataSeparator.CR_LF : QrDataSeparator.LF);
+        bill.setSeparator(lines.hasCrLf ? QrDataSeparator.CR_LF : QrDataSeparator.LF);
 
-        bill.setAccount(lines[3]);
+        bill.setAccount(lines.get(3));
 
         bill.setCreditor(decodeAddress(lines, 4, false));
 
-        if (!lines[18].isEmpty()) {
-            ParsePosition position = new ParsePosition(0);
-            BigDecimal amount = (BigDecimal) createAmountFormatter().parse(lines[18], position);
-            if (position.getIndex() == lines[18].length())
-                bill.setAmount(amount);
-            else
-                throwSingleValidationError(ValidationConstants.FIELD_AMOUNT, ValidationConstants.KEY_NUMBER_INVALID);
+        if (!lines.isEmpty(18)) {
+            BigDecimal amount = parseAmount(text, lines.start(18), lines.end(18));
+            if (amount == null) {
+                addDecodingError(result, ValidationConstants.FIELD_AMOUNT, ValidationConstants.KEY_NUMBER_INVALID);
+                return null;
+            }
+            bill.setAmount(amount);
         } else {
             bill.setAmount(null);
         }
 
-        bill.setCurrency(lines[19]);
+        bill.setCurrency(lines.get(19));
 
         bill.setDebtor(decodeAddress(lines, 20, true));
 
         // Set reference type and reference in reverse order
         // to retain reference type (as it is updated by setReference())
-        bill.setReference(lines[28]);
-        bill.setReferenceType(lines[27]);
-        bill.setUnstructuredMessage(lines[29]);
-        if (!"EPD".equals(lines[30]))
-            throwSingleValidationError(ValidationConstants.FIELD_TRAILER, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+        bill.setReference(lines.get(28));
+        bill.setReferenceType(lines.get(27));
+        bill.setUnstructuredMessage(lines.get(29));
+        if (!lines.equals(30, "EPD")) {
+            addDecodingError(result, ValidationConstants.FIELD_TRAILER, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+            return null;
+        }
 
-        bill.setBillInformation(lines.length > 31 ? lines[31] : "");
+        bill.setBillInformation(lines.count > 31 ? lines.get(31) : "");
 
         decodeAlternativeSchemes(lines, bill);
 
@@ -179,31 +202,101 @@ public class QRCodeText {
     }
 
     @SuppressWarnings("java:S1066")
-    private static void validateHeader(String[] lines) {
-        if (lines.length < 31 || lines.length > 34) {
+    private static boolean isValidHeader(Lines lines, ValidationResult result) {
+        if (lines.count < 31 || lines.count > 34) {
             // A line feed at the end is illegal (cf 4.2.3) but found in practice. Don't be too strict.
-            if (!(lines.length == 35 && lines[34].isEmpty()))
-                throwSingleValidationError(ValidationConstants.FIELD_QR_TYPE, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+            if (!(lines.count == 35 && lines.isEmpty(34))) {
+                addDecodingError(result, ValidationConstants.FIELD_QR_TYPE, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+                return false;
+            }
+        }
+        if (!lines.equals(0, "SPC")) {
+            addDecodingError(result, ValidationConstants.FIELD_QR_TYPE, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
+            return false;
+        }
+        if (!isValidVersion(lines.text, lines.start(1), lines.end(1))) {
+            addDecodingError(result, ValidationConstants.FIELD_VERSION, ValidationConstants.KEY_VERSION_UNSUPPORTED);
+            return false;
+        }
+        if (!lines.equals(2, "1")) {
+            addDecodingError(result, ValidationConstants.FIELD_CODING_TYPE, ValidationConstants.KEY_CODING_TYPE_UNSUPPORTED);
+            return false;
         }
-        if (!"SPC".equals(lines[0]))
-            throwSingleValidationError(ValidationConstants.FIELD_QR_TYPE, ValidationConstants.KEY_DATA_STRUCTURE_INVALID);
-        if (!VALID_VERSION.matcher(lines[1]).matches())
-            throwSingleValidationError(ValidationConstants.FIELD_VERSION, ValidationConstants.KEY_VERSION_UNSUPPORTED);
-        if (!"1".equals(lines[2]))
-            throwSingleValidationError(ValidationConstants.FIELD_CODING_TYPE, ValidationConstants.KEY_CODING_TYPE_UNSUPPORTED);
+        return true;
     }
 
-    private static void decodeAlternativeSchemes(String[] lines, Bill bill) {
+    private static boolean hasQrTypeHeader(String text) {
+        if (!text.startsWith("SPC"))
+            return false;
+        if (text.length() == 3)
+            return true;
+        char ch = text.charAt(3);
+        return ch == '\r' || ch == '\n';
+    }
+
+    // According to a letter from SIX dated August 5, 2020, only the major number (leading "02") should be checked
+    private static boolean isValidVersion(String text, int start, int end) {
+        return end - start == 4 && text.charAt(start) == '0' && text.charAt(start + 1) == '2'
+                && isDigit(text.charAt(start + 2)) && isDigit(text.charAt(start + 3));
+    }
+
+    /**
+     * Parses the amount in the range of the text.
+     * <p>
+     * The amount consists of an optional minus sign, digits and an optional decimal point
+     * followed by further digits. At least one digit is required.
+     * </p>
+     *
+     * @param text  the text containing the amount
+     * @param start start index of the amount (inclusive)
+     * @param end   end index of the amount (exclusive)
+     * @return parsed amount, or {@code null} if the amount is invalid
+     */
+    static BigDecimal parseAmount(String text, int start, int end) {
+        int index = start;
+        boolean isNegative = index < end && text.charAt(index) == '-';
+        if (isNegative)
+            index++;
+
+        long unscaledValue = 0;
+        int numDigits = 0;
+        int scale = -1;
+        for (; index < end; index++) {
+            char ch = text.charAt(index);
+            if (isDigit(ch)) {
+                unscaledValue = unscaledValue * 10 + (ch - '0');
+                numDigits++;
+                if (scale >= 0)
+                    scale++;
+            } else if (ch == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return null;
+            }
+        }
+
+        if (numDigits == 0)
+            return null;
+        if (numDigits > 18) // long might overflow
+            return new BigDecimal(text.substring(start, end));
+        return BigDecimal.valueOf(isNegative ? -unscaledValue : unscaledValue, Math.max(scale, 0));
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static void decodeAlternativeSchemes(Lines lines, Bill bill) {
         AlternativeScheme[] alternativeSchemes = null;
-        int numSchemes = lines.length - 32;
+        int numSchemes = lines.count - 32;
         // skip empty schemes at end (due to invalid line feed at end)
-        if (numSchemes > 0 && lines[32 + numSchemes - 1].isEmpty())
+        if (numSchemes > 0 && lines.isEmpty(32 + numSchemes - 1))
             numSchemes--;
         if (numSchemes > 0) {
             alternativeSchemes = new AlternativeScheme[numSchemes];
             for (int i = 0; i < numSchemes; i++) {
                 AlternativeScheme scheme = new AlternativeScheme();
-                scheme.setInstruction(lines[32 + i]);
+                scheme.setInstruction(lines.get(32 + i));
                 alternativeSchemes[i] = scheme;
             }
         }
@@ -213,49 +306,108 @@ public class QRCodeText {
     /**
      * Process seven lines and extract and address
      *
-     * @param lines      line array
+     * @param lines      lines of the text
      * @param startLine  index of first line to process
      * @param isOptional indicates if address is optional
      * @return decoded address or {@code null} if address is optional and empty
      */
     @SuppressWarnings("deprecation")
-    private static Address decodeAddress(String[] lines, int startLine, boolean isOptional) {
+    private static Address decodeAddress(Lines lines, int startLine, boolean isOptional) {
 
-        boolean isEmpty = lines[startLine].isEmpty() && lines[startLine + 1].isEmpty()
-                && lines[startLine + 2].isEmpty() && lines[startLine + 3].isEmpty()
-                && lines[startLine + 4].isEmpty() && lines[startLine + 5].isEmpty()
-                && lines[startLine + 6].isEmpty();
+        boolean isEmpty = lines.isEmpty(startLine) && lines.isEmpty(startLine + 1)
+                && lines.isEmpty(startLine + 2) && lines.isEmpty(startLine + 3)
+                && lines.isEmpty(startLine + 4) && lines.isEmpty(startLine + 5)
+                && lines.isEmpty(startLine + 6);
 
         if (isEmpty && isOptional)
             return null;
 
         Address address = new Address();
-        boolean isStructuredAddress = "S".equals(lines[startLine]);
-        address.setName(lines[startLine + 1]);
+        boolean isStructuredAddress = lines.equals(startLine, "S");
+        address.setName(lines.get(startLine + 1));
         if (isStructuredAddress) {
-            address.setStreet(lines[startLine + 2]);
-            address.setHouseNo(lines[startLine + 3]);
+            address.setStreet(lines.get(startLine + 2));
+            address.setHouseNo(lines.get(startLine + 3));
         } else {
-            address.setAddressLine1(lines[startLine + 2]);
-            address.setAddressLine2(lines[startLine + 3]);
+            address.setAddressLine1(lines.get(startLine + 2));
+            address.setAddressLine2(lines.get(startLine + 3));
         }
-        if (!lines[startLine + 4].isEmpty())
-            address.setPostalCode(lines[startLine + 4]);
-        if (!lines[startLine + 5].isEmpty())
-            address.setTown(lines[startLine + 5]);
-        address.setCountryCode(lines[startLine + 6]);
+        if (!lines.isEmpty(startLine + 4))
+            address.setPostalCode(lines.get(startLine + 4));
+        if (!lines.isEmpty(startLine + 5))
+            address.setTown(lines.get(startLine + 5));
+        address.setCountryCode(lines.get(startLine + 6));
         return address;
     }
 
-    private static final Pattern NEWLINE_PATTERN = Pattern.compile("\r?\n|\r");
+    /**
+     * Lines of the QR code text.
+     * <p>
+     * The line boundaries are determined in a single pass over the text.
+     * Lines are separated by CR/LF, LF or CR. Strings are only created
+     * for the lines that are retrieved. Scanning stops after {@code MAX_LINES}
+     * lines as the text is invalid anyway.
+     * </p>
+     */
+    private static class Lines {
+
+        // one more than the maximum number of valid lines (34 lines and an additional line feed)
+        private static final int MAX_LINES = 36;
+
+        private final String text;
+        private final int[] starts = new int[MAX_LINES];
+        private final int[] ends = new int[MAX_LINES];
+        private int count;
+        private boolean hasCrLf;
+
+        Lines(String text) {
+            this.text = text;
+            int length = text.length();
+            int lineStart = 0;
+            for (int index = 0; index < length && count < MAX_LINES; index++) {
+                char ch = text.charAt(index);
+                if (ch == '\r' || ch == '\n') {
+                    addLine(lineStart, index);
+                    if (ch == '\r' && index + 1 < length && text.charAt(index + 1) == '\n') {
+                        hasCrLf = true;
+                        index++;
+                    }
+                    lineStart = index + 1;
+                }
+            }
+            if (count < MAX_LINES)
+                addLine(lineStart, length);
+        }
+
+        private void addLine(int start, int end) {
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        int start(int line) {
+            return starts[line];
+        }
+
+        int end(int line) {
+            return ends[line];
+        }
+
+        boolean isEmpty(int line) {
+            return starts[line] == ends[line];
+        }
 
-    private static String[] splitLines(String text) {
-        return NEWLINE_PATTERN.split(text, -1);
+        boolean equals(int line, String value) {
+            return ends[line] - starts[line] == value.length()
+                    && text.regionMatches(starts[line], value, 0, value.length());
+        }
+
+        String get(int line) {
+            return isEmpty(line) ? "" : text.substring(starts[line], ends[line]);
+        }
     }
 
-    private static void throwSingleValidationError(String field, String messageKey) {
-        ValidationResult result = new ValidationResult();
+    private static void addDecodingError(ValidationResult result, String field, String messageKey) {
         result.addMessage(ValidationMessage.Type.ERROR, field, messageKey);
-        throw new QRBillValidationError(result);
     }
 }
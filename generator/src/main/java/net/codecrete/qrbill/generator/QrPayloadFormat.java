@@ -0,0 +1,26 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+/**
+ * Formats of files containing many QR code texts (payloads) for bulk decoding
+ *
+ * @see QRBill#decodeAll(java.nio.file.Path, QrPayloadFormat, java.util.function.Consumer)
+ */
+public enum QrPayloadFormat {
+    /**
+     * Each payload is preceded by its length in bytes (4 byte integer, big-endian)
+     * and encoded in UTF-8.
+     */
+    LENGTH_PREFIXED,
+    /**
+     * Each line contains a single payload encoded as a JSON string (including the
+     * double quotes), i.e. newline delimited JSON. The line breaks within the payload
+     * are escaped. Empty lines are ignored. The file is encoded in UTF-8.
+     */
+    JSON_LINES
+}
@@ -6,7 +6,7 @@
 //
 package net.codecrete.qrbill.generator;
 
-import java.util.function.Predicate;
+import java.util.function.IntPredicate;
 
 /**
  * Swiss Payment Standard character set.
@@ -48,10 +48,21 @@ public enum SPSCharacterSet {
      */
     FULL_UNICODE(SPSCharacterSet::isInUnicode);
 
-    private final Predicate<Integer> containsCharacter;
+    // Size of the lookup table (covers all characters of the restricted character sets)
+    private static final int TABLE_SIZE = 0x2100;
 
-    SPSCharacterSet(Predicate<Integer> containsCharacter) {
+    // bit set of contained characters below TABLE_SIZE
+    private final long[] table;
+    // for characters above the table
+    private final IntPredicate containsCharacter;
+
+    SPSCharacterSet(IntPredicate containsCharacter) {
         this.containsCharacter = containsCharacter;
+        table = new long[TABLE_SIZE / 64];
+        for (int codePoint = 0; codePoint < TABLE_SIZE; codePoint++) {
+            if (containsCharacter.test(codePoint))
+                table[codePoint >> 6] |= 1L << codePoint;
+        }
     }
 
     /**
@@ -60,7 +71,9 @@ public enum SPSCharacterSet {
      * @return {@code true} if the character is in this character set, {@code false} otherwise
      */
     public boolean contains(char ch) {
-        return containsCharacter.test((int)ch);
+        if (ch < TABLE_SIZE)
+            return (table[ch >> 6] & (1L << ch)) != 0;
+        return containsCharacter.test(ch);
     }
 
     /**
@@ -69,9 +82,36 @@ public enum SPSCharacterSet {
      * @return {@code true} if the code point is in this character set, {@code false} otherwise
      */
     public boolean contains(int codePoint) {
+        if (codePoint >= 0 && codePoint < TABLE_SIZE)
+            return (table[codePoint >> 6] & (1L << codePoint)) != 0;
         return containsCharacter.test(codePoint);
     }
 
+    /**
+     * Returns if this character set contains all characters of the specified text.
+     * <p>
+     * The text is checked character by character (UTF-16 code units). So characters
+     * outside the Basic Multilingual Plane (represented by surrogate pairs) are
+     * only contained in {@link #FULL_UNICODE}.
+     * </p>
+     * @param text text to check
+     * @return {@code true} if all characters are in this character set, {@code false} otherwise
+     */
+    public boolean containsAll(CharSequence text) {
+        final long[] bits = table;
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            char ch = text.charAt(i);
+            if (ch >= TABLE_SIZE) {
+                if (!containsCharacter.test(ch))
+                    return false;
+            } else if ((bits[ch >> 6] & (1L << ch)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @SuppressWarnings("java:S3776")
     private static boolean isInLatin1Subset(int codePoint) {
         if (codePoint < 0x20)
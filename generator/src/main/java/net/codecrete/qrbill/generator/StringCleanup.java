@@ -95,6 +95,24 @@ class StringCleanup {
         }
     }
 
+    // Replacements are cached for the code points below this limit. It covers the Latin, Greek
+    // and Cyrillic blocks, general punctuation, currency and letterlike symbols and number forms.
+    private static final int REPLACEMENT_TABLE_SIZE = 0x2500;
+
+    // marks cached code points without a good replacement (compared by identity)
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String NO_REPLACEMENT = new String(".");
+
+    // Cached replacements (null if not computed yet). The entries are computed when a code point is first
+    // encountered. If several threads compute the same entry concurrently, they store equal immutable strings.
+    private static class Latin1SubsetReplacements {
+        static final String[] TABLE = new String[REPLACEMENT_TABLE_SIZE];
+    }
+
+    private static class ExtendedLatinReplacements {
+        static final String[] TABLE = new String[REPLACEMENT_TABLE_SIZE];
+    }
+
     /**
      * Returns a cleaned text valid according to the specified character set.
      * <p>
@@ -166,12 +184,7 @@ class StringCleanup {
         if (text == null)
             return true;
 
-        int len = text.length();
-        for (int i = 0; i < len; i++) {
-            if (!characterSet.contains(text.charAt(i)))
-                return false;
-        }
-        return true;
+        return characterSet.containsAll(text);
     }
 
     static void cleanText(String text, SPSCharacterSet characterSet, boolean trimWhitespace, CleaningResult result) {
@@ -233,46 +246,70 @@ class StringCleanup {
     }
 
     private static boolean replaceCodePoint(int codePoint, SPSCharacterSet characterSet, StringBuilder sb) {
-        // whitespace is replaced with a space
-        if (Character.isWhitespace(codePoint)) {
-            sb.append(' ');
-            return true;
+        String replacement;
+        String[] table = replacementTable(characterSet);
+        if (table != null && codePoint < REPLACEMENT_TABLE_SIZE) {
+            replacement = table[codePoint];
+            if (replacement == null) {
+                replacement = computeReplacement(codePoint, characterSet);
+                if (replacement == null)
+                    replacement = NO_REPLACEMENT;
+                table[codePoint] = replacement;
+            }
+            if (replacement == NO_REPLACEMENT)
+                replacement = null;
+        } else {
+            replacement = computeReplacement(codePoint, characterSet);
         }
 
+        if (replacement == null)
+            return false;
+        sb.append(replacement);
+        return true;
+    }
+
+    private static String[] replacementTable(SPSCharacterSet characterSet) {
+        switch (characterSet) {
+            case LATIN_1_SUBSET:
+                return Latin1SubsetReplacements.TABLE;
+            case EXTENDED_LATIN:
+                return ExtendedLatinReplacements.TABLE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Computes the replacement for an unsupported code point.
+     *
+     * @return replacement text, or {@code null} if there is no good replacement
+     */
+    private static String computeReplacement(int codePoint, SPSCharacterSet characterSet) {
+        // whitespace is replaced with a space
+        if (Character.isWhitespace(codePoint))
+            return " ";
+
         // check if there is a quick replacement (precomputed case)
         if (codePoint <= 0xFFFF) {
             int pos = Arrays.binarySearch(QUICK_REPLACEMENTS_FROM, (char) codePoint);
-            if (pos >= 0) {
-                sb.append(QUICK_REPLACEMENTS_TO[pos]);
-                return true;
-            }
+            if (pos >= 0)
+                return String.valueOf(QUICK_REPLACEMENTS_TO[pos]);
         }
 
         String codePointString = new String(new int[] { codePoint }, 0, 1);
 
         // check if canonical decomposition yields a valid string
         String canonical = decomposedString(codePointString, characterSet, Normalizer.Form.NFD);
-        if (canonical != null) {
-            sb.append(canonical);
-            return true;
-        }
+        if (canonical != null)
+            return canonical;
 
         // check if compatibility decomposition yields a valid string
         String compatibility = decomposedString(codePointString, characterSet, Normalizer.Form.NFKD);
-        if (compatibility != null) {
-            sb.append(compatibility);
-            return true;
-        }
-
-        // check for additional replacements
-        String replacement = additionalReplacements.get(codePoint);
-        if (replacement != null) {
-            sb.append(replacement);
-            return true;
-        }
+        if (compatibility != null)
+            return compatibility;
 
-        // no good replacement
-        return false;
+        // check for additional replacements (null if there is no good replacement)
+        return additionalReplacements.get(codePoint);
     }
 
     private static String decomposedString(String codePointString, SPSCharacterSet characterSet, Normalizer.Form form) {
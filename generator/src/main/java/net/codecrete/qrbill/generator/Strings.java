@@ -41,6 +41,8 @@ public class Strings {
      * @return resulting string with all whitespace removed
      */
     public static String whiteSpaceRemoved(String value) {
+        if (value.indexOf(' ') < 0)
+            return value;
         return value.replace(" ", "");
     }
 
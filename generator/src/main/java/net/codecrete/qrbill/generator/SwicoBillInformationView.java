@@ -0,0 +1,543 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.generator.SwicoBillInformation.PaymentCondition;
+import net.codecrete.qrbill.generator.SwicoBillInformation.RateDetail;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Read-only view of bill information (according to Swico S1) that is decoded on demand.
+ * <p>
+ * When the view is created, the text is scanned once to locate the tags and their values.
+ * A value is only decoded when the corresponding property is retrieved. This is useful if only
+ * a few properties are needed, e.g. the invoice number and the due date. The values are decoded
+ * each time the property is retrieved. Use {@link #toBillInformation()} to decode all values.
+ * </p>
+ * <p>
+ * The decoded values are the same as the values of the {@link SwicoBillInformation} instance
+ * returned by {@link SwicoBillInformation#decodeText(String)}. Invalid data is silently ignored.
+ * </p>
+ * <p>
+ * Instances of this class are not thread-safe.
+ * </p>
+ */
+public class SwicoBillInformationView {
+
+    private static final int INVOICE_NUMBER_TAG = 10;
+
+    private static final int INVOICE_DATE_TAG = 11;
+
+    private static final int CUSTOMER_REFERENCE_TAG = 20;
+
+    private static final int VAT_NUMBER_TAG = 30;
+
+    private static final int VAT_DATE_TAG = 31;
+
+    private static final int VAT_RATE_DETAILS_TAG = 32;
+
+    private static final int VAT_IMPORT_TAXES_TAG = 33;
+
+    private static final int PAYMENT_CONDITIONS_TAG = 40;
+
+    private static final String PREFIX = "//S1/";
+
+    // Placeholders for escaped characters used by earlier versions of the decoder.
+    // For compatibility, they are still converted.
+    private static final char ESCAPED_SLASH_PLACEHOLDER = '★';
+    private static final char ESCAPED_BACKSLASH_PLACEHOLDER = '☁';
+
+    private final String text;
+    // Tag and value range of each element with a non-empty value (in order of appearance)
+    private int[] tags = new int[8];
+    private int[] valueStarts = new int[8];
+    private int[] valueEnds = new int[8];
+    private int numElements;
+    private NumberFormat numberFormat;
+
+    private SwicoBillInformationView(String text) {
+        this.text = text;
+        indexElements();
+    }
+
+    /**
+     * Creates a view of the specified structured billing information text.
+     *
+     * @param text the structured billing information encoded according to Swico S1 syntax
+     * @return the bill information view (or {@code null} if the text is not Swico S1 bill information)
+     */
+    public static SwicoBillInformationView decodeText(String text) {
+        if (text == null || !text.startsWith(PREFIX))
+            return null;
+        return new SwicoBillInformationView(text);
+    }
+
+    /**
+     * Decodes all values and creates a {@link SwicoBillInformation} instance.
+     *
+     * @return the decoded bill information
+     */
+    public SwicoBillInformation toBillInformation() {
+        SwicoBillInformation billInformation = new SwicoBillInformation();
+        billInformation.setInvoiceNumber(getInvoiceNumber());
+        billInformation.setInvoiceDate(getInvoiceDate());
+        billInformation.setCustomerReference(getCustomerReference());
+        billInformation.setVatNumber(getVatNumber());
+        LocalDate[] vatDates = getVatDates();
+        if (vatDates != null && vatDates.length == 1) {
+            billInformation.setVatDate(vatDates[0]);
+        } else if (vatDates != null) {
+            billInformation.setVatStartDate(vatDates[0]);
+            billInformation.setVatEndDate(vatDates[1]);
+        }
+        int vatRateElement = lastElement(VAT_RATE_DETAILS_TAG);
+        if (vatRateElement >= 0) {
+            String value = value(vatRateElement);
+            if (isDetailList(value))
+                billInformation.setVatRateDetails(parseDetailList(value));
+            else
+                billInformation.setVatRate(getDecimalValue(value));
+        }
+        billInformation.setVatImportTaxes(getVatImportTaxes());
+        billInformation.setPaymentConditions(getPaymentConditions());
+        return billInformation;
+    }
+
+    /**
+     * Gets the invoice number.
+     *
+     * @return the invoice number
+     * @see SwicoBillInformation#getInvoiceNumber()
+     */
+    public String getInvoiceNumber() {
+        int element = lastElement(INVOICE_NUMBER_TAG);
+        return element >= 0 ? value(element) : null;
+    }
+
+    /**
+     * Gets the invoice date.
+     *
+     * @return the invoice date
+     * @see SwicoBillInformation#getInvoiceDate()
+     */
+    public LocalDate getInvoiceDate() {
+        int element = lastElement(INVOICE_DATE_TAG);
+        return element >= 0 ? getDateValue(value(element)) : null;
+    }
+
+    /**
+     * Gets the customer reference.
+     *
+     * @return the customer reference
+     * @see SwicoBillInformation#getCustomerReference()
+     */
+    public String getCustomerReference() {
+        int element = lastElement(CUSTOMER_REFERENCE_TAG);
+        return element >= 0 ? value(element) : null;
+    }
+
+    /**
+     * Gets the invoicing party's VAT number.
+     *
+     * @return the VAT number
+     * @see SwicoBillInformation#getVatNumber()
+     */
+    public String getVatNumber() {
+        int element = lastElement(VAT_NUMBER_TAG);
+        return element >= 0 ? value(element) : null;
+    }
+
+    /**
+     * Gets the date when the goods or service were supplied.
+     *
+     * @return the VAT date
+     * @see SwicoBillInformation#getVatDate()
+     */
+    public LocalDate getVatDate() {
+        LocalDate[] dates = getVatDates();
+        return dates != null && dates.length == 1 ? dates[0] : null;
+    }
+
+    /**
+     * Gets the start date of the period when the service was supplied.
+     *
+     * @return the start date
+     * @see SwicoBillInformation#getVatStartDate()
+     */
+    public LocalDate getVatStartDate() {
+        LocalDate[] dates = getVatDates();
+        return dates != null && dates.length == 2 ? dates[0] : null;
+    }
+
+    /**
+     * Gets the end date of the period when the service was supplied.
+     *
+     * @return the end date
+     * @see SwicoBillInformation#getVatEndDate()
+     */
+    public LocalDate getVatEndDate() {
+        LocalDate[] dates = getVatDates();
+        return dates != null && dates.length == 2 ? dates[1] : null;
+    }
+
+    /**
+     * Gets the VAT rate in case the same rate applies to the entire invoice.
+     *
+     * @return the VAT rate (in percent)
+     * @see SwicoBillInformation#getVatRate()
+     */
+    public BigDecimal getVatRate() {
+        int element = lastElement(VAT_RATE_DETAILS_TAG);
+        if (element < 0)
+            return null;
+        String value = value(element);
+        return isDetailList(value) ? null : getDecimalValue(value);
+    }
+
+    /**
+     * Gets a list of VAT rates.
+     *
+     * @return the list of VAT rate/amount tuples
+     * @see SwicoBillInformation#getVatRateDetails()
+     */
+    public List<RateDetail> getVatRateDetails() {
+        int element = lastElement(VAT_RATE_DETAILS_TAG);
+        if (element < 0)
+            return null;
+        String value = value(element);
+        return isDetailList(value) ? parseDetailList(value) : null;
+    }
+
+    /**
+     * Gets the list of VAT import taxes.
+     *
+     * @return the list of VAT rate/amount tuples
+     * @see SwicoBillInformation#getVatImportTaxes()
+     */
+    public List<RateDetail> getVatImportTaxes() {
+        int element = lastElement(VAT_IMPORT_TAXES_TAG);
+        return element >= 0 ? parseDetailList(value(element)) : null;
+    }
+
+    /**
+     * Gets the payment conditions.
+     *
+     * @return the list of discount/days tuples
+     * @see SwicoBillInformation#getPaymentConditions()
+     */
+    public List<PaymentCondition> getPaymentConditions() {
+        // the last element with valid payment conditions applies
+        for (int element = numElements - 1; element >= 0; element--) {
+            if (tags[element] != PAYMENT_CONDITIONS_TAG)
+                continue;
+            List<PaymentCondition> list = parsePaymentConditions(value(element));
+            if (!list.isEmpty())
+                return list;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the payment due date.
+     *
+     * @return the due date (or {@code null} if the invoice date or the relevant payment condition is missing)
+     * @see SwicoBillInformation#getDueDate()
+     */
+    public LocalDate getDueDate() {
+        LocalDate invoiceDate = getInvoiceDate();
+        if (invoiceDate == null)
+            return null;
+        List<PaymentCondition> paymentConditions = getPaymentConditions();
+        if (paymentConditions == null)
+            return null;
+
+        for (PaymentCondition cond : paymentConditions) {
+            if (BigDecimal.ZERO.compareTo(cond.getDiscount()) == 0)
+                return invoiceDate.plusDays(cond.getDays());
+        }
+
+        return null;
+    }
+
+    // Returns a single VAT date, a VAT date range or null. The last element with a valid date applies.
+    private LocalDate[] getVatDates() {
+        for (int element = numElements - 1; element >= 0; element--) {
+            if (tags[element] != VAT_DATE_TAG)
+                continue;
+
+            String value = value(element);
+            if (value.length() == 6) {
+                // Single VAT date
+                LocalDate date = getDateValue(value);
+                if (date != null)
+                    return new LocalDate[] { date };
+            } else if (value.length() == 12) {
+                // VAT date range
+                LocalDate startDate = getDateValue(value.substring(0, 6));
+                LocalDate endDate = getDateValue(value.substring(6, 12));
+                if (startDate != null && endDate != null)
+                    return new LocalDate[] { startDate, endDate };
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDetailList(String value) {
+        return value.indexOf(':') >= 0 || value.indexOf(';') >= 0;
+    }
+
+    private List<PaymentCondition> parsePaymentConditions(String value) {
+        // Split into tuples
+        String[] tuples = value.split(";");
+
+        List<PaymentCondition> list = new ArrayList<>();
+        for (String listEntry : tuples) {
+            // Split into tuple (discount, days)
+            String[] detail = listEntry.split(":");
+            if (detail.length != 2)
+                continue;
+
+            BigDecimal discount = getDecimalValue(detail[0]);
+            Integer days = getIntValue(detail[1]);
+            if (discount != null && days != null)
+                list.add(new PaymentCondition(discount, days));
+        }
+        return list;
+    }
+
+    private List<RateDetail> parseDetailList(String text) {
+        // Split into tuples
+        String[] tuples = text.split(";");
+
+        List<RateDetail> list = new ArrayList<>();
+        for (String vatEntry : tuples) {
+            // Split into tuple (rate, amount)
+            String[] vatDetails = vatEntry.split(":");
+            if (vatDetails.length != 2)
+                continue;
+
+            BigDecimal vatRate = getDecimalValue(vatDetails[0]);
+            BigDecimal vatAmount = getDecimalValue(vatDetails[1]);
+            if (vatRate != null && vatAmount != null)
+                list.add(new RateDetail(vatRate, vatAmount));
+        }
+        return list.isEmpty() ? null : list;
+    }
+
+    private static final DateTimeFormatter SWICO_DATE_FORMAT_SPECIFICATION
+            = DateTimeFormatter.ofPattern("yyMMdd", Locale.UK);
+    private static final DateTimeFormatter SWICO_DATE_FORMAT_WILDERNESS_1
+            = DateTimeFormatter.ofPattern("yyMMddHHmmss", Locale.UK);
+    private static final DateTimeFormatter SWICO_DATE_FORMAT_WILDERNESS_2
+            = DateTimeFormatter.ofPattern("yyMMddHHmm", Locale.UK);
+
+    private static LocalDate getDateValue(String dateText) {
+        // all formats consist of digits only (avoids exceptions for invalid text)
+        for (int i = 0; i < dateText.length(); i++) {
+            char ch = dateText.charAt(i);
+            if (ch < '0' || ch > '9')
+                return null;
+        }
+
+        DateTimeFormatter format;
+        if (dateText.length() == 6) // Consistent with specification
+            format = SWICO_DATE_FORMAT_SPECIFICATION;
+        else if (dateText.length() == 12) // Not consistent with specifications but seen in production (year, month, day, hour, minute, second)
+            format = SWICO_DATE_FORMAT_WILDERNESS_1;
+        else if (dateText.length() == 10) // Not consistent with specifications but seen in production (year, month, day, hour, minute)
+            format = SWICO_DATE_FORMAT_WILDERNESS_2;
+        else
+            return null;
+
+        try {
+            return LocalDate.parse(dateText, format);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Integer getIntValue(String intText) {
+        try {
+            return Integer.parseInt(intText);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private BigDecimal getDecimalValue(String decimalText) {
+        if (numberFormat == null) {
+            DecimalFormat format = new DecimalFormat("0.###", new DecimalFormatSymbols(Locale.UK));
+            format.setParseBigDecimal(true);
+            numberFormat = format;
+        }
+
+        ParsePosition position = new ParsePosition(0);
+        BigDecimal decimal = (BigDecimal) numberFormat.parse(decimalText, position);
+        return (position.getIndex() == decimalText.length()) ? decimal : null;
+    }
+
+    private int lastElement(int tag) {
+        for (int element = numElements - 1; element >= 0; element--) {
+            if (tags[element] == tag)
+                return element;
+        }
+        return -1;
+    }
+
+    /**
+     * Locates the elements (tag/value pairs) in a single pass.
+     * <p>
+     * The text consists of parts separated by slash characters. Slashes and backslashes within
+     * parts are escaped with a backslash. Consecutive parts form a tag/value pair. Pairs with an
+     * invalid tag or an empty value are skipped.
+     * </p>
+     */
+    private void indexElements() {
+        int length = text.length();
+        int partStart = PREFIX.length();
+        int tagStart = -1;
+        int tagEnd = -1;
+        int index = partStart;
+        while (index <= length) {
+            if (index < length) {
+                char ch = text.charAt(index);
+                if (ch == '\\' && index + 1 < length
+                        && (text.charAt(index + 1) == '\\' || text.charAt(index + 1) == '/')) {
+                    index += 2;
+                    continue;
+                }
+                if (ch != '/') {
+                    index += 1;
+                    continue;
+                }
+            }
+
+            // end of part
+            if (tagStart < 0) {
+                tagStart = partStart;
+                tagEnd = index;
+            } else {
+                addElement(tagStart, tagEnd, partStart, index);
+                tagStart = -1;
+            }
+            index += 1;
+            partStart = index;
+        }
+    }
+
+    private void addElement(int tagStart, int tagEnd, int valueStart, int valueEnd) {
+        if (valueStart == valueEnd)
+            return;
+        int tag = parseTag(tagStart, tagEnd);
+        if (tag < 0)
+            return;
+
+        if (numElements == tags.length) {
+            tags = Arrays.copyOf(tags, 2 * numElements);
+            valueStarts = Arrays.copyOf(valueStarts, 2 * numElements);
+            valueEnds = Arrays.copyOf(valueEnds, 2 * numElements);
+        }
+        tags[numElements] = tag;
+        valueStarts[numElements] = valueStart;
+        valueEnds[numElements] = valueEnd;
+        numElements += 1;
+    }
+
+    // Returns the tag number, or -1 if it is invalid or not a known tag
+    private int parseTag(int start, int end) {
+        int tag = 0;
+        for (int i = start; i < end; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9' || i - start >= 9) {
+                tag = parseUnusualTag(start, end);
+                break;
+            }
+            tag = tag * 10 + (ch - '0');
+        }
+        return start < end && isKnownTag(tag) ? tag : -1;
+    }
+
+    // Parses tags with a sign, non-ASCII digits etc. in the same way as the original decoder
+    private int parseUnusualTag(int start, int end) {
+        String tagText = unescape(start, end);
+        if (tagText.indexOf('/') >= 0 || tagText.indexOf('\\') >= 0)
+            return -1;
+        try {
+            return Integer.parseInt(tagText);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isKnownTag(int tag) {
+        switch (tag) {
+            case INVOICE_NUMBER_TAG:
+            case INVOICE_DATE_TAG:
+            case CUSTOMER_REFERENCE_TAG:
+            case VAT_NUMBER_TAG:
+            case VAT_DATE_TAG:
+            case VAT_RATE_DETAILS_TAG:
+            case VAT_IMPORT_TAXES_TAG:
+            case PAYMENT_CONDITIONS_TAG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private String value(int element) {
+        return unescape(valueStarts[element], valueEnds[element]);
+    }
+
+    /**
+     * Gets the text in the specified range and undoes the backslash escaping.
+     *
+     * @param start start index (inclusive)
+     * @param end   end index (exclusive)
+     * @return unescaped text
+     */
+    private String unescape(int start, int end) {
+        int index = start;
+        while (index < end) {
+            char ch = text.charAt(index);
+            if (ch == '\\' || ch == ESCAPED_SLASH_PLACEHOLDER || ch == ESCAPED_BACKSLASH_PLACEHOLDER)
+                break;
+            index += 1;
+        }
+        if (index == end)
+            return text.substring(start, end);
+
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(text, start, index);
+        while (index < end) {
+            char ch = text.charAt(index);
+            if (ch == '\\' && index + 1 < end && (text.charAt(index + 1) == '\\' || text.charAt(index + 1) == '/')) {
+                ch = text.charAt(index + 1);
+                index += 1;
+            } else if (ch == ESCAPED_SLASH_PLACEHOLDER) {
+                ch = '/';
+            } else if (ch == ESCAPED_BACKSLASH_PLACEHOLDER) {
+                ch = '\\';
+            }
+            sb.append(ch);
+            index += 1;
+        }
+        return sb.toString();
+    }
+}
@@ -13,8 +13,13 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+
+import static net.codecrete.qrbill.generator.BillColumns.valueAt;
 
 /**
  * Internal class for validating and cleaning QR bill data.
@@ -37,12 +42,213 @@ class Validator {
         return validator.validateBill();
     }
 
+    /**
+     * Validates the QR bill data and returns the validation result, reusing the bill data if it is already clean.
+     * <p>
+     * If the bill data is valid and cleaning would not change it, the cleaned bill of the
+     * returned validation result is the specified bill instance (instead of a copy).
+     * This is detected without creating any intermediate objects. Otherwise, the
+     * result is the same as for {@link #validate(Bill)}.
+     * </p>
+     *
+     * @param bill bill data to validate
+     * @return validation result
+     */
+    static ValidationResult validateReusingCleanBill(Bill bill) {
+        if (isCleanAndValid(bill)) {
+            ValidationResult result = new ValidationResult();
+            result.setCleanedBill(bill);
+            return result;
+        }
+        return validate(bill);
+    }
+
+    /**
+     * Validates the bill data given in column-oriented form.
+     * <p>
+     * A single bill and address instance is reused for all rows. Rows that are
+     * already clean and valid are checked without creating any objects.
+     * </p>
+     *
+     * @param columns bill data
+     * @return validation result
+     */
+    static BulkValidationResult validateAll(BillColumns columns) {
+        int numRows = columns.getNumRows();
+        BitSet failedRows = new BitSet(numRows);
+        Map<Integer, List<ValidationMessage>> messages = new HashMap<>();
+
+        Bill bill = new Bill();
+        bill.setCharacterSet(columns.getCharacterSet());
+        Address creditor = new Address();
+        Address debtor = new Address();
+        String[] currencies = columns.getCurrencies();
+
+        for (int row = 0; row < numRows; row++) {
+            bill.setAccount(valueAt(columns.getAccounts(), row));
+            bill.setAmount(valueAt(columns.getAmounts(), row));
+            bill.setCurrency(currencies != null ? currencies[row] : "CHF");
+            bill.setReference(valueAt(columns.getReferences(), row));
+            bill.setUnstructuredMessage(valueAt(columns.getUnstructuredMessages(), row));
+            bill.setBillInformation(valueAt(columns.getBillInformation(), row));
+            bill.setCreditor(columns.getCreditors().copyTo(row, creditor) ? creditor : null);
+            bill.setDebtor(columns.getDebtors().copyTo(row, debtor) ? debtor : null);
+
+            if (isCleanAndValid(bill))
+                continue;
+
+            ValidationResult result = validate(bill);
+            if (result.hasErrors()) {
+                failedRows.set(row);
+                messages.put(row, result.getValidationMessages());
+            }
+        }
+
+        return new BulkValidationResult(numRows, failedRows, messages);
+    }
+
     private Validator(Bill bill) {
         billIn = bill;
         billOut = new Bill();
         validationResult = new ValidationResult();
     }
 
+    /**
+     * Checks if the bill data is valid and already clean.
+     * <p>
+     * Returns {@code true} only if {@link #validate(Bill)} would not emit any validation message
+     * and would return a cleaned bill equal to the specified bill. For some clean bills,
+     * {@code false} might be returned.
+     * </p>
+     */
+    private static boolean isCleanAndValid(Bill bill) {
+        if (bill.getFormat() == null || bill.getCharacterSet() == null)
+            return false;
+
+        // account: CH or LI IBAN without spaces
+        String account = bill.getAccount();
+        if (account == null || account.length() != 21 || !isUpperCaseAlphaNumeric(account)
+                || !(account.startsWith("CH") || account.startsWith("LI")) || !Payments.isValidIBAN(account))
+            return false;
+
+        // currency and amount
+        if (!"CHF".equals(bill.getCurrency()) && !"EUR".equals(bill.getCurrency()))
+            return false;
+        BigDecimal amount = bill.getAmount();
+        if (amount != null && (amount.scale() != 2 || BigDecimal.ZERO.compareTo(amount) > 0
+                || AMOUNT_MAX.compareTo(amount) < 0))
+            return false;
+
+        SPSCharacterSet characterSet = bill.getCharacterSet();
+        if (!isCleanAndValidAddress(bill.getCreditor(), characterSet))
+            return false;
+        if (bill.getDebtor() != null && !isCleanAndValidAddress(bill.getDebtor(), characterSet))
+            return false;
+
+        return isCleanAndValidReference(bill) && isCleanAndValidAdditionalInformation(bill, characterSet)
+                && isCleanAndValidAlternativeSchemes(bill.getAlternativeSchemes());
+    }
+
+    private static boolean isCleanAndValidReference(Bill bill) {
+        boolean isQRIBAN = Payments.isQRIBAN(bill.getAccount());
+        String reference = bill.getReference();
+        if (reference == null)
+            return !isQRIBAN && Bill.REFERENCE_TYPE_NO_REF.equals(bill.getReferenceType());
+
+        if (!Payments.isAlphaNumeric(reference) || reference.isEmpty())
+            return false;
+        if (Payments.isNumeric(reference))
+            return isQRIBAN && Bill.REFERENCE_TYPE_QR_REF.equals(bill.getReferenceType())
+                    && Payments.isValidQRReference(reference);
+        return !isQRIBAN && Bill.REFERENCE_TYPE_CRED_REF.equals(bill.getReferenceType())
+                && Payments.isValidISO11649Reference(reference);
+    }
+
+    private static boolean isCleanAndValidAdditionalInformation(Bill bill, SPSCharacterSet characterSet) {
+        String billInformation = bill.getBillInformation();
+        String unstructuredMessage = bill.getUnstructuredMessage();
+        if (billInformation != null && (!isCleanText(billInformation, characterSet)
+                || !billInformation.startsWith("//") || billInformation.length() < 4))
+            return false;
+        if (unstructuredMessage != null && !isCleanText(unstructuredMessage, characterSet))
+            return false;
+
+        int combinedLength = (billInformation != null ? billInformation.length() : 0)
+                + (unstructuredMessage != null ? unstructuredMessage.length() : 0);
+        return combinedLength <= 140;
+    }
+
+    private static boolean isCleanAndValidAlternativeSchemes(AlternativeScheme[] schemes) {
+        if (schemes == null)
+            return true;
+        if (schemes.length == 0 || schemes.length > 2)
+            return false;
+
+        for (AlternativeScheme scheme : schemes) {
+            String name = scheme.getName();
+            String instruction = scheme.getInstruction();
+            if (name == null && instruction == null)
+                return false;
+            if (!isTrimmed(name) || !isTrimmed(instruction))
+                return false;
+            if (instruction != null && instruction.length() > 100)
+                return false;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean isCleanAndValidAddress(Address address, SPSCharacterSet characterSet) {
+        if (address == null || !isCleanText(address.getName(), characterSet) || address.getName().length() > 70)
+            return false;
+
+        String countryCode = address.getCountryCode();
+        if (countryCode == null || countryCode.length() != 2 || !isUpperCaseAlphaNumeric(countryCode)
+                || !Payments.isAlpha(countryCode))
+            return false;
+
+        if (address.getType() == Address.Type.STRUCTURED) {
+            return address.getAddressLine1() == null && address.getAddressLine2() == null
+                    && isCleanOptionalText(address.getStreet(), 70, characterSet)
+                    && isCleanOptionalText(address.getHouseNo(), 16, characterSet)
+                    && isCleanText(address.getPostalCode(), characterSet) && address.getPostalCode().length() <= 16
+                    && isCleanText(address.getTown(), characterSet) && address.getTown().length() <= 35;
+
+        } else if (address.getType() == Address.Type.COMBINED_ELEMENTS) {
+            return address.getStreet() == null && address.getHouseNo() == null
+                    && address.getPostalCode() == null && address.getTown() == null
+                    && isCleanOptionalText(address.getAddressLine1(), 70, characterSet)
+                    && isCleanText(address.getAddressLine2(), characterSet) && address.getAddressLine2().length() <= 70;
+
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean isCleanOptionalText(String value, int maxLength, SPSCharacterSet characterSet) {
+        return value == null || (isCleanText(value, characterSet) && value.length() <= maxLength);
+    }
+
+    // Checks that the text is not empty and cleaning it would not change it
+    private static boolean isCleanText(String value, SPSCharacterSet characterSet) {
+        return value != null && !value.isEmpty() && StringCleanup.isValidText(value, characterSet)
+                && Strings.spacesCleaned(value) == value;
+    }
+
+    private static boolean isTrimmed(String value) {
+        return value == null || (!value.isEmpty() && value.trim() == value);
+    }
+
+    private static boolean isUpperCaseAlphaNumeric(String value) {
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char ch = value.charAt(i);
+            if ((ch < '0' || ch > '9') && (ch < 'A' || ch > 'Z'))
+                return false;
+        }
+        return true;
+    }
+
     private ValidationResult validateBill() {
 
         billOut.setFormat(billIn.getFormat() != null ? new BillFormat(billIn.getFormat()) : null);
@@ -0,0 +1,87 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.qrbill.canvas;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for number formatting in SVG files
+ */
+@DisplayName("Fixed-point number formatting")
+class FixedPointFormatterTest {
+
+    @Test
+    void integers() {
+        assertEquals("0", format(0, 3));
+        assertEquals("12", format(12, 3));
+        assertEquals("-7", format(-7, 3));
+        assertEquals("595.276", format(210 * 72 / 25.4, 3));
+    }
+
+    @Test
+    void trailingZerosRemoved() {
+        assertEquals("1.5", format(1.5, 3));
+        assertEquals("0.25", format(0.25, 5));
+        assertEquals("1.005", format(1.005, 3));
+        assertEquals("0.007", format(0.007, 3));
+        assertEquals("-0.02", format(-0.02, 3));
+    }
+
+    @Test
+    void roundedToFractionDigits() {
+        assertEquals("2.667", format(8.0 / 3, 3));
+        assertEquals("2.66667", format(8.0 / 3, 5));
+        assertEquals("1", format(0.9999, 3));
+        assertEquals("0.001", format(0.0009, 3));
+    }
+
+    @Test
+    void tiesRoundedToEven() {
+        assertEquals("0.125", format(0.125, 3));
+        assertEquals("0.12", format(0.125, 2));
+        assertEquals("0.38", format(0.375, 2));
+    }
+
+    @Test
+    void negativeZero() {
+        assertEquals("-0", format(-0.0001, 3));
+        assertEquals("-0", format(-0.0, 3));
+    }
+
+    @Test
+    void largeValues() {
+        assertEquals("12345678901.5", format(12345678901.5, 3));
+        assertEquals("-3000000000", format(-3e9, 5));
+    }
+
+    @Test
+    void sameAsDecimalFormat() {
+        DecimalFormat numberFormat = new DecimalFormat("#.###", new DecimalFormatSymbols(Locale.UK));
+        DecimalFormat angleFormat = new DecimalFormat("#.#####", new DecimalFormatSymbols(Locale.UK));
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(10) - 2);
+            assertEquals(numberFormat.format(value), format(value, 3));
+            assertEquals(angleFormat.format(value), format(value, 5));
+        }
+    }
+
+    private static String format(double value, int fractionDigits) {
+        StringBuilder sb = new StringBuilder();
+        FixedPointFormatter.append(sb, value, fractionDigits);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,81 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.canvas.Canvas.LineStyle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for the font and stroke caches of the Graphics2D canvas
+ */
+@DisplayName("Graphics2D canvas caches")
+class Graphics2DCanvasTest {
+
+    @Test
+    void fontIsReused() {
+        Font font1 = Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 20);
+        Font font2 = Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 20);
+        assertSame(font1, font2);
+        assertEquals(Font.PLAIN, font1.getStyle());
+        assertEquals(20, font1.getSize());
+    }
+
+    @Test
+    void fontStyleAndSizeAreDistinguished() {
+        Font regular = Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 20);
+        Font bold = Graphics2DCanvas.getFont("Liberation Sans", Font.BOLD, 20);
+        Font larger = Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 21);
+        assertNotSame(regular, bold);
+        assertEquals(Font.BOLD, bold.getStyle());
+        assertNotSame(regular, larger);
+        assertEquals(21, larger.getSize());
+    }
+
+    @Test
+    void strokeIsReused() {
+        BasicStroke stroke1 = Graphics2DCanvas.getStroke(0.5, 2, LineStyle.Dashed);
+        BasicStroke stroke2 = Graphics2DCanvas.getStroke(0.5, 2, LineStyle.Dashed);
+        assertSame(stroke1, stroke2);
+        assertEquals(1, stroke1.getLineWidth());
+        assertArrayEquals(new float[] { 4 }, stroke1.getDashArray());
+    }
+
+    @Test
+    void strokeLineStyleIsDistinguished() {
+        BasicStroke solid = Graphics2DCanvas.getStroke(0.5, 2, LineStyle.Solid);
+        BasicStroke dotted = Graphics2DCanvas.getStroke(0.5, 2, LineStyle.Dotted);
+        assertNull(solid.getDashArray());
+        assertEquals(BasicStroke.CAP_ROUND, dotted.getEndCap());
+        assertArrayEquals(new float[] { 0, 3 }, dotted.getDashArray());
+    }
+
+    @Test
+    void cachesAreBounded() {
+        for (int i = 0; i < 200; i++) {
+            Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 1000 + i);
+            Graphics2DCanvas.getStroke(1000 + i, 1, LineStyle.Solid);
+        }
+
+        // the caches are full: new instances are created but not cached
+        Font font = Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 1500);
+        assertNotSame(font, Graphics2DCanvas.getFont("Liberation Sans", Font.PLAIN, 1500));
+        assertEquals(1500, font.getSize());
+        BasicStroke stroke = Graphics2DCanvas.getStroke(1500, 1, LineStyle.Solid);
+        assertNotSame(stroke, Graphics2DCanvas.getStroke(1500, 1, LineStyle.Solid));
+        assertEquals(1500, stroke.getLineWidth());
+    }
+}
@@ -0,0 +1,130 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.Bill;
+import net.codecrete.qrbill.generator.GraphicsFormat;
+import net.codecrete.qrbill.generator.OutputSize;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.generator.SeparatorType;
+import net.codecrete.qrbill.testhelper.FileComparison;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for generating QR bills as PNG without AWT
+ */
+@DisplayName("Headless PNG canvas test")
+class HeadlessPNGCanvasTest {
+
+    @Test
+    void pngWithDashedLines() throws IOException {
+        Bill bill = SampleData.getExample1();
+        generateAndCompareBill(bill, SeparatorType.DASHED_LINE, "headless_linestyle_1.png");
+    }
+
+    @Test
+    void pngWithDottedLinesAndScissors() throws IOException {
+        Bill bill = SampleData.getExample1();
+        generateAndCompareBill(bill, SeparatorType.DOTTED_LINE_WITH_SCISSORS, "headless_linestyle_2.png");
+    }
+
+    @Test
+    void qrCodeMatchesAwtRendering() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
+        bill.getFormat().setSeparatorType(SeparatorType.DASHED_LINE);
+        byte[] png;
+        try (HeadlessPNGCanvas canvas = new HeadlessPNGCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT, 144)) {
+            QRBill.draw(bill, canvas);
+            png = canvas.toByteArray();
+        }
+
+        BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+        BufferedImage expected;
+        try (InputStream is = HeadlessPNGCanvasTest.class.getResourceAsStream("/linestyle_1.png")) {
+            expected = ImageIO.read(is);
+        }
+
+        // QR code (46 by 46 mm at 67 / 42 mm), the Swiss cross (7 by 7 mm) in the center is excluded
+        int qrLeft = toPixels(67);
+        int qrRight = toPixels(67 + 46);
+        int qrTop = actual.getHeight() - toPixels(42 + 46);
+        int qrBottom = actual.getHeight() - toPixels(42);
+        int crossLeft = toPixels(67 + 19.5) - 2;
+        int crossRight = toPixels(67 + 26.5) + 2;
+        int crossTop = actual.getHeight() - toPixels(42 + 26.5) - 2;
+        int crossBottom = actual.getHeight() - toPixels(42 + 19.5) + 2;
+        for (int y = qrTop; y < qrBottom; y++) {
+            for (int x = qrLeft; x < qrRight; x++) {
+                if (x >= crossLeft && x < crossRight && y >= crossTop && y < crossBottom)
+                    continue;
+                assertEquals(expected.getRaster().getSample(x, y, 0), actual.getRaster().getSample(x, y, 0),
+                        "pixel at " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void generateWithHeadlessRendering() {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
+        bill.getFormat().setSeparatorType(SeparatorType.DASHED_LINE);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PNG);
+        bill.getFormat().setHeadlessRendering(true);
+        byte[] png = QRBill.generate(bill);
+        FileComparison.assertGrayscaleImageContentsEqual(png, "headless_linestyle_1.png", 1000);
+    }
+
+    @Test
+    void pngQrBillWithSpecialCharacters() throws IOException {
+        Bill bill = SampleData.getExample3();
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+        byte[] png;
+        try (HeadlessPNGCanvas canvas = new HeadlessPNGCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT, 300)) {
+            QRBill.draw(bill, canvas);
+            png = canvas.toByteArray();
+        }
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(2480, image.getWidth());
+        assertEquals(1240, image.getHeight());
+        assertEquals(8, image.getColorModel().getPixelSize());
+    }
+
+    @Test
+    void invalidCompressionLevel() {
+        HeadlessPNGCanvas canvas = new HeadlessPNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144);
+        assertThrows(IllegalArgumentException.class, () -> canvas.setCompressionLevel(10));
+    }
+
+    private void generateAndCompareBill(Bill bill, SeparatorType separatorType, String expectedFileName)
+            throws IOException {
+        bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
+        bill.getFormat().setSeparatorType(separatorType);
+        byte[] png;
+        try (HeadlessPNGCanvas canvas = new HeadlessPNGCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT, 144)) {
+            QRBill.draw(bill, canvas);
+            png = canvas.toByteArray();
+        }
+        FileComparison.assertGrayscaleImageContentsEqual(png, expectedFileName, 1000);
+    }
+
+    private static int toPixels(double mm) {
+        return (int) (mm * 144 / 25.4 + 0.5);
+    }
+}
@@ -6,6 +6,7 @@
 //
 package net.codecrete.qrbill.canvas;
 
+import net.codecrete.qrbill.canvas.Canvas.LineStyle;
 import net.codecrete.qrbill.generator.Bill;
 import net.codecrete.qrbill.generator.OutputSize;
 import net.codecrete.qrbill.generator.QRBill;
@@ -14,13 +15,18 @@ import net.codecrete.qrbill.testhelper.SampleData;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -81,6 +87,81 @@ class PNGCanvasTest {
         Files.delete(path);
     }
 
+    @Test
+    void pngQrCodeBlackAndWhite() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+        byte[] png;
+        try (PNGCanvas canvas = new PNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144, "Helvetica")) {
+            canvas.setBlackAndWhite(true);
+            canvas.setCompressionLevel(9);
+            QRBill.draw(bill, canvas);
+            png = canvas.toByteArray();
+        }
+
+        checkForPngHeader(png);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        assertEquals(261, image.getWidth());
+        assertEquals(1, image.getColorModel().getPixelSize());
+    }
+
+    @Test
+    void pngWithFilters() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+        for (PNGFilter filter : PNGFilter.values()) {
+            byte[] png;
+            try (PNGCanvas canvas = new PNGCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT, 300,
+                    "\"Liberation Sans\",Arial, Helvetica")) {
+                canvas.setFilter(filter);
+                canvas.setCompressionLevel(1);
+                QRBill.draw(bill, canvas);
+                png = canvas.toByteArray();
+            }
+            FileComparison.assertGrayscaleImageContentsEqual(png, "qrbill_ex1.png", 35000);
+        }
+    }
+
+    @Test
+    void pngBlackAndWhiteWithoutFilter() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+        byte[] adaptive = generateBlackAndWhite(bill, PNGFilter.ADAPTIVE);
+        byte[] none = generateBlackAndWhite(bill, PNGFilter.NONE);
+        assertArrayEquals(none, adaptive);
+    }
+
+    @Test
+    void pngMultiLineText() throws IOException {
+        String[] lines = { "Robert Schneider AG", "Rue du Lac 1268", "2501 Biel" };
+        byte[] multiLine;
+        try (PNGCanvas canvas = new PNGCanvas(100, 40, 144, "\"Liberation Sans\",Arial, Helvetica")) {
+            canvas.putTextLines(lines, 5, 30, 10, 1.5);
+            drawBox(canvas);
+            canvas.putTextLines(lines, 55, 30, 10, 0);
+            multiLine = canvas.toByteArray();
+        }
+
+        byte[] singleLines;
+        try (PNGCanvas canvas = new PNGCanvas(100, 40, 144, "\"Liberation Sans\",Arial, Helvetica")) {
+            double lineHeight = canvas.getLineHeight(10);
+            for (int i = 0; i < lines.length; i++)
+                canvas.putText(lines[i], 5, 30 - i * (lineHeight + 1.5), 10, false);
+            drawBox(canvas);
+            for (int i = 0; i < lines.length; i++)
+                canvas.putText(lines[i], 55, 30 - i * lineHeight, 10, false);
+            singleLines = canvas.toByteArray();
+        }
+
+        assertArrayEquals(singleLines, multiLine);
+    }
+
+    @Test
+    void invalidCompressionLevel() {
+        PNGCanvas canvas = new PNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144, "Helvetica");
+        assertThrows(IllegalArgumentException.class, () -> canvas.setCompressionLevel(10));
+    }
+
     private void checkForPngHeader(byte[] data) {
         assertEquals((byte) 137, data[0]);
         assertEquals((byte) 80, data[1]);
@@ -91,4 +172,20 @@ class PNGCanvasTest {
         assertEquals((byte) 26, data[6]);
         assertEquals((byte) 10, data[7]);
     }
+
+    // Draws a gray box, changing color and stroke between text
+    private static void drawBox(Canvas canvas) throws IOException {
+        canvas.startPath();
+        canvas.addRectangle(2, 2, 96, 36);
+        canvas.strokePath(0.5, 0x808080, LineStyle.Dashed, true);
+    }
+
+    private static byte[] generateBlackAndWhite(Bill bill, PNGFilter filter) throws IOException {
+        try (PNGCanvas canvas = new PNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144, "Helvetica")) {
+            canvas.setBlackAndWhite(true);
+            canvas.setFilter(filter);
+            QRBill.draw(bill, canvas);
+            return canvas.toByteArray();
+        }
+    }
 }
@@ -0,0 +1,100 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.Bill;
+import net.codecrete.qrbill.generator.OutputSize;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for generating multi-page PDF documents with many QR bills
+ */
+@DisplayName("PDF batch canvas test")
+class PdfBatchCanvasTest {
+
+    private static final float MM_TO_PT = 72 / 25.4f;
+
+    @Test
+    void createsOnePagePerBill() throws IOException {
+        Bill[] bills = {
+                SampleData.getExample1(),
+                SampleData.getExample2(),
+                SampleData.getExample3(),
+                SampleData.getExample4()
+        };
+
+        byte[] pdf;
+        try (PDFBatchCanvas canvas = new PDFBatchCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT,
+                PDFFontSettings.embeddedLiberationSans())) {
+            for (Bill bill : bills) {
+                bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+                canvas.startPage();
+                QRBill.draw(bill, canvas);
+            }
+            assertEquals(bills.length, canvas.getPageCount());
+            pdf = canvas.toByteArray();
+        }
+
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            assertEquals(bills.length, document.getNumberOfPages());
+            assertEquals(QRBill.QR_BILL_HEIGHT * MM_TO_PT, document.getPage(3).getMediaBox().getHeight(), 0.01);
+        }
+    }
+
+    @Test
+    void supportsDifferentPageSizes() throws IOException {
+        byte[] pdf;
+        try (PDFBatchCanvas canvas = new PDFBatchCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT)) {
+            canvas.startPage();
+            QRBill.draw(SampleData.getExample1(), canvas);
+
+            Bill bill = SampleData.getExample2();
+            bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+            canvas.startPage(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT);
+            QRBill.draw(bill, canvas);
+            pdf = canvas.toByteArray();
+        }
+
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            assertEquals(2, document.getNumberOfPages());
+            assertEquals(QRBill.A4_PORTRAIT_HEIGHT * MM_TO_PT, document.getPage(0).getMediaBox().getHeight(), 0.01);
+            assertEquals(QRBill.QR_CODE_WIDTH * MM_TO_PT, document.getPage(1).getMediaBox().getWidth(), 0.01);
+        }
+    }
+
+    @Test
+    void drawingBeforeStartPage_throwsException() throws IOException {
+        try (PDFBatchCanvas canvas = new PDFBatchCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT)) {
+            IllegalStateException ex = assertThrows(IllegalStateException.class,
+                    () -> canvas.putText("Text", 10, 10, 10, false));
+            assertEquals("startPage() must be called first", ex.getMessage());
+
+            Bill bill = SampleData.getExample1();
+            bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+            assertThrows(IllegalStateException.class, () -> QRBill.draw(bill, canvas));
+        }
+    }
+
+    @Test
+    void startPageAfterClose_throwsException() throws IOException {
+        PDFBatchCanvas canvas = new PDFBatchCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT);
+        canvas.startPage();
+        canvas.close();
+        IllegalStateException ex = assertThrows(IllegalStateException.class, canvas::startPage);
+        assertEquals("The PDF document has already been closed", ex.getMessage());
+    }
+}
@@ -0,0 +1,147 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.BatchResult;
+import net.codecrete.qrbill.generator.Bill;
+import net.codecrete.qrbill.generator.GraphicsFormat;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.generator.SPSCharacterSet;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the cache of parsed PDF fonts
+ */
+@DisplayName("PDF font cache")
+class PdfFontCacheTest {
+
+    @Test
+    void fontSettingsEquality() {
+        assertEquals(PDFFontSettings.embeddedLiberationSans(), PDFFontSettings.embeddedLiberationSans());
+        assertEquals(PDFFontSettings.embeddedLiberationSans().hashCode(), PDFFontSettings.embeddedLiberationSans().hashCode());
+        assertNotEquals(PDFFontSettings.standardHelvetica(), PDFFontSettings.embeddedLiberationSans());
+        assertEquals(
+                PDFFontSettings.embeddedCustomFont("Arial", Paths.get("arial.ttf"), Paths.get("arialbd.ttf")),
+                PDFFontSettings.embeddedCustomFont("Arial", Paths.get("arial.ttf"), Paths.get("arialbd.ttf")));
+        assertNotEquals(
+                PDFFontSettings.embeddedCustomFont("Arial", Paths.get("arial.ttf"), Paths.get("arialbd.ttf")),
+                PDFFontSettings.embeddedCustomFont("Arial", Paths.get("arial.ttf"), Paths.get("arialbi.ttf")));
+    }
+
+    @Test
+    void readsFontFilesOnce() throws IOException {
+        PDFFontCache.FontData fonts1 = PDFFontCache.getFontData(PDFFontSettings.embeddedLiberationSans());
+        PDFFontCache.FontData fonts2 = PDFFontCache.getFontData(PDFFontSettings.embeddedLiberationSans());
+        assertSame(fonts1, fonts2);
+        assertTrue(fonts1.regular.length > 0);
+        assertTrue(fonts1.bold.length > 0);
+        assertFalse(Arrays.equals(fonts1.regular, fonts1.bold));
+    }
+
+    @Test
+    void clearRemovesFonts() throws IOException {
+        PDFFontCache.FontData fonts1 = PDFFontCache.getFontData(PDFFontSettings.embeddedLiberationSans());
+        PDFCanvas.clearFontCache();
+        PDFFontCache.FontData fonts2 = PDFFontCache.getFontData(PDFFontSettings.embeddedLiberationSans());
+        assertNotSame(fonts1, fonts2);
+    }
+
+    @Test
+    void reusesParsedFonts() throws IOException {
+        PDFFontCache.ParsedFonts fonts1 = PDFFontCache.checkOut(PDFFontSettings.embeddedLiberationSans());
+        PDFFontCache.ParsedFonts fonts2 = PDFFontCache.checkOut(PDFFontSettings.embeddedLiberationSans());
+        // fonts checked out at the same time are never shared
+        assertNotSame(fonts1.regular, fonts2.regular);
+        assertNotSame(fonts1.bold, fonts2.bold);
+        PDFFontCache.checkIn(fonts1);
+        PDFFontCache.checkIn(fonts2);
+
+        PDFFontCache.ParsedFonts fonts3 = PDFFontCache.checkOut(PDFFontSettings.embeddedLiberationSans());
+        assertTrue(fonts3 == fonts1 || fonts3 == fonts2);
+        PDFFontCache.checkIn(fonts3);
+    }
+
+    @Test
+    void changedFontFileIsReadAgain() throws IOException {
+        Path regularPath = Files.createTempFile("regular-", ".ttf");
+        Path boldPath = Files.createTempFile("bold-", ".ttf");
+        try {
+            copyResource("/fonts/LiberationSans-Regular.ttf", regularPath);
+            copyResource("/fonts/LiberationSans-Bold.ttf", boldPath);
+            PDFFontSettings settings = PDFFontSettings.embeddedCustomFont("Liberation Sans", regularPath, boldPath);
+
+            PDFFontCache.FontData fonts1 = PDFFontCache.getFontData(settings);
+            assertSame(fonts1, PDFFontCache.getFontData(settings));
+
+            FileTime modified = Files.getLastModifiedTime(regularPath);
+            Files.setLastModifiedTime(regularPath, FileTime.fromMillis(modified.toMillis() + 10000));
+            assertNotSame(fonts1, PDFFontCache.getFontData(settings));
+        } finally {
+            Files.delete(regularPath);
+            Files.delete(boldPath);
+        }
+    }
+
+    @Test
+    void concurrentGeneration_producesSameText() throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            Bill bill = i % 2 == 0 ? SampleData.getExample1() : SampleData.getExample3();
+            bill.setCharacterSet(SPSCharacterSet.EXTENDED_LATIN);
+            bill.getFormat().setGraphicsFormat(GraphicsFormat.PDF);
+            bills.add(bill);
+        }
+
+        List<BatchResult> results = new ArrayList<>();
+        QRBill.generateAll(bills, 4, true, results::add);
+
+        assertEquals(bills.size(), results.size());
+        for (int i = 0; i < bills.size(); i++) {
+            assertTrue(results.get(i).isSuccessful());
+            assertEquals(extractText(QRBill.generate(bills.get(i))), extractText(results.get(i).getOutput()));
+        }
+    }
+
+    @Test
+    void missingFontFileThrows() {
+        PDFFontSettings settings = PDFFontSettings.embeddedCustomFont("Missing",
+                Paths.get("missing-regular.ttf"), Paths.get("missing-bold.ttf"));
+        assertThrows(NoSuchFileException.class, () -> PDFFontCache.getFontData(settings));
+    }
+
+    private static void copyResource(String resourceName, Path path) throws IOException {
+        try (InputStream is = PdfFontCacheTest.class.getResourceAsStream(resourceName)) {
+            assertNotNull(is);
+            Files.copy(is, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String extractText(byte[] pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            return new PDFTextStripper().getText(document);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.Bill;
+import net.codecrete.qrbill.generator.GraphicsFormat;
+import net.codecrete.qrbill.generator.OutputSize;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.generator.SeparatorType;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for generating the QR code as a black and white PNG
+ */
+@DisplayName("QR code PNG canvas test")
+class QRCodePNGCanvasTest {
+
+    private static final int BLACK = 0xff000000;
+    private static final int WHITE = 0xffffffff;
+
+    @Test
+    void qrCodeOnly() throws IOException {
+        BufferedImage image = generate(OutputSize.QR_CODE_ONLY, 144);
+        assertEquals(261, image.getWidth());
+        assertEquals(261, image.getHeight());
+        assertEquals(1, image.getColorModel().getPixelSize());
+
+        // corners of finder patterns
+        assertEquals(BLACK, pixelAt(image, 144, 0.2, 0.2));
+        assertEquals(BLACK, pixelAt(image, 144, 45.8, 0.2));
+        assertEquals(BLACK, pixelAt(image, 144, 0.2, 45.8));
+    }
+
+    @Test
+    void qrCodeWithSwissCross() throws IOException {
+        BufferedImage image = generate(OutputSize.QR_CODE_ONLY, 300);
+
+        // center of white cross
+        assertEquals(WHITE, pixelAt(image, 300, 23, 23));
+        assertEquals(WHITE, pixelAt(image, 300, 23, 21.3));
+        assertEquals(WHITE, pixelAt(image, 300, 24.7, 23));
+        // black square around cross
+        assertEquals(BLACK, pixelAt(image, 300, 20.3, 20.3));
+        assertEquals(BLACK, pixelAt(image, 300, 25.5, 25.5));
+        assertEquals(BLACK, pixelAt(image, 300, 23, 25.5));
+    }
+
+    @Test
+    void qrCodeWithQuietZone() throws IOException {
+        BufferedImage image = generate(OutputSize.QR_CODE_WITH_QUIET_ZONE, 144);
+        assertEquals(317, image.getWidth());
+        assertEquals(317, image.getHeight());
+
+        assertEquals(WHITE, pixelAt(image, 144, 2, 2));
+        assertEquals(WHITE, pixelAt(image, 144, 54, 54));
+        assertEquals(BLACK, pixelAt(image, 144, 5.2, 5.2));
+    }
+
+    @Test
+    void matchesAntiAliasedImage() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+
+        BufferedImage blackAndWhite;
+        try (QRCodePNGCanvas canvas = new QRCodePNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144)) {
+            QRBill.draw(bill, canvas);
+            blackAndWhite = ImageIO.read(new ByteArrayInputStream(canvas.toByteArray()));
+        }
+        BufferedImage antiAliased;
+        try (PNGCanvas canvas = new PNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144, "Helvetica")) {
+            QRBill.draw(bill, canvas);
+            antiAliased = ImageIO.read(new ByteArrayInputStream(canvas.toByteArray()));
+        }
+
+        // pixels may only differ at module edges, i.e. each pixel must have the same color
+        // as the pixel at the same position or a neighboring pixel in the anti-aliased image
+        int width = antiAliased.getWidth();
+        int height = antiAliased.getHeight();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean isWhite = blackAndWhite.getRGB(x, y) == WHITE;
+                boolean hasMatch = false;
+                for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, height - 1); ny++) {
+                    for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, width - 1); nx++) {
+                        if (((antiAliased.getRGB(nx, ny) & 0xff) >= 128) == isWhite)
+                            hasMatch = true;
+                    }
+                }
+                assertTrue(hasMatch, "pixel (" + x + ", " + y + ") differs");
+            }
+        }
+    }
+
+    @Test
+    void fullBill() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+        bill.getFormat().setSeparatorType(SeparatorType.DASHED_LINE_WITH_SCISSORS);
+
+        BufferedImage image;
+        try (QRCodePNGCanvas canvas = new QRCodePNGCanvas(QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT, 144)) {
+            QRBill.draw(bill, canvas);
+            image = ImageIO.read(new ByteArrayInputStream(canvas.toByteArray()));
+        }
+        assertEquals(1191, image.getWidth());
+        assertEquals(595, image.getHeight());
+        assertEquals(1, image.getColorModel().getPixelSize());
+
+        // QR code (drawn before any text) is retained
+        assertEquals(BLACK, pixelAt(image, 144, 67.2, 17.2));
+        assertEquals(WHITE, pixelAt(image, 144, 90, 40));
+        // vertical separator line between receipt and payment part
+        assertTrue(hasBlackPixel(image, 144, 61.5, 62.5, 70, 80));
+        // title "Receipt"
+        assertTrue(hasBlackPixel(image, 144, 5, 20, 5, 10));
+    }
+
+    @Test
+    void invalidCompressionLevel() {
+        QRCodePNGCanvas canvas = new QRCodePNGCanvas(QRBill.QR_CODE_WIDTH, QRBill.QR_CODE_HEIGHT, 144);
+        assertThrows(IllegalArgumentException.class, () -> canvas.setCompressionLevel(-2));
+    }
+
+    private static BufferedImage generate(OutputSize outputSize, int resolution) throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(outputSize);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PNG);
+        bill.getFormat().setResolution(resolution);
+        byte[] png = QRBill.generate(bill);
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+
+    // Tests if there is a black pixel in the specified area (in mm, from the top left)
+    private static boolean hasBlackPixel(BufferedImage image, int resolution, double x0, double x1, double y0, double y1) {
+        double scale = resolution / 25.4;
+        for (int y = (int) (y0 * scale); y < (int) (y1 * scale); y++) {
+            for (int x = (int) (x0 * scale); x < (int) (x1 * scale); x++) {
+                if (image.getRGB(x, y) == BLACK)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // Gets the pixel at the specified position (in mm, from the top left)
+    private static int pixelAt(BufferedImage image, int resolution, double x, double y) {
+        double scale = resolution / 25.4;
+        return image.getRGB((int) (x * scale), (int) (y * scale));
+    }
+}
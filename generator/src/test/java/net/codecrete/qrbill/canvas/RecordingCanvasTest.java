@@ -0,0 +1,132 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+
+package net.codecrete.qrbill.canvas;
+
+import net.codecrete.qrbill.generator.Bill;
+import net.codecrete.qrbill.generator.OutputSize;
+import net.codecrete.qrbill.generator.QRBill;
+import net.codecrete.qrbill.testhelper.FileComparison;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for recording drawing commands and replaying them
+ * <p>
+ * Replayed output is compared byte by byte with the output of direct generation.
+ * </p>
+ */
+@DisplayName("Recording canvas and display list")
+class RecordingCanvasTest {
+
+    @Test
+    void replayAsSVG() throws IOException {
+        DisplayList displayList = recordA4Bill();
+        try (SVGCanvas canvas = new SVGCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT,
+                displayList.getFontFamilyList())) {
+            displayList.replay(canvas);
+            FileComparison.assertFileContentsEqual(canvas.toByteArray(), "a4bill_ex1.svg");
+        }
+    }
+
+    @Test
+    void replayAsPDF() throws IOException {
+        DisplayList displayList = recordA4Bill();
+        try (PDFCanvas canvas = new PDFCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT)) {
+            displayList.replay(canvas);
+            FileComparison.assertFileContentsEqual(canvas.toByteArray(), "a4bill_ex1.pdf");
+        }
+    }
+
+    @Test
+    void replayTwice() throws IOException {
+        DisplayList displayList = recordA4Bill();
+        byte[] svg1 = replayAsSVG(displayList);
+        byte[] svg2 = replayAsSVG(displayList);
+        assertEquals(new String(svg1, "UTF-8"), new String(svg2, "UTF-8"));
+    }
+
+    @Test
+    void serializedDisplayList() throws IOException, ClassNotFoundException {
+        DisplayList displayList = recordA4Bill();
+
+        DisplayList deserialized = serializeAndDeserialize(displayList);
+
+        assertEquals(displayList.size(), deserialized.size());
+        FileComparison.assertFileContentsEqual(replayAsSVG(deserialized), "a4bill_ex1.svg");
+    }
+
+    @Test
+    void invalidOperation_rejectedOnDeserialization() throws IOException {
+        DisplayList displayList = new DisplayList("Helvetica", new byte[] { 42 },
+                new double[0], new int[0], new String[0]);
+        assertThrows(InvalidObjectException.class, () -> serializeAndDeserialize(displayList));
+    }
+
+    @Test
+    void missingOperands_rejectedOnDeserialization() throws IOException {
+        DisplayList displayList = new DisplayList("Helvetica",
+                new byte[] { DisplayList.START_PATH, DisplayList.MOVE_TO, DisplayList.LINE_TO },
+                new double[] { 10, 10, 20 }, new int[0], new String[0]);
+        assertThrows(InvalidObjectException.class, () -> serializeAndDeserialize(displayList));
+    }
+
+    @Test
+    void invalidLineStyle_rejectedOnDeserialization() throws IOException {
+        DisplayList displayList = new DisplayList("Helvetica",
+                new byte[] { DisplayList.START_PATH, DisplayList.STROKE_PATH },
+                new double[] { 1 }, new int[] { 0, 7, 0 }, new String[0]);
+        assertThrows(InvalidObjectException.class, () -> serializeAndDeserialize(displayList));
+    }
+
+    @Test
+    void invalidNumberOfLines_rejectedOnDeserialization() throws IOException {
+        DisplayList displayList = new DisplayList("Helvetica",
+                new byte[] { DisplayList.PUT_TEXT_LINES },
+                new double[] { 10, 10, 0 }, new int[] { 8, Integer.MAX_VALUE }, new String[] { "Text" });
+        assertThrows(InvalidObjectException.class, () -> serializeAndDeserialize(displayList));
+    }
+
+    private static DisplayList serializeAndDeserialize(DisplayList displayList)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+            oos.writeObject(displayList);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            return (DisplayList) ois.readObject();
+        }
+    }
+
+    private static DisplayList recordA4Bill() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
+        try (RecordingCanvas recorder = new RecordingCanvas(bill.getFormat().getFontFamily())) {
+            QRBill.draw(bill, recorder);
+            return recorder.getDisplayList();
+        }
+    }
+
+    private static byte[] replayAsSVG(DisplayList displayList) throws IOException {
+        try (SVGCanvas canvas = new SVGCanvas(QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT,
+                displayList.getFontFamilyList())) {
+            displayList.replay(canvas);
+            return canvas.toByteArray();
+        }
+    }
+}
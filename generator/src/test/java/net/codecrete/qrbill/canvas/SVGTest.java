@@ -18,11 +18,13 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -74,6 +76,45 @@ class SVGTest {
         Files.delete(path);
     }
 
+    @Test
+    void svgStreaming() throws IOException {
+        Bill bill = SampleData.getExample1();
+        bill.setUnstructuredMessage("<h1>&&\"ff\"'t'");
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (SVGCanvas canvas = new SVGCanvas(os, QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT,
+                bill.getFormat().getFontFamily())) {
+            QRBill.draw(bill, canvas);
+        }
+
+        FileComparison.assertFileContentsEqual(os.toByteArray(), "qrbill_sc1.svg");
+    }
+
+    @Test
+    void svgStreaming_doesNotCloseStream() throws IOException {
+        Bill bill = SampleData.getExample3();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (SVGCanvas canvas = new SVGCanvas(os, QRBill.A4_PORTRAIT_WIDTH, QRBill.A4_PORTRAIT_HEIGHT, "Arial")) {
+            QRBill.draw(bill, canvas);
+        }
+        os.write("<!-- end -->\n".getBytes(StandardCharsets.UTF_8));
+
+        byte[] data = os.toByteArray();
+        checkForSvgHeader(data);
+        assertTrue(new String(data, StandardCharsets.UTF_8).endsWith("</svg>\n<!-- end -->\n"));
+    }
+
+    @Test
+    void svgStreaming_throwsException() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (SVGCanvas canvas = new SVGCanvas(os, QRBill.QR_BILL_WIDTH, QRBill.QR_BILL_HEIGHT, "Arial")) {
+            QRBill.draw(SampleData.getExample1(), canvas);
+            assertThrows(IllegalStateException.class, canvas::toByteArray);
+            assertThrows(IllegalStateException.class, () -> canvas.writeTo(new ByteArrayOutputStream()));
+            assertThrows(IllegalStateException.class, () -> canvas.saveAs(Paths.get("some.svg")));
+        }
+    }
+
     private void checkForSvgHeader(byte[] data) {
         assertEquals((byte) '<', data[0]);
         assertEquals((byte) '?', data[1]);
@@ -0,0 +1,154 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batch generation of QR bills
+ */
+@DisplayName("Batch generation")
+class BatchGenerationTest {
+
+    @Test
+    void generatesSameOutputAsSingleBill() {
+        List<Bill> bills = createBills(GraphicsFormat.SVG);
+        List<BatchResult> results = new ArrayList<>();
+        QRBill.generateAll(bills, 3, true, results::add);
+
+        assertEquals(bills.size(), results.size());
+        for (int i = 0; i < bills.size(); i++) {
+            BatchResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            assertSame(bills.get(i), result.getBill());
+            assertTrue(result.isSuccessful());
+            assertNull(result.getException());
+            assertNotNull(result.getValidationResult());
+            assertArrayEquals(QRBill.generate(bills.get(i)), result.getOutput());
+        }
+    }
+
+    @Test
+    void reportsInvalidBill() {
+        List<Bill> bills = createBills(GraphicsFormat.SVG);
+        bills.get(2).setAccount("CH12 3456 7890 1234 5678 9");
+        List<BatchResult> results = new ArrayList<>();
+        QRBill.generateAll(bills, 2, true, results::add);
+
+        assertEquals(bills.size(), results.size());
+        for (int i = 0; i < bills.size(); i++) {
+            BatchResult result = results.get(i);
+            assertEquals(i != 2, result.isSuccessful());
+        }
+
+        BatchResult failed = results.get(2);
+        assertNull(failed.getOutput());
+        assertTrue(failed.getException() instanceof QRBillValidationError);
+        assertTrue(failed.getValidationResult().hasErrors());
+    }
+
+    @Test
+    void deliversAllResultsUnordered() {
+        List<Bill> bills = createBills(GraphicsFormat.PNG);
+        boolean[] delivered = new boolean[bills.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            QRBill.generateAll(bills, executor, 2, false, result -> {
+                assertTrue(result.isSuccessful());
+                assertFalse(delivered[result.getIndex()]);
+                delivered[result.getIndex()] = true;
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        for (boolean d : delivered)
+            assertTrue(d);
+    }
+
+    @Test
+    void processesEmptyBatch() {
+        List<BatchResult> results = new ArrayList<>();
+        QRBill.generateAll(new ArrayList<>(), results::add);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void consumerExceptionAbortsBatch() throws InterruptedException {
+        List<Bill> bills = createBills(GraphicsFormat.SVG);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<BatchResult> results = new ArrayList<>();
+        try {
+            IllegalStateException ex = assertThrows(IllegalStateException.class,
+                    () -> QRBill.generateAll(bills, executor, bills.size(), true, result -> {
+                        results.add(result);
+                        throw new IllegalStateException("consumer failed");
+                    }));
+            assertEquals("consumer failed", ex.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    void rejectedTaskAbortsBatch() {
+        List<Bill> bills = createBills(GraphicsFormat.SVG);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicInteger numTasks = new AtomicInteger();
+        Executor limitedExecutor = command -> {
+            if (numTasks.incrementAndGet() > 3)
+                throw new RejectedExecutionException("too many tasks");
+            executor.execute(command);
+        };
+        try {
+            assertThrows(RejectedExecutionException.class,
+                    () -> QRBill.generateAll(bills, limitedExecutor, bills.size(), true, result -> { }));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidThreadCount() {
+        List<Bill> bills = createBills(GraphicsFormat.SVG);
+        assertThrows(IllegalArgumentException.class, () -> QRBill.generateAll(bills, 0, true, result -> { }));
+    }
+
+    private static List<Bill> createBills(GraphicsFormat graphicsFormat) {
+        List<Bill> bills = new ArrayList<>(Arrays.asList(
+                SampleData.getExample1(),
+                SampleData.getExample2(),
+                SampleData.getExample3(),
+                SampleData.getExample4(),
+                SampleData.getExample5(),
+                SampleData.getExample6()
+        ));
+        OutputSize[] outputSizes = OutputSize.values();
+        for (int i = 0; i < bills.size(); i++) {
+            BillFormat format = bills.get(i).getFormat();
+            format.setGraphicsFormat(graphicsFormat);
+            format.setOutputSize(outputSizes[i % outputSizes.length]);
+        }
+        return bills;
+    }
+}
@@ -10,6 +10,7 @@ package net.codecrete.qrbill.generator;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 class BillFormatTest {
@@ -23,6 +24,7 @@ class BillFormatTest {
         assertEquals("Helvetica,Arial,\"Liberation Sans\"", format.getFontFamily());
         assertEquals(SeparatorType.DASHED_LINE_WITH_SCISSORS, format.getSeparatorType());
         assertEquals(144, format.getResolution());
+        assertFalse(format.isHeadlessRendering());
         assertEquals(5.0, format.getMarginLeft());
         assertEquals(5.0, format.getMarginRight());
     }
@@ -31,7 +33,7 @@ class BillFormatTest {
     void toStringTest() {
         BillFormat format = new BillFormat();
         String text = format.toString();
-        assertEquals("BillFormat{outputSize=QR_BILL_ONLY, language=EN, separatorType=DASHED_LINE_WITH_SCISSORS, fontFamily='Helvetica,Arial,\"Liberation Sans\"', graphicsFormat=SVG, resolution=144, marginLeft=5.0, marginRight=5.0, localCountryCode='CH'}", text);
+        assertEquals("BillFormat{outputSize=QR_BILL_ONLY, language=EN, separatorType=DASHED_LINE_WITH_SCISSORS, fontFamily='Helvetica,Arial,\"Liberation Sans\"', graphicsFormat=SVG, resolution=144, isHeadlessRendering=false, marginLeft=5.0, marginRight=5.0, localCountryCode='CH'}", text);
     }
 
     @SuppressWarnings({"EqualsWithItself", "AssertBetweenInconvertibleTypes"})
@@ -53,4 +55,15 @@ class BillFormatTest {
         format2.setOutputSize(OutputSize.A4_PORTRAIT_SHEET);
         assertNotEquals(format1, format2);
     }
+
+    @Test
+    void copyIncludesHeadlessRendering() {
+        BillFormat format1 = new BillFormat();
+        format1.setHeadlessRendering(true);
+        BillFormat format2 = new BillFormat(format1);
+        assertEquals(format1, format2);
+
+        format2.setHeadlessRendering(false);
+        assertNotEquals(format1, format2);
+    }
 }
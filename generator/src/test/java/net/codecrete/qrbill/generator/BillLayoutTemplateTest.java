@@ -0,0 +1,83 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.canvas.SVGCanvas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for the bill layout templates
+ */
+@DisplayName("Bill layout templates")
+class BillLayoutTemplateTest {
+
+    @AfterEach
+    void resetTexts() {
+        MultilingualText.resetTexts();
+    }
+
+    @Test
+    void sameFormatAndFontSharesTemplate() throws IOException {
+        BillLayoutTemplate template1 = BillLayoutTemplate.forLayout(new BillFormat(), createCanvas("Helvetica"));
+        BillLayoutTemplate template2 = BillLayoutTemplate.forLayout(new BillFormat(), createCanvas("Helvetica"));
+        assertSame(template1, template2);
+    }
+
+    @Test
+    void differentFontHasOwnTemplate() throws IOException {
+        BillLayoutTemplate template1 = BillLayoutTemplate.forLayout(new BillFormat(), createCanvas("Helvetica"));
+        BillLayoutTemplate template2 = BillLayoutTemplate.forLayout(new BillFormat(), createCanvas("Frutiger"));
+        assertNotSame(template1, template2);
+        // "Acceptance point" is right-aligned, so its position depends on the font
+        assertNotEquals(template1.acceptancePointX, template2.acceptancePointX);
+    }
+
+    @Test
+    void differentLanguageHasOwnTemplate() throws IOException {
+        BillFormat format = new BillFormat();
+        format.setLanguage(Language.FR);
+        BillLayoutTemplate template = BillLayoutTemplate.forLayout(format, createCanvas("Helvetica"));
+        assertEquals("Section paiement", template.getLabel(MultilingualText.TextKey.PAYMENT_PART));
+    }
+
+    @Test
+    void changedTextsCreateNewTemplate() throws IOException {
+        BillFormat format = new BillFormat();
+        format.setLanguage(Language.EN);
+        BillLayoutTemplate template1 = BillLayoutTemplate.forLayout(format, createCanvas("Helvetica"));
+        assertEquals("Receipt", template1.getLabel(MultilingualText.TextKey.RECEIPT));
+
+        MultilingualText.setTexts(Language.EN, Collections.singletonMap(MultilingualText.KEY_RECEIPT, "Payment slip"));
+        BillLayoutTemplate template2 = BillLayoutTemplate.forLayout(format, createCanvas("Helvetica"));
+        assertNotSame(template1, template2);
+        assertEquals("Payment slip", template2.getLabel(MultilingualText.TextKey.RECEIPT));
+    }
+
+    @Test
+    void metricsMatchCanvas() throws IOException {
+        SVGCanvas canvas = createCanvas("Helvetica");
+        BillLayoutTemplate template = BillLayoutTemplate.forLayout(new BillFormat(), canvas);
+        for (int fontSize = 6; fontSize <= 11; fontSize++) {
+            assertEquals(canvas.getAscender(fontSize), template.getAscender(fontSize));
+            assertEquals(canvas.getLineHeight(fontSize), template.getLineHeight(fontSize));
+        }
+    }
+
+    private static SVGCanvas createCanvas(String fontFamily) throws IOException {
+        return new SVGCanvas(210, 105, fontFamily);
+    }
+}
@@ -0,0 +1,194 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for decoding many QR code texts
+ */
+@DisplayName("Bulk decoding of QR code texts")
+class BulkDecodingTest {
+
+    @Test
+    void lengthPrefixedRecords() throws IOException {
+        String[] texts = sampleTexts(1000);
+        texts[7] = "garbage";
+        texts[600] = texts[600].replace("EPD", "E_P");
+
+        List<DecodingResult> results = decodeAll(lengthPrefixed(texts), QrPayloadFormat.LENGTH_PREFIXED);
+
+        assertResults(texts, results);
+        assertFalse(results.get(7).isSuccessful());
+        DecodedTextTest.assertSingleError(results.get(7).getValidationResult(),
+                ValidationConstants.KEY_DATA_STRUCTURE_INVALID, ValidationConstants.FIELD_QR_TYPE);
+        assertFalse(results.get(600).isSuccessful());
+        DecodedTextTest.assertSingleError(results.get(600).getValidationResult(),
+                ValidationConstants.KEY_DATA_STRUCTURE_INVALID, ValidationConstants.FIELD_TRAILER);
+    }
+
+    @Test
+    void jsonLines() throws IOException {
+        String[] texts = sampleTexts(700);
+        texts[3] = "Grüsse \"Tab\"\t/ \\ \u20ac";
+        StringBuilder sb = new StringBuilder();
+        for (String text : texts) {
+            sb.append(toJsonString(text)).append("\r\n");
+            sb.append("\n"); // empty lines are ignored
+        }
+
+        List<DecodingResult> results = decodeAll(sb.toString().getBytes(StandardCharsets.UTF_8), QrPayloadFormat.JSON_LINES);
+
+        assertResults(texts, results);
+        assertEquals(texts[3], results.get(3).getText());
+        assertFalse(results.get(3).isSuccessful());
+    }
+
+    @Test
+    void invalidJsonLine() throws IOException {
+        String text = SampleQrCodeText.getQrCodeText(2);
+        String json = toJsonString(text) + "\n\"SPC\\x\"\n" + toJsonString(text);
+
+        List<DecodingResult> results = decodeAll(json.getBytes(StandardCharsets.UTF_8), QrPayloadFormat.JSON_LINES);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertEquals("\"SPC\\x\"", results.get(1).getText());
+        DecodedTextTest.assertSingleError(results.get(1).getValidationResult(),
+                ValidationConstants.KEY_DATA_STRUCTURE_INVALID, ValidationConstants.FIELD_QR_TYPE);
+        assertTrue(results.get(2).isSuccessful());
+        assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void truncatedRecord() {
+        byte[] data = lengthPrefixed(sampleTexts(3));
+        byte[] truncatedData = new byte[data.length - 10];
+        System.arraycopy(data, 0, truncatedData, 0, truncatedData.length);
+        assertThrows(IOException.class, () -> decodeAll(truncatedData, QrPayloadFormat.LENGTH_PREFIXED));
+    }
+
+    @Test
+    void emptyInput() throws IOException {
+        assertTrue(decodeAll(new byte[0], QrPayloadFormat.LENGTH_PREFIXED).isEmpty());
+        assertTrue(decodeAll(new byte[0], QrPayloadFormat.JSON_LINES).isEmpty());
+    }
+
+    @Test
+    void decodeFile() throws IOException {
+        String[] texts = sampleTexts(20);
+        Path path = Files.createTempFile("qrcodetexts-", ".bin");
+        try {
+            Files.write(path, lengthPrefixed(texts));
+            List<DecodingResult> results = new ArrayList<>();
+            QRBill.decodeAll(path, QrPayloadFormat.LENGTH_PREFIXED, results::add);
+            assertResults(texts, results);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "\"abc", "abc\"", "\"a\"b\"", "\"abc\\\"", "\"\\u12\"", "\"\\uxyz1\"", "\"\\a\"", "", " " })
+    void invalidJsonString_returnsNull(String json) {
+        assertNull(BulkDecoder.parseJsonString(json));
+    }
+
+    @Test
+    void jsonString_isParsed() {
+        assertEquals("", BulkDecoder.parseJsonString("\"\""));
+        assertEquals("abc", BulkDecoder.parseJsonString(" \"abc\"\t"));
+        assertEquals("a\r\nb\"\\/\b\f\t\u00e4", BulkDecoder.parseJsonString("\"a\\r\\nb\\\"\\\\\\/\\b\\f\\t\\u00E4\""));
+    }
+
+    private static List<DecodingResult> decodeAll(byte[] data, QrPayloadFormat format) throws IOException {
+        List<DecodingResult> results = new ArrayList<>();
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(data));
+        QRBill.decodeAll(channel, format, 3, results::add);
+        return results;
+    }
+
+    private static void assertResults(String[] texts, List<DecodingResult> results) {
+        assertEquals(texts.length, results.size());
+        for (int i = 0; i < texts.length; i++) {
+            DecodingResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            assertEquals(texts[i], result.getText());
+            ValidationResult validationResult = new ValidationResult();
+            Bill expectedBill = QRCodeText.decode(texts[i], validationResult);
+            assertEquals(expectedBill != null, result.isSuccessful());
+            assertEquals(expectedBill, result.getBill());
+            assertEquals(expectedBill == null, result.getValidationResult() != null);
+        }
+    }
+
+    private static String[] sampleTexts(int count) {
+        String[] texts = new String[count];
+        for (int i = 0; i < count; i++)
+            texts[i] = SampleQrCodeText.getQrCodeText(i % 5 + 1, i % 2 == 0 ? "\n" : "\r\n");
+        return texts;
+    }
+
+    private static byte[] lengthPrefixed(String[] texts) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(os)) {
+            for (String text : texts) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return os.toByteArray();
+    }
+
+    private static String toJsonString(String text) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            switch (ch) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
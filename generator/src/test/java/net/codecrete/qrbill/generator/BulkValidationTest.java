@@ -0,0 +1,165 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for validating bill data in column-oriented form
+ */
+@DisplayName("Bulk validation")
+class BulkValidationTest {
+
+    @Test
+    void sampleBillsMatchSingleValidation() {
+        // sample bills with structured addresses
+        Bill[] bills = {
+                SampleData.getExample1(),
+                SampleData.getExample2(),
+                SampleData.getExample3(),
+                SampleData.getExample4(),
+                SampleData.getExample8(),
+                SampleData.getExample1(),
+                SampleData.getExample3(),
+                SampleData.getExample4()
+        };
+        bills[5].setAccount("CH12 3456");
+        bills[6].getCreditor().setName(null);
+        bills[7].setReference("RF00");
+
+        BulkValidationResult result = QRBill.validateAll(toColumns(bills));
+
+        assertEquals(bills.length, result.getNumRows());
+        for (int i = 0; i < bills.length; i++) {
+            ValidationResult expected = QRBill.validate(bills[i]);
+            assertEquals(expected.hasErrors(), result.hasFailed(i));
+            if (expected.hasErrors())
+                assertSameMessages(expected.getValidationMessages(), result.getValidationMessages(i));
+            else
+                assertTrue(result.getValidationMessages(i).isEmpty());
+        }
+        assertEquals(3, result.getNumFailedRows());
+    }
+
+    @Test
+    void failedRows() {
+        BillColumns columns = new BillColumns(3);
+        columns.setAccounts(new String[] { "CH4431999123000889012", "CH44 3199 9123 0008 8901 2", "XX00" });
+        columns.setAmounts(new BigDecimal[] { null, BigDecimal.valueOf(10), null });
+        columns.setReferences(new String[] { "210000000003139471430009017", "21 00000 00003 13947 14300 09017", null });
+        columns.getCreditors().setNames(new String[] { "Robert Schneider AG", " Robert Schneider AG ", "Robert Schneider AG" });
+        columns.getCreditors().setPostalCodes(new String[] { "2501", "2501", "2501" });
+        columns.getCreditors().setTowns(new String[] { "Biel", "Biel", "Biel" });
+        columns.getCreditors().setCountryCodes(new String[] { "CH", "ch", "CH" });
+
+        BulkValidationResult result = QRBill.validateAll(columns);
+
+        BitSet expectedFailures = new BitSet();
+        expectedFailures.set(2);
+        assertEquals(expectedFailures, result.getFailedRows());
+        assertFalse(result.hasFailed(0));
+        assertFalse(result.hasFailed(1));
+        assertTrue(result.hasFailed(2));
+        assertEquals(ValidationConstants.FIELD_ACCOUNT, result.getValidationMessages(2).get(0).getField());
+    }
+
+    @Test
+    void missingCreditorFails() {
+        BillColumns columns = new BillColumns(1);
+        columns.setAccounts(new String[] { "CH4431999123000889012" });
+        columns.setReferences(new String[] { "210000000003139471430009017" });
+
+        BulkValidationResult result = QRBill.validateAll(columns);
+        assertTrue(result.hasFailed(0));
+    }
+
+    @Test
+    void invalidColumnLength() {
+        BillColumns columns = new BillColumns(2);
+        String[] accounts = { "CH4431999123000889012" };
+        assertThrows(IllegalArgumentException.class, () -> columns.setAccounts(accounts));
+    }
+
+    @Test
+    void invalidRow() {
+        BulkValidationResult result = QRBill.validateAll(new BillColumns(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.hasFailed(2));
+    }
+
+    private static void assertSameMessages(List<ValidationMessage> expected, List<ValidationMessage> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getField(), actual.get(i).getField());
+            assertEquals(expected.get(i).getMessageKey(), actual.get(i).getMessageKey());
+        }
+    }
+
+    private static BillColumns toColumns(Bill[] bills) {
+        int n = bills.length;
+        BillColumns columns = new BillColumns(n);
+        String[] accounts = new String[n];
+        BigDecimal[] amounts = new BigDecimal[n];
+        String[] currencies = new String[n];
+        String[] references = new String[n];
+        String[] messages = new String[n];
+        String[] billInfo = new String[n];
+        for (int i = 0; i < n; i++) {
+            accounts[i] = bills[i].getAccount();
+            amounts[i] = bills[i].getAmount();
+            currencies[i] = bills[i].getCurrency();
+            references[i] = bills[i].getReference();
+            messages[i] = bills[i].getUnstructuredMessage();
+            billInfo[i] = bills[i].getBillInformation();
+            bills[i].setAlternativeSchemes(null);
+        }
+        columns.setAccounts(accounts);
+        columns.setAmounts(amounts);
+        columns.setCurrencies(currencies);
+        columns.setReferences(references);
+        columns.setUnstructuredMessages(messages);
+        columns.setBillInformation(billInfo);
+        setAddressColumns(columns.getCreditors(), bills, true);
+        setAddressColumns(columns.getDebtors(), bills, false);
+        return columns;
+    }
+
+    private static void setAddressColumns(BillColumns.AddressColumns columns, Bill[] bills, boolean isCreditor) {
+        int n = bills.length;
+        String[] names = new String[n];
+        String[] streets = new String[n];
+        String[] houseNumbers = new String[n];
+        String[] postalCodes = new String[n];
+        String[] towns = new String[n];
+        String[] countryCodes = new String[n];
+        for (int i = 0; i < n; i++) {
+            Address address = isCreditor ? bills[i].getCreditor() : bills[i].getDebtor();
+            if (address == null)
+                continue;
+            names[i] = address.getName();
+            streets[i] = address.getStreet();
+            houseNumbers[i] = address.getHouseNo();
+            postalCodes[i] = address.getPostalCode();
+            towns[i] = address.getTown();
+            countryCodes[i] = address.getCountryCode();
+        }
+        columns.setNames(names);
+        columns.setStreets(streets);
+        columns.setHouseNumbers(houseNumbers);
+        columns.setPostalCodes(postalCodes);
+        columns.setTowns(towns);
+        columns.setCountryCodes(countryCodes);
+    }
+}
@@ -0,0 +1,114 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the validation of bill data that is already clean
+ */
+@DisplayName("Validation of clean bill data")
+class CleanBillValidationTest {
+
+    @ParameterizedTest
+    @MethodSource("provideSampleBills")
+    void cleanedBillIsReused(Bill bill) {
+        Bill cleanedBill = Validator.validate(bill).getCleanedBill();
+
+        ValidationResult result = Validator.validateReusingCleanBill(cleanedBill);
+        assertSame(cleanedBill, result.getCleanedBill());
+        assertFalse(result.hasMessages());
+        assertEquals(Validator.validate(cleanedBill).getCleanedBill(), result.getCleanedBill());
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSampleBills")
+    void uncleanBillIsCopied(Bill bill) {
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertEquals(Validator.validate(bill).getCleanedBill(), result.getCleanedBill());
+    }
+
+    @Test
+    void formattedAccountIsCleaned() {
+        Bill bill = cleanedExample1();
+        bill.setAccount("CH44 3199 9123 0008 8901 2");
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertEquals("CH4431999123000889012", result.getCleanedBill().getAccount());
+    }
+
+    @Test
+    void amountWithoutDecimalsIsCleaned() {
+        Bill bill = cleanedExample1();
+        bill.setAmount(BigDecimal.valueOf(100));
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertEquals(BigDecimal.valueOf(10000, 2), result.getCleanedBill().getAmount());
+    }
+
+    @Test
+    void textWithMultipleSpacesIsCleaned() {
+        Bill bill = cleanedExample1();
+        bill.getCreditor().setName("Robert  Schneider AG");
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertEquals("Robert Schneider AG", result.getCleanedBill().getCreditor().getName());
+    }
+
+    @Test
+    void unsupportedCharactersAreReplaced() {
+        Bill bill = cleanedExample1();
+        bill.setUnstructuredMessage("Rechnung ₿");
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertTrue(result.hasWarnings());
+    }
+
+    @Test
+    void invalidReferenceReportsError() {
+        Bill bill = cleanedExample1();
+        bill.setReference("210000000003139471430009018");
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertTrue(result.hasErrors());
+    }
+
+    @Test
+    void emptyDebtorIsRemoved() {
+        Bill bill = cleanedExample1();
+        bill.setDebtor(new Address());
+        ValidationResult result = Validator.validateReusingCleanBill(bill);
+        assertNotSame(bill, result.getCleanedBill());
+        assertNull(result.getCleanedBill().getDebtor());
+    }
+
+    private static Bill cleanedExample1() {
+        return Validator.validate(SampleData.getExample1()).getCleanedBill();
+    }
+
+    private static Stream<Bill> provideSampleBills() {
+        return Stream.of(
+                SampleData.getExample1(),
+                SampleData.getExample2(),
+                SampleData.getExample3(),
+                SampleData.getExample4(),
+                SampleData.getExample5(),
+                SampleData.getExample6(),
+                SampleData.getExample7(),
+                SampleData.getExample8()
+        );
+    }
+}
@@ -15,6 +15,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -165,6 +166,52 @@ class DecodedTextTest {
         assertSingleError(err.getValidationResult(), ValidationConstants.KEY_NUMBER_INVALID, ValidationConstants.FIELD_AMOUNT);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "1E3", "12,50", "+5", "1.2.3", "-", ".", " 5", "5 " })
+    void decodeInvalidAmount(String amount) {
+        String invalidText = SampleQrCodeText.getQrCodeText(1).replace("3949.75", amount);
+        QRBillValidationError err = assertThrows(QRBillValidationError.class,
+                () -> QRBill.decodeQrCodeText(invalidText));
+        assertSingleError(err.getValidationResult(), ValidationConstants.KEY_NUMBER_INVALID, ValidationConstants.FIELD_AMOUNT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "3949.75", "3949.7", "3949", "3949.", ".75", "0.00", "-12.50", "0012.50", "12345678901234567890.25" })
+    void decodeAmount(String amount) {
+        String text = SampleQrCodeText.getQrCodeText(1).replace("3949.75", amount);
+        Bill bill = QRBill.decodeQrCodeText(text);
+        assertEquals(new BigDecimal(amount), bill.getAmount());
+    }
+
+    @Test
+    void tryDecodeText() {
+        Bill bill = SampleQrCodeText.getBillData(3);
+        normalizeSourceBill(bill);
+        DecodingResult result = QRBill.tryDecodeQrCodeText(SampleQrCodeText.getQrCodeText(3));
+        assertTrue(result.isSuccessful());
+        assertNull(result.getValidationResult());
+        Bill bill2 = result.getBill();
+        normalizeDecodedBill(bill2);
+        assertEquals(bill, bill2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "SPC", "SPCX\n0200", "https://example.com/", "garbage\nSPC\n0200" })
+    void tryDecodeInvalidText(String text) {
+        DecodingResult result = QRBill.tryDecodeQrCodeText(text);
+        assertFalse(result.isSuccessful());
+        assertNull(result.getBill());
+        assertSingleError(result.getValidationResult(), ValidationConstants.KEY_DATA_STRUCTURE_INVALID, ValidationConstants.FIELD_QR_TYPE);
+    }
+
+    @Test
+    void tryDecodeInvalidNumber() {
+        String invalidText = SampleQrCodeText.getQrCodeText(1).replace("3949.75", "1239d49.75");
+        DecodingResult result = QRBill.tryDecodeQrCodeText(invalidText);
+        assertFalse(result.isSuccessful());
+        assertSingleError(result.getValidationResult(), ValidationConstants.KEY_NUMBER_INVALID, ValidationConstants.FIELD_AMOUNT);
+    }
+
     @Test
     void decodeMissingEPD() {
         String invalidText = SampleQrCodeText.getQrCodeText(1).replace("EPD", "E_P");
@@ -42,6 +42,25 @@ class EncodedTextTest {
         assertThrows(QRBillValidationError.class, () -> QRBill.encodeQrCodeText(bill));
     }
 
+    @Test
+    void tryCreateText() {
+        Bill bill = SampleQrCodeText.getBillData(2);
+        EncodingResult result = QRBill.tryEncodeQrCodeText(bill);
+        assertTrue(result.isSuccessful());
+        assertEquals(SampleQrCodeText.getQrCodeText(2), result.getText());
+        assertFalse(result.getValidationResult().hasErrors());
+    }
+
+    @Test
+    void tryCreateTextError() {
+        Bill bill = SampleData.getExample4();
+        bill.setAmount(BigDecimal.valueOf(-1, 2));
+        EncodingResult result = QRBill.tryEncodeQrCodeText(bill);
+        assertFalse(result.isSuccessful());
+        assertNull(result.getText());
+        assertTrue(result.getValidationResult().hasErrors());
+    }
+
     @Test
     void createTextEmptyReference() {
         Bill bill = SampleQrCodeText.getBillData3();
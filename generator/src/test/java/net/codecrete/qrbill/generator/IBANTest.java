@@ -10,6 +10,8 @@ package net.codecrete.qrbill.generator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -87,4 +89,29 @@ class IBANTest {
     void formatIBAN2() {
         assertEquals("IT68 D030 0203 2800 0040 0162 854", Payments.formatIBAN("IT68D0300203280000400162854"));
     }
+
+    @Test
+    void validRange() {
+        assertTrue(Payments.isValidIBAN("Account: CH44 3199 9123 0008 8901 2.", 9, 35));
+    }
+
+    @Test
+    void invalidRange() {
+        assertFalse(Payments.isValidIBAN("Account: CH44 3199 9123 0008 8901 2.", 9, 36));
+        assertFalse(Payments.isValidIBAN("Account: CH44 3199 9123 0008 8901 2.", 9, 34));
+    }
+
+    @Test
+    void validQRIBANWithLowercase() {
+        assertTrue(Payments.isQRIBAN("ch44 3199 9123 0008 8901 2"));
+    }
+
+    @Test
+    void validateIBANs() {
+        BitSet invalid = Payments.validateIBANs(new String[] {
+                "FR7630066100410001057380116", "DK5650510001322617", null, " DE12500105170648489890 " });
+        assertEquals(2, invalid.cardinality());
+        assertTrue(invalid.get(1));
+        assertTrue(invalid.get(2));
+    }
 }
@@ -3,6 +3,8 @@ package net.codecrete.qrbill.generator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -131,4 +133,36 @@ class ISO11649Test {
     void invalidCharacterException() {
         assertThrows(IllegalArgumentException.class, () -> Payments.createISO11649Reference("ABC-DEF"));
     }
+
+    @Test
+    void validRange() {
+        assertTrue(Payments.isValidISO11649Reference(new StringBuilder("Ref. RF08 B370 0321"), 5, 19));
+    }
+
+    @Test
+    void invalidRange() {
+        assertFalse(Payments.isValidISO11649Reference("Ref. RF08 B370 0321", 4, 18));
+    }
+
+    @Test
+    void validateReferences() {
+        BitSet invalid = Payments.validateISO11649References(new String[] {
+                "RF49N73GBST73AKL38ZX", "RF0CNHF", "RF040", null });
+        assertEquals(2, invalid.cardinality());
+        assertTrue(invalid.get(1));
+        assertTrue(invalid.get(3));
+    }
+
+    @Test
+    void createCreditorReferences() {
+        assertArrayEquals(new String[] { "RF91B334BOPQE39D902DC", "RF097" },
+                Payments.createISO11649References(new String[] { "B334 BOPQ E39D 902D C", "7" }));
+    }
+
+    @Test
+    void invalidCharacterExceptionMessage() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> Payments.createISO11649Reference("ABC-DEF"));
+        assertEquals("Invalid character in reference: -", ex.getMessage());
+    }
 }
@@ -0,0 +1,93 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.MissingResourceException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the multilingual texts
+ */
+@DisplayName("Multilingual texts")
+class MultilingualTextTest {
+
+    @AfterEach
+    void resetTexts() {
+        MultilingualText.resetTexts();
+    }
+
+    @Test
+    void textsForAllLanguages() {
+        assertEquals("Zahlteil", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.DE));
+        assertEquals("Section paiement", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.FR));
+        assertEquals("Sezione pagamento", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.IT));
+        assertEquals("Part da pajamaint", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.RM));
+        assertEquals("Payment part", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.EN));
+    }
+
+    @Test
+    void unknownKey() {
+        assertThrows(MissingResourceException.class, () -> MultilingualText.getText("xyz", Language.DE));
+    }
+
+    @Test
+    void replacedText() {
+        MultilingualText.setTexts(Language.EN, Collections.singletonMap(MultilingualText.KEY_RECEIPT, "Payment slip"));
+        assertEquals("Payment slip", MultilingualText.getText(MultilingualText.KEY_RECEIPT, Language.EN));
+        assertEquals("Payment part", MultilingualText.getText(MultilingualText.KEY_PAYMENT_PART, Language.EN));
+        assertEquals("Empfangsschein", MultilingualText.getText(MultilingualText.KEY_RECEIPT, Language.DE));
+
+        MultilingualText.resetTexts();
+        assertEquals("Receipt", MultilingualText.getText(MultilingualText.KEY_RECEIPT, Language.EN));
+    }
+
+    @Test
+    void replacedTextWithUnknownKey() {
+        assertThrows(MissingResourceException.class,
+                () -> MultilingualText.setTexts(Language.FR, Collections.singletonMap("xyz", "abc")));
+    }
+
+    @Test
+    void textsByEnumKey() {
+        assertEquals("Empfangsschein", MultilingualText.getText(MultilingualText.TextKey.RECEIPT, Language.DE));
+        assertEquals("Acceptance point", MultilingualText.getText(MultilingualText.TextKey.ACCEPTANCE_POINT, Language.EN));
+    }
+
+    @Test
+    void enumKeysMatchStringKeys() {
+        for (MultilingualText.TextKey key : MultilingualText.TextKey.values()) {
+            assertSame(key, MultilingualText.TextKey.forKey(key.getKey()));
+            for (Language language : Language.values())
+                assertEquals(MultilingualText.getText(key, language), MultilingualText.getText(key.getKey(), language));
+        }
+    }
+
+    @Test
+    void replacedTextWithNullKey() {
+        Map<String, String> newTexts = new HashMap<>();
+        newTexts.put(null, "abc");
+        assertThrows(IllegalArgumentException.class, () -> MultilingualText.setTexts(Language.FR, newTexts));
+    }
+
+    @Test
+    void replacedTextWithNullValue() {
+        Map<String, String> newTexts = new HashMap<>();
+        newTexts.put(MultilingualText.KEY_RECEIPT, null);
+        assertThrows(IllegalArgumentException.class, () -> MultilingualText.setTexts(Language.EN, newTexts));
+        assertEquals("Receipt", MultilingualText.getText(MultilingualText.KEY_RECEIPT, Language.EN));
+    }
+}
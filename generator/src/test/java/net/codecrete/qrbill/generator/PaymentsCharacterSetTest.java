@@ -58,6 +58,15 @@ class PaymentsCharacterSetTest {
         assertEquals(textAndExpected[1], Payments.cleanedAndTrimmedText(textAndExpected[0], EXTENDED_LATIN));
     }
 
+    @Test
+    void repeatedReplacement_returnsSameResult() {
+        String text = "ȆȇǑǉǼʷ⁵℁Ⅶ③xƉx­ÿŒ";
+        String cleaned = Payments.cleanedText(text, LATIN_1_SUBSET);
+        assertEquals(cleaned, Payments.cleanedText(text, LATIN_1_SUBSET));
+        assertNotEquals(cleaned, Payments.cleanedText(text, EXTENDED_LATIN));
+        assertEquals(Payments.cleanedText(text, EXTENDED_LATIN), Payments.cleanedText(text, EXTENDED_LATIN));
+    }
+
     @Test
     void cleanedNull_returnsNull() {
         assertNull(Payments.cleanedAndTrimmedText(null, EXTENDED_LATIN));
@@ -0,0 +1,111 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.FileComparison;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the cache of encoded QR codes
+ */
+@DisplayName("QR code cache")
+class QRCodeCacheTest {
+
+    @AfterEach
+    void disableCache() {
+        QRCodeCache.setMaxSize(0);
+        QRCodeCache.clear();
+    }
+
+    @Test
+    void disabledByDefault() {
+        assertEquals(0, QRCodeCache.getMaxSize());
+        generateQrCode(SampleData.getExample1());
+        assertEquals(0, QRCodeCache.getSize());
+        assertEquals(0, QRCodeCache.getHitCount());
+        assertEquals(0, QRCodeCache.getMissCount());
+    }
+
+    @Test
+    void sameBillHitsCache() {
+        QRCodeCache.setMaxSize(10);
+        Bill bill = SampleData.getExample1();
+        byte[] first = generateQrCode(bill);
+        byte[] second = generateQrCode(bill);
+        FileComparison.assertFileContentsEqual(first, "qrcode_ex1.svg");
+        FileComparison.assertFileContentsEqual(second, "qrcode_ex1.svg");
+        assertEquals(1, QRCodeCache.getSize());
+        assertEquals(1, QRCodeCache.getHitCount());
+        assertEquals(1, QRCodeCache.getMissCount());
+    }
+
+    @Test
+    void sameBillInSeveralFormats() {
+        QRCodeCache.setMaxSize(10);
+        Bill bill = SampleData.getExample3();
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.SVG);
+        QRBill.generate(bill);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PDF);
+        QRBill.generate(bill);
+        assertEquals(1, QRCodeCache.getHitCount());
+        assertEquals(1, QRCodeCache.getMissCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEvicted() {
+        QRCodeCache.setMaxSize(2);
+        generateQrCode(SampleData.getExample1());
+        generateQrCode(SampleData.getExample2());
+        generateQrCode(SampleData.getExample1());
+        generateQrCode(SampleData.getExample3());
+        assertEquals(2, QRCodeCache.getSize());
+
+        // example 1 is still cached, example 2 has been evicted
+        generateQrCode(SampleData.getExample1());
+        assertEquals(2, QRCodeCache.getHitCount());
+        generateQrCode(SampleData.getExample2());
+        assertEquals(4, QRCodeCache.getMissCount());
+    }
+
+    @Test
+    void reducedMaxSize() {
+        QRCodeCache.setMaxSize(3);
+        generateQrCode(SampleData.getExample1());
+        generateQrCode(SampleData.getExample2());
+        generateQrCode(SampleData.getExample3());
+        QRCodeCache.setMaxSize(1);
+        assertEquals(1, QRCodeCache.getSize());
+    }
+
+    @Test
+    void clearResetsCounts() {
+        QRCodeCache.setMaxSize(2);
+        generateQrCode(SampleData.getExample1());
+        generateQrCode(SampleData.getExample1());
+        QRCodeCache.clear();
+        assertEquals(0, QRCodeCache.getSize());
+        assertEquals(0, QRCodeCache.getHitCount());
+        assertEquals(0, QRCodeCache.getMissCount());
+    }
+
+    @Test
+    void rejectsNegativeMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> QRCodeCache.setMaxSize(-1));
+    }
+
+    private static byte[] generateQrCode(Bill bill) {
+        bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.SVG);
+        return QRBill.generate(bill);
+    }
+}
@@ -6,11 +6,15 @@
 //
 package net.codecrete.qrbill.generator;
 
+import io.nayuki.qrcodegen.QrCode;
 import net.codecrete.qrbill.testhelper.FileComparison;
 import net.codecrete.qrbill.testhelper.SampleData;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * Unit tests for generation of QR code (as SVG)
  */
@@ -70,4 +74,46 @@ class QRCodeTest {
         byte[] svg = QRBill.generate(bill);
         FileComparison.assertFileContentsEqual(svg, "qrcode_quiet_zone.pdf");
     }
+
+    @Test
+    void rectanglesCoverDarkModules() {
+        Bill[] bills = {
+                SampleData.getExample1(), SampleData.getExample2(), SampleData.getExample3(),
+                SampleData.getExample4(), SampleData.getExample5(), SampleData.getExample6()
+        };
+        // number of rectangles of the previous decomposition (largest rectangle first)
+        int[] previousCounts = { 1265, 504, 697, 389, 1915, 1393 };
+
+        for (int i = 0; i < bills.length; i++) {
+            String text = QRCodeText.create(QRBill.validate(bills[i]).getCleanedBill());
+            QRCode.Modules modules = QRCode.Modules.encode(text);
+
+            QrCode qrCode = QrCode.encodeText(text, QrCode.Ecc.MEDIUM);
+            int size = qrCode.size;
+            assertEquals(size, modules.size);
+
+            // paint rectangles
+            boolean[][] painted = new boolean[size][size];
+            int[] rectangles = modules.rectangles;
+            for (int j = 0; j < rectangles.length; j += 4) {
+                for (int y = rectangles[j + 1]; y < rectangles[j + 1] + rectangles[j + 3]; y++)
+                    for (int x = rectangles[j]; x < rectangles[j] + rectangles[j + 2]; x++)
+                        painted[y][x] = true;
+            }
+
+            // compare with dark modules outside the Swiss cross area
+            int start = (int) Math.floor((46 - 6.8) / 2 * size / 46);
+            int end = size - start;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    boolean isSwissCross = x >= start && x < end && y >= start && y < end;
+                    assertEquals(qrCode.getModule(x, y) && !isSwissCross, painted[y][x]);
+                }
+            }
+
+            int count = rectangles.length / 4;
+            assertTrue(count < previousCounts[i],
+                    "example " + (i + 1) + ": " + count + " rectangles, previously " + previousCounts[i]);
+        }
+    }
 }
@@ -10,6 +10,8 @@ package net.codecrete.qrbill.generator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.BitSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -85,4 +87,29 @@ class QRReferenceTest {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> Payments.createQRReference("123456789012345678901234567"));
         assertEquals("Reference number is too long", ex.getMessage());
     }
+
+    @Test
+    void validQRReferenceRange() {
+        assertTrue(Payments.isValidQRReference("Ref: 21 00000 00003 13947 14300 09017;", 5, 37));
+    }
+
+    @Test
+    void invalidQRReferenceRange() {
+        assertFalse(Payments.isValidQRReference("Ref: 21 00000 00003 13947 14300 09017;", 5, 36));
+    }
+
+    @Test
+    void validateQRReferences() {
+        BitSet invalid = Payments.validateQRReferences(new String[] {
+                "210000000003139471430009017", null, "000000000000000000000000000", "000000000000000000001234565" });
+        assertEquals(2, invalid.cardinality());
+        assertTrue(invalid.get(1));
+        assertTrue(invalid.get(2));
+    }
+
+    @Test
+    void createQRReferences() {
+        assertArrayEquals(new String[] { "000000000000000000001234565", "210000000003139471430009017" },
+                Payments.createQRReferences(new String[] { "12 3456", "21000000000313947143000901" }));
+    }
 }
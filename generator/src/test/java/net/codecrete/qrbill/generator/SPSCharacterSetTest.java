@@ -1,6 +1,7 @@
 package net.codecrete.qrbill.generator;
 
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -43,4 +44,32 @@ class SPSCharacterSetTest {
         assertFalse(SPSCharacterSet.EXTENDED_LATIN.contains((int)invalidChar));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = { "", "Robert Schneider AG", "Rue du Lac 1268/2/22", "Zürich", "Genève" })
+    void latin1Subset_containsAllValidCharacters(String text) {
+        assertTrue(SPSCharacterSet.LATIN_1_SUBSET.containsAll(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Ærøskøbing", "2^3", "Line\nbreak", "€ 12", "Łódź" })
+    void latin1Subset_doesNotContainAllInvalidCharacters(String text) {
+        assertFalse(SPSCharacterSet.LATIN_1_SUBSET.containsAll(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Łódź", "€ 12", "Țară" })
+    void extendedLatin_containsAllValidCharacters(String text) {
+        assertTrue(SPSCharacterSet.EXTENDED_LATIN.containsAll(text));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Ǒdin", "x\u2100", "\uD83D\uDE00" })
+    void extendedLatin_doesNotContainAllInvalidCharacters(String text) {
+        assertFalse(SPSCharacterSet.EXTENDED_LATIN.containsAll(text));
+    }
+
+    @Test
+    void fullUnicode_containsAllCharacters() {
+        assertTrue(SPSCharacterSet.FULL_UNICODE.containsAll("\uD83D\uDE00 \uFFFF \u0000"));
+    }
 }
@@ -0,0 +1,103 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import net.codecrete.qrbill.testhelper.FileComparison;
+import net.codecrete.qrbill.testhelper.SampleData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for generating bills to an output stream or channel
+ */
+@DisplayName("Bill generation to output stream")
+class StreamingGenerationTest {
+
+    @Test
+    void svgToOutputStream() {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_ONLY);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.SVG);
+        TrackingOutputStream os = new TrackingOutputStream();
+        QRBill.generate(bill, os);
+        assertFalse(os.isClosed);
+        FileComparison.assertFileContentsEqual(os.toByteArray(), "qrbill_ex1.svg");
+    }
+
+    @Test
+    void svgToChannel() {
+        Bill bill = SampleData.getExample3();
+        bill.getFormat().setOutputSize(OutputSize.QR_BILL_EXTRA_SPACE);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.SVG);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        QRBill.generate(bill, Channels.newChannel(os));
+        FileComparison.assertFileContentsEqual(os.toByteArray(), "qrbill_ex5.svg");
+    }
+
+    @Test
+    void pdfToOutputStream() {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PDF);
+        TrackingOutputStream os = new TrackingOutputStream();
+        QRBill.generate(bill, os);
+        assertFalse(os.isClosed);
+        assertEquals("%PDF", new String(os.toByteArray(), 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void pdfToChannel() {
+        Bill bill = SampleData.getExample3();
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PDF);
+        TrackingOutputStream os = new TrackingOutputStream();
+        WritableByteChannel channel = Channels.newChannel(os);
+        QRBill.generate(bill, channel);
+        assertTrue(channel.isOpen());
+        assertFalse(os.isClosed);
+        assertEquals("%PDF", new String(os.toByteArray(), 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void pngToOutputStream() {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setOutputSize(OutputSize.QR_CODE_ONLY);
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.PNG);
+        TrackingOutputStream os = new TrackingOutputStream();
+        QRBill.generate(bill, os);
+        assertFalse(os.isClosed);
+        assertArrayEquals(QRBill.generate(bill), os.toByteArray());
+    }
+
+    @Test
+    void invalidBillWritesNothing() {
+        Bill bill = SampleData.getExample1();
+        bill.getFormat().setGraphicsFormat(GraphicsFormat.SVG);
+        bill.setAccount("ABC");
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertThrows(QRBillValidationError.class, () -> QRBill.generate(bill, os));
+        assertEquals(0, os.size());
+    }
+
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean isClosed;
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+    }
+}
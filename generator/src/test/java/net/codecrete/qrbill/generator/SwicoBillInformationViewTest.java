@@ -0,0 +1,87 @@
+//
+// Swiss QR Bill Generator
+// Copyright (c) 2024 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.qrbill.generator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Swico S1 bill information view")
+class SwicoBillInformationViewTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            SwicoExamples.EXAMPLE_1_TEXT,
+            SwicoExamples.EXAMPLE_2_TEXT,
+            SwicoExamples.EXAMPLE_3_TEXT,
+            SwicoExamples.EXAMPLE_4_TEXT,
+            SwicoExamples.EXAMPLE_5_TEXT,
+            SwicoExamples.EXAMPLE_6_TEXT
+    })
+    void view_matchesDecodedBillInformation(String text) {
+        SwicoBillInformation billInformation = SwicoBillInformation.decodeText(text);
+        SwicoBillInformationView view = SwicoBillInformationView.decodeText(text);
+
+        assertEquals(billInformation, view.toBillInformation());
+        assertEquals(billInformation.getInvoiceNumber(), view.getInvoiceNumber());
+        assertEquals(billInformation.getInvoiceDate(), view.getInvoiceDate());
+        assertEquals(billInformation.getCustomerReference(), view.getCustomerReference());
+        assertEquals(billInformation.getVatNumber(), view.getVatNumber());
+        assertEquals(billInformation.getVatDate(), view.getVatDate());
+        assertEquals(billInformation.getVatStartDate(), view.getVatStartDate());
+        assertEquals(billInformation.getVatEndDate(), view.getVatEndDate());
+        assertEquals(billInformation.getVatRate(), view.getVatRate());
+        assertEquals(billInformation.getVatRateDetails(), view.getVatRateDetails());
+        assertEquals(billInformation.getVatImportTaxes(), view.getVatImportTaxes());
+        assertEquals(billInformation.getPaymentConditions(), view.getPaymentConditions());
+        assertEquals(billInformation.getDueDate(), view.getDueDate());
+    }
+
+    @Test
+    void invoiceNumberAndDueDate() {
+        SwicoBillInformationView view = SwicoBillInformationView.decodeText(
+                "//S1/10/10201409/11/190512/20/1400.000-53/40/2:10;0:30");
+        assertEquals("10201409", view.getInvoiceNumber());
+        assertEquals(LocalDate.of(2019, 6, 11), view.getDueDate());
+    }
+
+    @Test
+    void escapedCharacters_areUnescaped() {
+        SwicoBillInformationView view = SwicoBillInformationView.decodeText("//S1/10/X.66711\\/8824/20/a\\\\b/30/");
+        assertEquals("X.66711/8824", view.getInvoiceNumber());
+        assertEquals("a\\b", view.getCustomerReference());
+        assertNull(view.getVatNumber());
+    }
+
+    @Test
+    void lastValidElement_applies() {
+        SwicoBillInformationView view = SwicoBillInformationView.decodeText(
+                "//S1/10/1/31/180508/32/8/10/2/31/1805/32/7.7:100;2.5:50/40/0:30/40/x");
+        assertEquals("2", view.getInvoiceNumber());
+        assertEquals(LocalDate.of(2018, 5, 8), view.getVatDate());
+        assertNull(view.getVatRate());
+        assertEquals(2, view.getVatRateDetails().size());
+        assertEquals(BigDecimal.ZERO, view.getPaymentConditions().get(0).getDiscount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "//S2/10/123", "S1/10/123", "" })
+    void noSwicoText_returnsNull(String text) {
+        assertNull(SwicoBillInformationView.decodeText(text));
+    }
+
+    @Test
+    void nullText_returnsNull() {
+        assertNull(SwicoBillInformationView.decodeText(null));
+    }
+}